@@ -0,0 +1,74 @@
+package management.task.prototal.task_manager;
+
+import management.task.prototal.task_manager.dto.TaskArchive;
+import management.task.prototal.task_manager.dto.TaskImportResult;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.service.TaskArchiveService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+/**
+ * Exports or imports the task collection from the command line, with the application's configuration but
+ * without its web server:
+ * <pre>
+ * export [--compression=gzip|zstd|none]
+ * import --archive=NAME [--resume=true]
+ * </pre>
+ * Other arguments, such as --spring.data.mongodb.uri or --tasks.archive.dir, configure the application as
+ * usual. Exits with 0 once done, 1 if the export or import failed and 2 for a usage error.
+ */
+public class TaskArchiveCli {
+
+    private static final String USAGE = "Usage: export [--compression=gzip|zstd|none]"
+            + " | import --archive=NAME [--resume=true]";
+
+    public static void main(String[] args) {
+        ApplicationArguments arguments = new DefaultApplicationArguments(args);
+        List<String> commands = arguments.getNonOptionArgs();
+        if (commands.size() != 1 || !List.of("export", "import").contains(commands.get(0))
+                || commands.get(0).equals("import") && !arguments.containsOption("archive")) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TaskManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+        int status = 0;
+        try {
+            TaskArchiveService archiveService = context.getBean(TaskArchiveService.class);
+            if (commands.get(0).equals("export")) {
+                TaskArchive archive = archiveService.export(TaskArchive.Compression.named(
+                        option(arguments, "compression", "gzip"))).block();
+                System.out.printf("Exported %d tasks to %s (%d bytes)%n", archive.getTasks(), archive.getName(),
+                        archive.getSize());
+            } else {
+                TaskImportResult result = archiveService.importArchive(option(arguments, "archive", null),
+                        Boolean.parseBoolean(option(arguments, "resume", "false"))).block();
+                System.out.printf("Imported %s: %d tasks after %d already done, %d created, %d duplicate,"
+                                + " %d invalid%n", result.getArchive(), result.getProcessed(),
+                        result.getResumedAfter(), result.getCreated(), result.getDuplicates(), result.getInvalid());
+                result.getFailures().forEach(failure -> System.out.printf("  %s %s: %s%n", failure.getStatus(),
+                        failure.getId(), failure.getMessage()));
+            }
+        } catch (InvalidTaskException e) {
+            System.err.println(e.getMessage());
+            status = 1;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private static String option(ApplicationArguments arguments, String name, String defaultValue) {
+        List<String> values = arguments.getOptionValues(name);
+        return values == null || values.isEmpty() ? defaultValue : values.get(values.size() - 1);
+    }
+}
@@ -5,10 +5,13 @@
 
 package management.task.prototal.task_manager;
 
+import management.task.prototal.task_manager.config.TaskRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(TaskRuntimeHints.class)
 public class TaskManagerApplication {
 
 	public static void main(String[] args) {
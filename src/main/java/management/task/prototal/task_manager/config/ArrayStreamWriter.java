@@ -0,0 +1,85 @@
+package management.task.prototal.task_manager.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes a Flux as one array through a single generator, so a binary array body streams like a JSON one
+ * instead of being collected first. The array is started before the first element and ended after the
+ * last; for CBOR that is an indefinite-length array. What the generator has written is handed on as a
+ * DataBuffer whenever it reaches FLUSH_SIZE, so at most about that much is held per response.
+ */
+final class ArrayStreamWriter implements AutoCloseable {
+
+    static final int FLUSH_SIZE = 16 * 1024;
+
+    private final ObjectWriter writer;
+
+    private final DataBufferFactory bufferFactory;
+
+    private final ByteArrayBuilder out = new ByteArrayBuilder(FLUSH_SIZE);
+
+    private final JsonGenerator generator;
+
+    private ArrayStreamWriter(ObjectMapper objectMapper, ResolvableType elementType, DataBufferFactory bufferFactory)
+            throws IOException {
+        this.writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructType(elementType.getType()));
+        this.bufferFactory = bufferFactory;
+        this.generator = writer.createGenerator(out);
+        generator.writeStartArray();
+    }
+
+    static Flux<DataBuffer> encode(Publisher<?> values, ObjectMapper objectMapper, ResolvableType elementType,
+                                   DataBufferFactory bufferFactory) {
+        return Flux.using(() -> new ArrayStreamWriter(objectMapper, elementType, bufferFactory),
+                writer -> Flux.from(values)
+                        .concatMap(value -> Mono.justOrEmpty(writer.write(value)))
+                        .concatWith(Mono.fromCallable(writer::end)),
+                ArrayStreamWriter::close);
+    }
+
+    /**
+     * @return what was written so far once it reaches FLUSH_SIZE, or null
+     */
+    private DataBuffer write(Object value) {
+        try {
+            writer.writeValue(generator, value);
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size() >= FLUSH_SIZE ? drain() : null;
+    }
+
+    private DataBuffer end() throws IOException {
+        generator.writeEndArray();
+        generator.flush();
+        return drain();
+    }
+
+    private DataBuffer drain() {
+        DataBuffer buffer = bufferFactory.wrap(out.toByteArray());
+        out.reset();
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        try {
+            generator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package management.task.prototal.task_manager.config;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Jackson2CborDecoder that can also read a Flux, which Spring's decoder rejects: a CBOR array as
+ * application/cbor, or CBOR values back to back as application/cbor-seq. Jackson has no non-blocking CBOR
+ * parser, so the body is buffered first, up to the codecs' max-in-memory-size.
+ */
+public class CborDecoder extends Jackson2CborDecoder {
+
+    public CborDecoder(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_CBOR, TaskMediaTypes.APPLICATION_CBOR_SEQ);
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType,
+                               Map<String, Object> hints) {
+        if (mimeType != null && TaskMediaTypes.APPLICATION_CBOR_SEQ.isCompatibleWith(mimeType)) {
+            return DataBufferUtils.join(input, getMaxInMemorySize())
+                    .flatMapIterable(buffer -> readSequence(buffer, elementType));
+        }
+        ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return decodeToMono(input, listType, mimeType, hints)
+                .flatMapIterable(values -> (List<?>) values);
+    }
+
+    private List<Object> readSequence(DataBuffer buffer, ResolvableType elementType) {
+        try (InputStream in = buffer.asInputStream(true);
+             MappingIterator<Object> values = getObjectMapper()
+                     .readerFor(getObjectMapper().constructType(elementType.getType()))
+                     .readValues(in)) {
+            return values.readAll();
+        } catch (IOException e) {
+            throw new DecodingException("CBOR sequence decoding error: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package management.task.prototal.task_manager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Jackson2CborEncoder that can also write a Flux, which Spring's encoder rejects. As application/cbor the
+ * elements are streamed as one indefinite-length CBOR array; as application/cbor-seq each element is
+ * written as soon as it arrives, as its own CBOR value.
+ */
+public class CborEncoder extends Jackson2CborEncoder {
+
+    public CborEncoder(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.APPLICATION_CBOR, TaskMediaTypes.APPLICATION_CBOR_SEQ);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(TaskMediaTypes.APPLICATION_CBOR_SEQ);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        if (TaskMediaTypes.APPLICATION_CBOR_SEQ.isCompatibleWith(mimeType)) {
+            return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+        }
+        return ArrayStreamWriter.encode(inputStream, getObjectMapper(), elementType, bufferFactory);
+    }
+}
@@ -0,0 +1,43 @@
+package management.task.prototal.task_manager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Adds CBOR and Smile bodies next to JSON, negotiated through Content-Type and Accept. Both use mappers
+ * from Boot's Jackson builder, so spring.jackson settings apply to every format.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CodecConfiguration implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public CodecConfiguration(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapper = objectMapper;
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        configurer.defaultCodecs().jackson2SmileEncoder(new SmileEncoder(smileMapper));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper,
+                TaskMediaTypes.APPLICATION_SMILE, TaskMediaTypes.APPLICATION_STREAM_SMILE));
+
+        // Custom writers are consulted before the default ones, and the first that can write a body wins
+        // when the client accepts anything. JSON goes first so it stays the default.
+        configurer.customCodecs().registerWithDefaultConfig(new Jackson2JsonEncoder(objectMapper));
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        configurer.customCodecs().registerWithDefaultConfig(new CborEncoder(cborMapper));
+        configurer.customCodecs().registerWithDefaultConfig(new CborDecoder(cborMapper));
+    }
+}
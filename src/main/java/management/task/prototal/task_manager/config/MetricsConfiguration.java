@@ -0,0 +1,43 @@
+package management.task.prototal.task_manager.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes executor metrics (queued, active and completed tasks, idle and execution time) for the Reactor
+ * schedulers. Only executors created after startup are instrumented, which covers the shared parallel and
+ * boundedElastic schedulers since the application first uses them after the context is up.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration {
+
+    private static final String SCHEDULER_METRICS_KEY = "task_manager.metrics";
+
+    public MetricsConfiguration(MeterRegistry meterRegistry) {
+        AtomicInteger executorIds = new AtomicInteger();
+        Schedulers.addExecutorServiceDecorator(SCHEDULER_METRICS_KEY, (scheduler, executor) ->
+                ExecutorServiceMetrics.monitor(meterRegistry, executor,
+                        schedulerName(scheduler) + "-" + executorIds.incrementAndGet(), "reactor"));
+    }
+
+    /**
+     * The scheduler's name without its settings, e.g. "boundedElastic".
+     */
+    private static String schedulerName(Scheduler scheduler) {
+        String name = Scannable.from(scheduler).name();
+        int settings = name.indexOf('(');
+        return settings < 0 ? name : name.substring(0, settings);
+    }
+
+    @PreDestroy
+    public void removeSchedulerMetrics() {
+        Schedulers.removeExecutorServiceDecorator(SCHEDULER_METRICS_KEY);
+    }
+}
@@ -0,0 +1,58 @@
+package management.task.prototal.task_manager.config;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.server.logging.AccessLog;
+import reactor.netty.http.server.logging.AccessLogFactory;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Netty settings Spring Boot has no server.netty properties for: a dedicated event loop, the accept
+ * backlog, the HTTP/2 stream limit and an access log with response times. Each is left at Reactor
+ * Netty's default unless its tasks.server property is set; application-prod.properties sets them.
+ */
+@Configuration(proxyBeanMethods = false)
+public class NettyServerConfiguration {
+
+    private LoopResources loopResources;
+
+    @Bean
+    public NettyServerCustomizer taskServerCustomizer(
+            @Value("${tasks.server.event-loop-threads:0}") int eventLoopThreads,
+            @Value("${tasks.server.accept-backlog:0}") int acceptBacklog,
+            @Value("${tasks.server.http2.max-concurrent-streams:0}") long maxConcurrentStreams,
+            @Value("${tasks.server.access-log:false}") boolean accessLog) {
+        return server -> {
+            if (eventLoopThreads > 0) {
+                // One thread accepts connections so a burst of new clients doesn't delay reads and writes.
+                loopResources = LoopResources.create("task-http", 1, eventLoopThreads, true);
+                server = server.runOn(loopResources);
+            }
+            if (acceptBacklog > 0) {
+                server = server.option(ChannelOption.SO_BACKLOG, acceptBacklog);
+            }
+            if (maxConcurrentStreams > 0) {
+                server = server.http2Settings(settings -> settings.maxConcurrentStreams(maxConcurrentStreams));
+            }
+            if (accessLog) {
+                server = server.accessLog(true, AccessLogFactory.createFilter(
+                        args -> args.uri() == null || !args.uri().toString().startsWith("/actuator"),
+                        args -> AccessLog.create("{} \"{} {} {}\" {} {} {}ms",
+                                args.remoteAddress(), args.method(), args.uri(), args.protocol(),
+                                args.status(), args.contentLength(), args.duration())));
+            }
+            return server;
+        };
+    }
+
+    @PreDestroy
+    public void disposeEventLoop() {
+        if (loopResources != null) {
+            loopResources.dispose();
+        }
+    }
+}
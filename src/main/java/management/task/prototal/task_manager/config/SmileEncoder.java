@@ -0,0 +1,35 @@
+package management.task.prototal.task_manager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Jackson2SmileEncoder that streams a Flux as one Smile array, written through a single generator so
+ * shared name references stay valid across elements. Spring's encoder joins the elements with JSON
+ * brackets and commas, which Smile readers reject. Streaming as application/stream+x-jackson-smile is
+ * left to Spring.
+ */
+public class SmileEncoder extends Jackson2SmileEncoder {
+
+    public SmileEncoder(ObjectMapper objectMapper) {
+        super(objectMapper, TaskMediaTypes.APPLICATION_SMILE, TaskMediaTypes.APPLICATION_STREAM_SMILE);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono || TaskMediaTypes.APPLICATION_STREAM_SMILE.isCompatibleWith(mimeType)) {
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+        return ArrayStreamWriter.encode(inputStream, getObjectMapper(), elementType, bufferFactory);
+    }
+}
@@ -0,0 +1,27 @@
+package management.task.prototal.task_manager.config;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Binary media types accepted and produced by the task endpoints, alongside JSON.
+ */
+public final class TaskMediaTypes {
+
+    /**
+     * CBOR values written back to back (RFC 8742), for streaming tasks one at a time.
+     */
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.parseMediaType(APPLICATION_STREAM_SMILE_VALUE);
+
+    private TaskMediaTypes() {
+    }
+}
@@ -0,0 +1,42 @@
+package management.task.prototal.task_manager.config;
+
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskBulkResult;
+import management.task.prototal.task_manager.dto.TaskCacheStats;
+import management.task.prototal.task_manager.dto.TaskPage;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.store.SubTaskNode;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection hints for the native image. Jackson binds the API types and Spring Data maps the stored
+ * documents through reflection. The controller signatures and scanned @Document classes already get
+ * hints from Spring's AOT processing, but Task and SubTask are also bound outside them (TaskPatch
+ * decodes sub-tasks from patch values, the change stream reads whole tasks), so every type is listed here.
+ */
+public class TaskRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> BOUND_TYPES = List.of(Task.class, SubTask.class, TaskPatchOperation.class,
+            TaskBatchResult.class, TaskBulkResult.class, TaskPage.class, TaskCacheStats.class);
+
+    private static final List<Class<?>> MAPPED_TYPES = List.of(Task.class, SubTask.class, SubTaskNode.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        for (Class<?> type : BOUND_TYPES) {
+            bindings.registerReflectionHints(hints.reflection(), type);
+        }
+        for (Class<?> type : MAPPED_TYPES) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package management.task.prototal.task_manager.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Admission control for /tasks. Each client gets a token bucket per route, refilled at
+ * tasks.admission.rate.&lt;route&gt; requests per second with room for tasks.admission.burst.&lt;route&gt;,
+ * and each route admits at most tasks.admission.max-concurrent.&lt;route&gt; requests at once. Routes
+ * without their own setting use the .default one, and 0 means no limit. Requests over the rate are
+ * refused with 429 and those over the concurrency cap with 503, both with Retry-After, before they
+ * reach the controller or take a database connection.
+ *
+ * Routes are the TaskController endpoint names; any other path under /tasks shares the route other,
+ * so a client probing made-up paths cannot grow the route table or the metrics. Clients are told apart
+ * by the tasks.admission.client-header header (X-API-Key) only when its value is one of the keys in
+ * tasks.admission.client-keys, and otherwise by remote address, so a client cannot get a fresh bucket
+ * by sending a new key. Refusals are counted as tasks.admission.rejected and requests in progress are
+ * published as tasks.admission.in.flight, both tagged with the route.
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.admission.enabled", havingValue = "true")
+public class AdmissionControlFilter implements WebFilter {
+
+    static final String REJECTED_COUNTER = "tasks.admission.rejected";
+
+    static final String IN_FLIGHT_GAUGE = "tasks.admission.in.flight";
+
+    static final String OTHER_ROUTE = "other";
+
+    private static final String PREFIX = "/tasks/";
+
+    private static final Set<String> ROUTES = Arrays.stream(TaskController.class.getDeclaredMethods())
+            .map(method -> AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class))
+            .filter(Objects::nonNull)
+            .flatMap(mapping -> Arrays.stream(mapping.path()))
+            .map(path -> firstSegment(path, path.startsWith("/") ? 1 : 0))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final Environment environment;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String clientHeader;
+
+    private final Set<String> clientKeys;
+
+    private final LongSupplier nanoTime;
+
+    private final Map<String, RouteLimits> routes = new ConcurrentHashMap<>();
+
+    /**
+     * One bucket per client and route. Buckets of clients that have gone quiet are dropped; a returning
+     * client starts with a full bucket, which is what it would have refilled to anyway.
+     */
+    private final Cache<String, TokenBucket> buckets;
+
+    @Autowired
+    public AdmissionControlFilter(Environment environment, MeterRegistry meterRegistry,
+                                  @Value("${tasks.admission.client-header:X-API-Key}") String clientHeader,
+                                  @Value("${tasks.admission.client-keys:}") Set<String> clientKeys,
+                                  @Value("${tasks.admission.max-clients:100000}") long maxClients) {
+        this(environment, meterRegistry, clientHeader, clientKeys, maxClients, System::nanoTime);
+    }
+
+    AdmissionControlFilter(Environment environment, MeterRegistry meterRegistry, String clientHeader,
+                           Set<String> clientKeys, long maxClients, LongSupplier nanoTime) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.clientHeader = clientHeader;
+        this.clientKeys = Set.copyOf(clientKeys);
+        this.nanoTime = nanoTime;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String route = route(exchange.getRequest());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        RouteLimits limits = routes.computeIfAbsent(route, this::limits);
+        if (limits.rate > 0) {
+            TokenBucket bucket = buckets.get(client(exchange.getRequest()) + " " + route,
+                    key -> new TokenBucket(limits.rate, limits.burst, nanoTime.getAsLong()));
+            long waitNanos = bucket.tryAcquire(nanoTime.getAsLong());
+            if (waitNanos > 0) {
+                return reject(exchange, limits, HttpStatus.TOO_MANY_REQUESTS, "rate_limited", waitNanos);
+            }
+        }
+        if (limits.maxConcurrent <= 0) {
+            return chain.filter(exchange);
+        }
+        if (limits.inFlight.incrementAndGet() > limits.maxConcurrent) {
+            limits.inFlight.decrementAndGet();
+            return reject(exchange, limits, HttpStatus.SERVICE_UNAVAILABLE, "overloaded", TimeUnit.SECONDS.toNanos(1));
+        }
+        // Streaming responses such as getAll hold their slot until the last task is written or the client goes away.
+        return chain.filter(exchange)
+                .doFinally(signal -> limits.inFlight.decrementAndGet());
+    }
+
+    /**
+     * The endpoint name, e.g. getAll for /tasks/getAll and getById for /tasks/getById/1, or other for a
+     * path the controller does not map.
+     */
+    private static String route(ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        if (!path.startsWith(PREFIX) || path.length() == PREFIX.length()) {
+            return null;
+        }
+        String route = firstSegment(path, PREFIX.length());
+        return ROUTES.contains(route) ? route : OTHER_ROUTE;
+    }
+
+    private static String firstSegment(String path, int start) {
+        int end = path.indexOf('/', start);
+        return path.substring(start, end < 0 ? path.length() : end);
+    }
+
+    private String client(ServerHttpRequest request) {
+        String key = request.getHeaders().getFirst(clientHeader);
+        if (key != null && clientKeys.contains(key)) {
+            return "key:" + key;
+        }
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return "unknown";
+        }
+        return address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress();
+    }
+
+    private RouteLimits limits(String route) {
+        double rate = setting("rate", route, 0.0);
+        RouteLimits limits = new RouteLimits(route, rate,
+                Math.max(1, setting("burst", route, Math.max(1, rate))),
+                setting("max-concurrent", route, 0.0).intValue());
+        Gauge.builder(IN_FLIGHT_GAUGE, limits.inFlight, AtomicInteger::get)
+                .description("Requests being handled, by route")
+                .tag("route", route)
+                .register(meterRegistry);
+        return limits;
+    }
+
+    private Double setting(String name, String route, double fallback) {
+        Double value = environment.getProperty("tasks.admission." + name + "." + route, Double.class);
+        return value != null ? value : environment.getProperty("tasks.admission." + name + ".default", Double.class, fallback);
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, RouteLimits limits, HttpStatus status, String reason, long retryAfterNanos) {
+        Counter.builder(REJECTED_COUNTER)
+                .description("Requests refused by admission control")
+                .tag("route", limits.route)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L)));
+        return exchange.getResponse().setComplete();
+    }
+
+    private static final class RouteLimits {
+
+        private final String route;
+
+        private final double rate;
+
+        private final double burst;
+
+        private final int maxConcurrent;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private RouteLimits(String route, double rate, double burst, int maxConcurrent) {
+            this.route = route;
+            this.rate = rate;
+            this.burst = burst;
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+}
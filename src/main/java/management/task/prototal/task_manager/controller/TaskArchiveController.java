@@ -0,0 +1,77 @@
+package management.task.prototal.task_manager.controller;
+
+import management.task.prototal.task_manager.dto.TaskArchive;
+import management.task.prototal.task_manager.dto.TaskImportResult;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.service.TaskArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Export and import of the whole task collection as archive files on the server's disk, see
+ * TaskArchiveService. Off unless tasks.archive.endpoints.enabled is true.
+ */
+@RestController
+@RequestMapping("/admin/tasks")
+@ConditionalOnProperty(name = "tasks.archive.endpoints.enabled", havingValue = "true")
+public class TaskArchiveController {
+
+    private final TaskArchiveService archiveService;
+
+    @Autowired
+    public TaskArchiveController(TaskArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Writes every task to a new archive, compressed with gzip, zstd or none. Responds once the archive is
+     * complete.
+     * @return Mono
+     */
+    @PostMapping("exportTasks")
+    public Mono<TaskArchive> exportTasks(@RequestParam(defaultValue = "gzip") String compression) {
+        try {
+            return archiveService.export(TaskArchive.Compression.named(compression));
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+    }
+
+    @GetMapping("listArchives")
+    public Flux<TaskArchive> listArchives() {
+        return archiveService.list();
+    }
+
+    /**
+     * The archive file as an attachment. Over plain HTTP/1.1 without response compression, Netty sends it
+     * straight from the file (zero-copy) instead of through the heap.
+     * @return Mono
+     */
+    @GetMapping("downloadArchive/{name}")
+    public Mono<ResponseEntity<Resource>> downloadArchive(@PathVariable String name) {
+        return archiveService.file(name).map(file -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TaskArchive.Compression.of(name).getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(name).build().toString())
+                .body(new FileSystemResource(file)));
+    }
+
+    /**
+     * Inserts the tasks of an archive. With resume, continues after the tasks an earlier, interrupted import
+     * of the same archive got through.
+     * @return Mono
+     */
+    @PostMapping("importTasks/{name}")
+    public Mono<TaskImportResult> importTasks(@PathVariable String name,
+                                              @RequestParam(defaultValue = "false") boolean resume) {
+        return archiveService.importArchive(name, resume);
+    }
+}
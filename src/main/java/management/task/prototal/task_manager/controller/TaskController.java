@@ -1,17 +1,38 @@
 package management.task.prototal.task_manager.controller;
 
+import management.task.prototal.task_manager.config.TaskMediaTypes;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskBulkResult;
+import management.task.prototal.task_manager.dto.TaskCacheStats;
+import management.task.prototal.task_manager.dto.TaskPage;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
 import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
 import management.task.prototal.task_manager.service.ITaskService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import management.task.prototal.task_manager.entity.SubTask;
 import management.task.prototal.task_manager.entity.Task;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/tasks")
 public class TaskController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("id", "title", "description", "subTasks");
+
     private final ITaskService taskService;
 
     @Autowired
@@ -31,31 +52,127 @@ public class TaskController {
         }
     }
 
+    /**
+     * Bulk create. Accepts a JSON array or NDJSON stream of tasks (or their CBOR and Smile equivalents)
+     * and returns one result per task, so a duplicate or invalid task does not fail the rest of the batch.
+     * @return Flux
+     */
+    @PostMapping(value = "createTasks", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, TaskMediaTypes.APPLICATION_CBOR_SEQ_VALUE,
+            TaskMediaTypes.APPLICATION_SMILE_VALUE, TaskMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<TaskBatchResult> createTasks(@RequestBody Flux<Task> tasks) {
+        return taskService.createTasks(tasks);
+    }
+
+    /**
+     * Returns the task with its version as ETag. Send the ETag back as If-None-Match to get a 304
+     * instead of the body when the task hasn't changed. With depth, only that many levels of sub-tasks
+     * are returned (0 for the task alone), and where more were left out subTaskCount says how many.
+     * Such a partial tree gets a weak ETag qualified by the depth, e.g. W/"3;d=1", which If-Match on
+     * update and patch refuses, so a truncated tree cannot be written back over the full one.
+     * @return Mono
+     */
     @GetMapping("getById/{id}")
-    public Mono<Task> getTaskById(@PathVariable String id) {
+    public Mono<ResponseEntity<Task>> getTaskById(@PathVariable String id,
+                                                  @RequestParam(required = false) Integer depth,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             if (id == null) {
                 throw new InvalidTaskException("ID is null");
             }
-            return taskService.getTaskById(id);
+            if (depth != null && depth < 0) {
+                throw new InvalidTaskException("Depth cannot be negative");
+            }
+            return (depth == null ? taskService.getTaskById(id) : taskService.getTaskById(id, depth))
+                    .map(task -> {
+                        String eTag = eTag(task, depth);
+                        if (eTag == null) {
+                            return ResponseEntity.ok(task);
+                        }
+                        if (ifNoneMatch != null && noneMatchHits(ifNoneMatch, eTag)) {
+                            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                        }
+                        return ResponseEntity.ok().eTag(eTag).body(task);
+                    });
         } catch (InvalidTaskException e) {
             return Mono.error(e);
         }
     }
 
+    /**
+     * Expands one sub-task of a tree read with a depth: the sub-task at path, a JSON Pointer as in patches
+     * such as /subTasks/1/subTasks/0, with depth levels of its own sub-tasks (1 by default).
+     * @return Mono
+     */
+    @GetMapping("getSubTree/{id}")
+    public Mono<SubTask> getSubTree(@PathVariable String id,
+                                    @RequestParam String path,
+                                    @RequestParam(defaultValue = "1") int depth) {
+        try {
+            if (depth < 0) {
+                throw new InvalidTaskException("Depth cannot be negative");
+            }
+            return taskService.getSubTree(id, path, depth);
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Replaces the task. Pass the ETag from getById as If-Match (or the version in the body) and the update
+     * is refused with 412 if someone else changed the task in the meantime.
+     * @return Mono
+     */
     @PutMapping("/update/{id}")
-    public Mono<Task> updateTask(@PathVariable String id, @RequestBody Task task) { //
+    public Mono<ResponseEntity<Task>> updateTask(@PathVariable String id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @RequestBody Task task) {
         try {
             if (task.getDescription() == null || task.getTitle() == null) {
                 throw new InvalidTaskException("Task or task properties cannot be null");
             }
             task.setId(id);
-            return taskService.updateTask(task);
-        } catch (InvalidTaskException e) {
+            if (ifMatch != null) {
+                task.setVersion(expectedVersion(ifMatch));
+            }
+            return taskService.updateTask(task)
+                    .map(updated -> withETag(ResponseEntity.ok(), updated));
+        } catch (InvalidTaskException | TaskVersionConflictException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Partial update with JSON Patch, e.g. [{ "op": "replace", "path": "/subTasks/1/title", "value": "New" }].
+     * Only the patched fields are written, so large sub-task trees are not rewritten. Honours If-Match like update.
+     * @return Mono
+     */
+    @PatchMapping(value = "/patch/{id}", consumes = {"application/json-patch+json", MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, TaskMediaTypes.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<Task>> patchTask(@PathVariable String id,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                @RequestBody List<TaskPatchOperation> operations) {
+        try {
+            Long expectedVersion = ifMatch == null ? null : expectedVersion(ifMatch);
+            return taskService.patchTask(id, expectedVersion, operations)
+                    .map(patched -> withETag(ResponseEntity.ok(), patched));
+        } catch (InvalidTaskException | TaskVersionConflictException e) {
             return Mono.error(e);
         }
     }
 
+    /**
+     * Bulk update. Accepts the same task streams as createTasks; each task needs its id and replaces the
+     * stored title, description and sub-tasks like update, checked against its version if it has one.
+     * Tasks are written in chunks, so large streams are not buffered.
+     * @return Mono with counts and a result for each task that was not updated
+     */
+    @PutMapping("updateTasks")
+    public Mono<TaskBulkResult> updateTasks(@RequestBody Flux<Task> tasks) {
+        return taskService.updateTasks(tasks);
+    }
+
     @DeleteMapping("deleteTask/{id}")
     public Mono<Boolean> deleteTask(@PathVariable String id) {
         try {
@@ -68,13 +185,185 @@ public class TaskController {
         }
     }
 
+    /**
+     * Bulk delete of the tasks in the body. The body is a task stream like createTasks of which only the
+     * ids are read, so a page from getPage?fields=id can be sent back as is. Ids are deleted in chunks, so
+     * large streams are not buffered.
+     * @return Mono with counts and a result for each id that was not deleted
+     */
+    @DeleteMapping(value = "deleteTasks", params = {"!q", "!title"})
+    public Mono<TaskBulkResult> deleteTasks(@RequestBody Flux<Task> tasks) {
+        return taskService.deleteTasks(tasks.map(task -> task.getId() == null ? "" : task.getId()));
+    }
+
+    /**
+     * Bulk delete of every task matching q (words in the title or description), title (exact), or both.
+     * @return Mono with the number of tasks deleted
+     */
+    @DeleteMapping("deleteTasks")
+    public Mono<TaskBulkResult> deleteMatchingTasks(@RequestParam(required = false) String q,
+                                                    @RequestParam(required = false) String title) {
+        try {
+            if (isBlank(q) && isBlank(title)) {
+                throw new InvalidTaskException("Delete needs q, title or both");
+            }
+            return taskService.deleteTasks(isBlank(q) ? null : q, isBlank(title) ? null : title);
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+    }
+
     /**
      * I know this method is superfluous. But it makes it easier for someone
-     * unfamiliar with MongoDB to get the ids for use in the other methods
+     * unfamiliar with MongoDB to get the ids for use in the other methods.
+     * Ask for application/x-ndjson or text/event-stream to stream large collections one task at a time,
+     * or application/cbor-seq or application/stream+x-jackson-smile for the same in binary.
      * @return Flux
      */
-    @GetMapping("getAll")
+    @GetMapping(value = "getAll", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, TaskMediaTypes.APPLICATION_CBOR_SEQ_VALUE,
+            TaskMediaTypes.APPLICATION_SMILE_VALUE, TaskMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
     public Flux<Task> getAllTasks() {
         return taskService.getAllTasks();
     }
+
+    /**
+     * Paged alternative to getAll. Pass the returned "next" cursor as "after" to read the following page.
+     * "fields" limits which task fields are returned, e.g. fields=id,title.
+     * @return Mono
+     */
+    @GetMapping("getPage")
+    public Mono<TaskPage> getTaskPage(@RequestParam(required = false) String after,
+                                      @RequestParam(defaultValue = "50") int limit,
+                                      @RequestParam(defaultValue = "asc") String sort,
+                                      @RequestParam(required = false) List<String> fields) {
+        try {
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                throw new InvalidTaskException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            Sort.Direction direction = Sort.Direction.fromOptionalString(sort)
+                    .orElseThrow(() -> new InvalidTaskException("Sort must be asc or desc"));
+            if (fields != null && !PROJECTABLE_FIELDS.containsAll(fields)) {
+                throw new InvalidTaskException("Fields must be any of " + PROJECTABLE_FIELDS);
+            }
+            return taskService.getTasks(TaskPage.decodeCursor(after), limit, direction, fields)
+                    .collectList()
+                    .map(tasks -> TaskPage.of(tasks, limit));
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Searches tasks by words in their title or description ("q"), by exact title, or both.
+     * Results are ordered by id and paged like getPage: pass "next" back as "after".
+     * @return Mono
+     */
+    @GetMapping("search")
+    public Mono<TaskPage> searchTasks(@RequestParam(required = false) String q,
+                                      @RequestParam(required = false) String title,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(defaultValue = "50") int limit) {
+        try {
+            if (isBlank(q) && isBlank(title)) {
+                throw new InvalidTaskException("Search needs q, title or both");
+            }
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                throw new InvalidTaskException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            return taskService.searchTasks(isBlank(q) ? null : q, isBlank(title) ? null : title,
+                            TaskPage.decodeCursor(after), limit)
+                    .collectList()
+                    .map(tasks -> TaskPage.of(tasks, limit));
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counts of the getById cache, for sizing tasks.cache.maximum-size.
+     * @return Mono
+     */
+    @GetMapping("cacheStats")
+    public Mono<TaskCacheStats> getCacheStats() {
+        return Mono.fromSupplier(taskService::getCacheStats);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static ResponseEntity<Task> withETag(ResponseEntity.BodyBuilder response, Task task) {
+        String eTag = eTag(task);
+        return eTag == null ? response.body(task) : response.eTag(eTag).body(task);
+    }
+
+    private static String eTag(Task task) {
+        return eTag(task, null);
+    }
+
+    private static String eTag(Task task, Integer depth) {
+        if (task.getVersion() == null) {
+            return null;
+        }
+        return depth == null ? "\"" + task.getVersion() + "\"" : "W/\"" + task.getVersion() + ";d=" + depth + "\"";
+    }
+
+    /**
+     * If-None-Match uses the weak comparison, so W/ is ignored on both sides.
+     */
+    private static boolean noneMatchHits(String ifNoneMatch, String eTag) {
+        String opaque = withoutWeakPrefix(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || withoutWeakPrefix(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * If-Match "*" only requires the task to exist, so it maps to no version check. Otherwise If-Match is a
+     * list of ETags, compared strongly, so the weak ETag of a depth-limited read never matches. A task is
+     * only written at one expected version, so a list must name exactly one version of the whole task; one
+     * naming none or several is refused with 412.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        boolean weak = false;
+        for (String candidate : ifMatch.split(",")) {
+            String eTag = candidate.trim();
+            String opaque = withoutWeakPrefix(eTag);
+            if (opaque.length() < 2 || !opaque.startsWith("\"") || !opaque.endsWith("\"")) {
+                throw new InvalidTaskException("If-Match must be * or a list of ETags");
+            }
+            if (eTag.startsWith("W/")) {
+                weak = true;
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(opaque.substring(1, opaque.length() - 1)));
+            } catch (NumberFormatException e) {
+                // Not an ETag of this API, so it matches no version.
+            }
+        }
+        if (versions.size() > 1) {
+            throw new TaskVersionConflictException("If-Match may only name one version of the task");
+        }
+        if (versions.isEmpty()) {
+            throw new TaskVersionConflictException(weak
+                    ? "If-Match needs the ETag of the whole task, not of a depth-limited read"
+                    : "If-Match names no version of the task");
+        }
+        return versions.iterator().next();
+    }
 }
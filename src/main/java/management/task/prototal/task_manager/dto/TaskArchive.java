@@ -0,0 +1,79 @@
+package management.task.prototal.task_manager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+
+import java.time.Instant;
+
+/**
+ * A task export on disk: tasks as NDJSON, one per line, compressed as the file name's suffix says.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskArchive {
+
+    public enum Compression {
+        GZIP(".ndjson.gz", "application/gzip"),
+        ZSTD(".ndjson.zst", "application/zstd"),
+        NONE(".ndjson", "application/x-ndjson");
+
+        private final String suffix;
+
+        private final String mediaType;
+
+        Compression(String suffix, String mediaType) {
+            this.suffix = suffix;
+            this.mediaType = mediaType;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * The compression with the given name, in any case, such as gzip.
+         */
+        public static Compression named(String name) {
+            for (Compression compression : values()) {
+                if (compression.name().equalsIgnoreCase(name)) {
+                    return compression;
+                }
+            }
+            throw new InvalidTaskException("Compression must be gzip, zstd or none");
+        }
+
+        /**
+         * The compression of an archive file, or null if the name has none of the suffixes.
+         */
+        public static Compression of(String fileName) {
+            for (Compression compression : values()) {
+                if (fileName.endsWith(compression.suffix)) {
+                    return compression;
+                }
+            }
+            return null;
+        }
+    }
+
+    private String name;
+
+    private Compression compression;
+
+    private long size;
+
+    /**
+     * Tasks written by an export. Listed archives leave it out, since counting means reading them.
+     */
+    private Long tasks;
+
+    private Instant modified;
+}
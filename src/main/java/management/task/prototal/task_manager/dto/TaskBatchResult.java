@@ -0,0 +1,72 @@
+package management.task.prototal.task_manager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single item in a batch request. Results are returned in the same order
+ * as the items were sent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class TaskBatchResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        DUPLICATE,
+        INVALID,
+        NOT_FOUND,
+        CONFLICT;
+
+        public boolean isSuccess() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+
+    private String id;
+
+    private Status status;
+
+    private String message;
+
+    public static TaskBatchResult created(String id) {
+        return new TaskBatchResult(id, Status.CREATED, null);
+    }
+
+    public static TaskBatchResult updated(String id) {
+        return new TaskBatchResult(id, Status.UPDATED, null);
+    }
+
+    public static TaskBatchResult deleted(String id) {
+        return new TaskBatchResult(id, Status.DELETED, null);
+    }
+
+    public static TaskBatchResult duplicate(String id) {
+        return new TaskBatchResult(id, Status.DUPLICATE, "Task with ID " + id + " already exists.");
+    }
+
+    public static TaskBatchResult invalid(String id, String message) {
+        return new TaskBatchResult(id, Status.INVALID, message);
+    }
+
+    public static TaskBatchResult notFound(String id) {
+        return new TaskBatchResult(id, Status.NOT_FOUND, "Task with ID " + id + " does not exist.");
+    }
+
+    /**
+     * A missing id that cannot be named, because the ids sent with it were deleted together in one remove.
+     */
+    public static TaskBatchResult notFoundAmongOthers() {
+        return new TaskBatchResult(null, Status.NOT_FOUND, "One of the ids sent with the deleted ones does not exist.");
+    }
+
+    public static TaskBatchResult conflict(String id, Long expectedVersion) {
+        return new TaskBatchResult(id, Status.CONFLICT, "Task with ID " + id + " is no longer at version " + expectedVersion + ".");
+    }
+}
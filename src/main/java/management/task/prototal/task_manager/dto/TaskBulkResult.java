@@ -0,0 +1,39 @@
+package management.task.prototal.task_manager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk update or delete: how many tasks were processed and changed, and a result for each
+ * task that was not. Successful tasks are only counted, so the response stays small however many ids
+ * were sent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskBulkResult {
+
+    private long processed;
+
+    private long succeeded;
+
+    private List<TaskBatchResult> failures = new ArrayList<>();
+
+    public static TaskBulkResult of(long succeeded) {
+        return new TaskBulkResult(succeeded, succeeded, new ArrayList<>());
+    }
+
+    public TaskBulkResult add(TaskBatchResult result) {
+        processed++;
+        if (result.getStatus().isSuccess()) {
+            succeeded++;
+        } else {
+            failures.add(result);
+        }
+        return this;
+    }
+}
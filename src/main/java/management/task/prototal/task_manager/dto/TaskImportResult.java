@@ -0,0 +1,53 @@
+package management.task.prototal.task_manager.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of importing an archive. Tasks are only counted, and only the first failures are kept, so the
+ * result stays small however large the archive.
+ */
+@Data
+@NoArgsConstructor
+public class TaskImportResult {
+
+    public static final int MAX_FAILURES = 100;
+
+    private String archive;
+
+    /**
+     * Tasks skipped because a checkpoint showed an earlier import had already written them.
+     */
+    private long resumedAfter;
+
+    private long processed;
+
+    private long created;
+
+    private long duplicates;
+
+    private long invalid;
+
+    private List<TaskBatchResult> failures = new ArrayList<>();
+
+    public TaskImportResult(String archive, long resumedAfter) {
+        this.archive = archive;
+        this.resumedAfter = resumedAfter;
+    }
+
+    public TaskImportResult add(TaskBatchResult result) {
+        processed++;
+        switch (result.getStatus()) {
+            case CREATED -> created++;
+            case DUPLICATE -> duplicates++;
+            default -> invalid++;
+        }
+        if (!result.getStatus().isSuccess() && failures.size() < MAX_FAILURES) {
+            failures.add(result);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,48 @@
+package management.task.prototal.task_manager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of tasks plus the cursor for the next page. The cursor is opaque to clients;
+ * it is absent when the page is the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class TaskPage {
+
+    private List<Task> tasks = new ArrayList<>();
+
+    private String next;
+
+    public static TaskPage of(List<Task> tasks, int limit) {
+        String next = tasks.size() < limit ? null : encodeCursor(tasks.get(tasks.size() - 1).getId());
+        return new TaskPage(tasks, next);
+    }
+
+    public static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTaskException("Invalid cursor");
+        }
+    }
+}
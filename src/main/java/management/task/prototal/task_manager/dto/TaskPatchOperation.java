@@ -0,0 +1,23 @@
+package management.task.prototal.task_manager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single JSON Patch (RFC 6902) operation, e.g. { "op": "replace", "path": "/subTasks/0/title", "value": "New" }.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskPatchOperation {
+
+    private String op;
+
+    private String path;
+
+    private JsonNode value;
+}
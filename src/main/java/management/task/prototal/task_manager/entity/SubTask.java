@@ -1,6 +1,7 @@
 package management.task.prototal.task_manager.entity;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import java.util.ArrayList;
@@ -15,4 +16,10 @@ public class SubTask {
     private String description;
 
     private List<SubTask> subTasks = new ArrayList<>();
+
+    /**
+     * Number of sub-tasks, set only when a depth-limited read left them out. Ignored in request bodies.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer subTaskCount;
 }
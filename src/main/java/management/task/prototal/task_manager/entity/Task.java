@@ -1,24 +1,59 @@
 package management.task.prototal.task_manager.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Indexes are declared here and created at startup by TaskIndexes. title_id serves exact title lookups,
+ * with _id as a tiebreaker so they can be paged by id without a sort stage.
+ */
 @Data
 @Document(collection = "tasks")
+@CompoundIndex(name = "title_id", def = "{'title': 1, '_id': 1}")
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class Task {
 
     @Id
     private String id;
 
+    @TextIndexed(weight = 2)
     private String title;
 
+    @TextIndexed
     private String description;
 
     private List<SubTask> subTasks = new ArrayList<>();
+
+    /**
+     * Number of sub-tasks, set only when a depth-limited read left them out. Ignored in request bodies.
+     * The normalized store keeps it on the task document, the embedded stores never write it.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer subTaskCount;
+
+    /**
+     * Incremented on every write. Sent back by clients (in the body or as If-Match) to detect lost updates.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Set by each bulk update of the Mongo store to a token of its own, so it can read back which of its tasks
+     * it updated. Stored with the task and overwritten by the next bulk update, but never sent to clients.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private ObjectId writeToken;
 }
@@ -0,0 +1,14 @@
+package management.task.prototal.task_manager.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The task was changed by someone else since the client read it (its version no longer matches).
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class TaskVersionConflictException extends RuntimeException {
+    public TaskVersionConflictException(String message) {
+        super(message);
+    }
+}
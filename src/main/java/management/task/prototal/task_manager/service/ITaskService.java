@@ -1,18 +1,47 @@
 package management.task.prototal.task_manager.service;
 
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskBulkResult;
+import management.task.prototal.task_manager.dto.TaskCacheStats;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
 import management.task.prototal.task_manager.entity.Task;
+import org.springframework.data.domain.Sort;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ITaskService {
 
     Mono<Task> createTask(Task task);
 
+    Flux<TaskBatchResult> createTasks(Flux<Task> tasks);
+
     Mono<Task> getTaskById(String id);
 
+    Mono<Task> getTaskById(String id, int depth);
+
+    Mono<SubTask> getSubTree(String id, String path, int depth);
+
     Mono<Task> updateTask(Task task);
 
+    Mono<Task> patchTask(String id, Long expectedVersion, List<TaskPatchOperation> operations);
+
+    Mono<TaskBulkResult> updateTasks(Flux<Task> tasks);
+
     Mono<Boolean> deleteTask(String id);
 
+    Mono<TaskBulkResult> deleteTasks(Flux<String> ids);
+
+    Mono<TaskBulkResult> deleteTasks(String text, String title);
+
     Flux<Task> getAllTasks();
+
+    Flux<Task> getTasks(String afterId, int limit, Sort.Direction direction, Collection<String> fields);
+
+    Flux<Task> searchTasks(String text, String title, String afterId, int limit);
+
+    TaskCacheStats getCacheStats();
 }
@@ -0,0 +1,315 @@
+package management.task.prototal.task_manager.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import management.task.prototal.task_manager.dto.TaskArchive;
+import management.task.prototal.task_manager.dto.TaskImportResult;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.store.TaskStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports every task to an archive file in tasks.archive.dir, and imports archives back, in constant memory
+ * however many tasks there are. An archive is NDJSON, one task per line, compressed with gzip or zstd or not
+ * at all.
+ *
+ * An export streams getAll to the file on a worker thread, with at most a few hundred tasks in flight. It
+ * writes to a .part file that is renamed once complete, so a failed export leaves no archive behind. Tasks
+ * read without their sub-tasks (the normalized store's getAll) are read again whole.
+ *
+ * An import reads one task at a time and inserts them like createTasks, in chunks of tasks.batch.chunk-size.
+ * After each chunk it records in a .checkpoint file next to the archive how many tasks are done. An import
+ * that failed or was stopped can resume from there; the tasks of the chunk in progress are inserted again
+ * and reported as duplicates. The checkpoint is deleted once the import completes.
+ */
+@Service
+public class TaskArchiveService {
+
+    private static final Pattern ARCHIVE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private static final DateTimeFormatter EXPORT_NAME =
+            DateTimeFormatter.ofPattern("'tasks-'yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final String PART = ".part";
+
+    private static final String CHECKPOINT = ".checkpoint";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Tasks queued for the writer thread while it writes.
+     */
+    private static final int WRITE_AHEAD = 256;
+
+    private final TaskService taskService;
+
+    private final TaskStore taskStore;
+
+    private final ObjectWriter writer;
+
+    private final ObjectReader reader;
+
+    private final Path directory;
+
+    private final int chunkSize;
+
+    public TaskArchiveService(TaskService taskService, TaskStore taskStore, ObjectMapper objectMapper,
+                              @Value("${tasks.archive.dir:archives}") Path directory,
+                              @Value("${tasks.batch.chunk-size:500}") int chunkSize) {
+        this.taskService = taskService;
+        this.taskStore = taskStore;
+        this.writer = objectMapper.writerFor(Task.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.reader = objectMapper.readerFor(Task.class);
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Writes every task to a new archive named after the current time, such as
+     * tasks-20260301T120000000Z.ndjson.gz.
+     * @return the archive, with the number of tasks written
+     */
+    public Mono<TaskArchive> export(TaskArchive.Compression compression) {
+        return Mono.defer(() -> {
+            String name = EXPORT_NAME.format(Instant.now()) + compression.getSuffix();
+            Path file = directory.resolve(name);
+            Path part = directory.resolve(name + PART);
+            Flux<Task> tasks = taskService.getAllTasks()
+                    .concatMap(task -> task.getSubTaskCount() == null ? Mono.just(task) : taskStore.findById(task.getId()));
+            return Mono.using(() -> openForWrite(part, compression),
+                            generator -> tasks.publishOn(Schedulers.boundedElastic(), WRITE_AHEAD)
+                                    .doOnNext(task -> write(generator, task))
+                                    .count(),
+                            TaskArchiveService::close)
+                    .doOnError(e -> deleteQuietly(part))
+                    .doOnCancel(() -> deleteQuietly(part))
+                    .map(count -> {
+                        try {
+                            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return describe(file, count);
+                    });
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private JsonGenerator openForWrite(Path part, TaskArchive.Compression compression) throws IOException {
+        Files.createDirectories(directory);
+        OutputStream file = Files.newOutputStream(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            OutputStream out = switch (compression) {
+                case GZIP -> new GZIPOutputStream(file, BUFFER_SIZE);
+                case ZSTD -> new ZstdOutputStreamNoFinalizer(new BufferedOutputStream(file, BUFFER_SIZE));
+                case NONE -> new BufferedOutputStream(file, BUFFER_SIZE);
+            };
+            JsonGenerator generator = writer.createGenerator(out);
+            generator.setRootValueSeparator(null);
+            return generator;
+        } catch (IOException | LinkageError e) {
+            file.close();
+            deleteQuietly(part);
+            throw unavailable(compression, e);
+        }
+    }
+
+    private void write(JsonGenerator generator, Task task) {
+        try {
+            writer.writeValue(generator, task);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inserts the tasks of an archive, reporting duplicates and invalid tasks without stopping. With resume,
+     * skips the tasks a checkpoint of an earlier import of the archive shows were done.
+     * @return counts of the tasks processed, created, duplicate and invalid, with the first failures
+     */
+    public Mono<TaskImportResult> importArchive(String name, boolean resume) {
+        return file(name).flatMap(file -> {
+            Path checkpoint = directory.resolve(name + CHECKPOINT);
+            long skip = resume ? readCheckpoint(checkpoint) : 0;
+            TaskImportResult result = new TaskImportResult(name, skip);
+            Flux<Task> tasks = Flux.using(() -> openForRead(file),
+                            parser -> read(parser, name, skip),
+                            TaskArchiveService::close)
+                    .subscribeOn(Schedulers.boundedElastic());
+            // A read error waits for the checkpoint of the chunk before it, so a resumed import starts there.
+            return taskService.createTasks(tasks)
+                    .buffer(chunkSize)
+                    .concatMapDelayError(results -> Mono.fromCallable(() -> {
+                        results.forEach(result::add);
+                        writeCheckpoint(checkpoint, skip + result.getProcessed());
+                        return result;
+                    }).subscribeOn(Schedulers.boundedElastic()))
+                    .then(Mono.fromCallable(() -> {
+                        Files.deleteIfExists(checkpoint);
+                        return result;
+                    }).subscribeOn(Schedulers.boundedElastic()));
+        });
+    }
+
+    private JsonParser openForRead(Path file) throws IOException {
+        TaskArchive.Compression compression = TaskArchive.Compression.of(file.getFileName().toString());
+        InputStream in = Files.newInputStream(file);
+        try {
+            InputStream decompressed = switch (compression) {
+                case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+                case ZSTD -> new ZstdInputStreamNoFinalizer(new BufferedInputStream(in, BUFFER_SIZE));
+                case NONE -> new BufferedInputStream(in, BUFFER_SIZE);
+            };
+            return reader.createParser(decompressed);
+        } catch (IOException | LinkageError e) {
+            in.close();
+            throw unavailable(compression, e);
+        }
+    }
+
+    /**
+     * The tasks of the archive after the first skip, parsed one at a time as downstream asks for them.
+     */
+    private Flux<Task> read(JsonParser parser, String name, long skip) {
+        return Flux.generate(() -> 0L, (index, sink) -> {
+            try {
+                while (index < skip && parser.nextToken() != null) {
+                    parser.skipChildren();
+                    index++;
+                }
+                if (parser.nextToken() == null) {
+                    sink.complete();
+                } else {
+                    sink.next(reader.readValue(parser));
+                }
+            } catch (IOException e) {
+                sink.error(new InvalidTaskException("Task " + (index + 1) + " of " + name + " could not be read: "
+                        + e.getMessage()));
+            }
+            return index + 1;
+        });
+    }
+
+    private static long readCheckpoint(Path checkpoint) {
+        try {
+            return Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NumberFormatException e) {
+            throw new InvalidTaskException("Checkpoint " + checkpoint.getFileName() + " is not a number of tasks");
+        }
+    }
+
+    /**
+     * Replaces the checkpoint in one rename, so a crash leaves the previous or the new count.
+     */
+    private static void writeCheckpoint(Path checkpoint, long done) throws IOException {
+        Path next = checkpoint.resolveSibling(checkpoint.getFileName() + PART);
+        Files.writeString(next, Long.toString(done), StandardCharsets.US_ASCII);
+        Files.move(next, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The archives in tasks.archive.dir, by name. Exports still being written are left out.
+     */
+    public Flux<TaskArchive> list() {
+        return Flux.defer(() -> {
+            if (!Files.isDirectory(directory)) {
+                return Flux.<TaskArchive>empty();
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                List<TaskArchive> archives = files
+                        .filter(file -> TaskArchive.Compression.of(file.getFileName().toString()) != null)
+                        .sorted()
+                        .map(file -> describe(file, null))
+                        .toList();
+                return Flux.fromIterable(archives);
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * The archive file with the given name, or InvalidTaskException for a name that is not an archive file
+     * name, or TaskNotFoundException if there is no such archive.
+     */
+    public Mono<Path> file(String name) {
+        return Mono.fromCallable(() -> {
+            if (!ARCHIVE_NAME.matcher(name).matches() || TaskArchive.Compression.of(name) == null) {
+                throw new InvalidTaskException("Archive names end in .ndjson.gz, .ndjson.zst or .ndjson");
+            }
+            Path file = directory.resolve(name);
+            if (!Files.isRegularFile(file)) {
+                throw new TaskNotFoundException("Archive " + name + " does not exist.");
+            }
+            return file;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static TaskArchive describe(Path file, Long tasks) {
+        try {
+            String name = file.getFileName().toString();
+            return new TaskArchive(name, TaskArchive.Compression.of(name), Files.size(file), tasks,
+                    Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RuntimeException unavailable(TaskArchive.Compression compression, Throwable e) {
+        if (e instanceof LinkageError) {
+            return new InvalidTaskException(compression.name().toLowerCase() + " is not available on this platform");
+        }
+        return new UncheckedIOException((IOException) e);
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for the next export to overwrite or an operator to remove.
+        }
+    }
+}
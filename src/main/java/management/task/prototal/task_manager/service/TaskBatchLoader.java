@@ -0,0 +1,130 @@
+package management.task.prototal.task_manager.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.store.TaskStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads tasks by id for getById. With tasks.get.batch-window set, ids asked for within the window are
+ * collected and read with one store query (a find on _id $in for Mongo), sent as soon as the window
+ * closes or tasks.get.batch-max-size distinct ids are waiting. Every caller waits up to the window, so
+ * it only pays off when concurrent lookups outnumber what the connection pool can serve one by one.
+ * The ids per store read are published as tasks.get.batch.size.
+ */
+@Component
+public class TaskBatchLoader {
+
+    static final String BATCH_SIZE_SUMMARY = "tasks.get.batch.size";
+
+    private final TaskStore taskStore;
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    private final Scheduler scheduler;
+
+    private final DistributionSummary batchSizes;
+
+    private Batch pending;
+
+    @Autowired
+    public TaskBatchLoader(TaskStore taskStore, MeterRegistry meterRegistry,
+                           @Value("${tasks.get.batch-window:0ms}") Duration window,
+                           @Value("${tasks.get.batch-max-size:100}") int maxBatchSize) {
+        this(taskStore, meterRegistry, window, maxBatchSize, Schedulers.parallel());
+    }
+
+    TaskBatchLoader(TaskStore taskStore, MeterRegistry meterRegistry, Duration window, int maxBatchSize, Scheduler scheduler) {
+        this.taskStore = taskStore;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_SUMMARY)
+                .description("Ids read per store query by getById")
+                .register(meterRegistry);
+    }
+
+    public boolean isBatching() {
+        return !window.isZero();
+    }
+
+    /**
+     * The task with the id, or empty if there is none. Callers asking for the same id in one window share
+     * its result.
+     */
+    public Mono<Task> load(String id) {
+        if (!isBatching()) {
+            return Mono.defer(() -> {
+                batchSizes.record(1);
+                return taskStore.findById(id);
+            });
+        }
+        return Mono.defer(() -> {
+            Batch opened = null;
+            Batch full = null;
+            Sinks.One<Task> result;
+            synchronized (this) {
+                if (pending == null) {
+                    pending = new Batch();
+                    opened = pending;
+                }
+                result = pending.waiting.computeIfAbsent(id, key -> Sinks.one());
+                if (pending.waiting.size() >= maxBatchSize) {
+                    full = pending;
+                    pending = null;
+                }
+            }
+            if (full != null) {
+                flush(full);
+            } else if (opened != null) {
+                Batch batch = opened;
+                scheduler.schedule(() -> flushIfPending(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return result.asMono();
+        });
+    }
+
+    private void flushIfPending(Batch batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                // Already sent because it filled up.
+                return;
+            }
+            pending = null;
+        }
+        flush(batch);
+    }
+
+    private void flush(Batch batch) {
+        batchSizes.record(batch.waiting.size());
+        taskStore.findByIds(batch.waiting.keySet())
+                .collectMap(Task::getId)
+                .subscribe(found -> batch.waiting.forEach((id, result) -> {
+                    Task task = found.get(id);
+                    if (task == null) {
+                        result.tryEmitEmpty();
+                    } else {
+                        result.tryEmitValue(task);
+                    }
+                }), error -> batch.waiting.values().forEach(result -> result.tryEmitError(error)));
+    }
+
+    private static final class Batch {
+
+        private final Map<String, Sinks.One<Task>> waiting = new LinkedHashMap<>();
+    }
+}
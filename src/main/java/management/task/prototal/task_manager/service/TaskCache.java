@@ -0,0 +1,76 @@
+package management.task.prototal.task_manager.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import management.task.prototal.task_manager.entity.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of tasks by id. Concurrent misses for the same id share one load,
+ * and tasks that don't exist are not cached. Its size, hits, misses and evictions are published as
+ * cache.* metrics with cache=tasks.
+ */
+@Component
+public class TaskCache implements MeterBinder {
+
+    private final AsyncCache<String, Task> cache;
+
+    public TaskCache(@Value("${tasks.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${tasks.cache.expire-after-write:30s}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached task, or subscribes to the loader on a miss. Cancelling the returned Mono
+     * does not cancel the shared load, since other callers may be waiting on it.
+     */
+    public Mono<Task> get(String id, Function<String, Mono<Task>> loader) {
+        return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key).toFuture()), true);
+    }
+
+    public void put(Task task) {
+        cache.put(task.getId(), CompletableFuture.completedFuture(task));
+    }
+
+    /**
+     * Replaces the task only if it is already cached, so changes made elsewhere don't push hot entries out.
+     */
+    public void replaceIfPresent(Task task) {
+        cache.asMap().computeIfPresent(task.getId(), (id, cached) -> CompletableFuture.completedFuture(task));
+    }
+
+    public void invalidate(String id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "tasks");
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+}
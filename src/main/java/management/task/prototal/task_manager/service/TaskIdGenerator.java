@@ -0,0 +1,155 @@
+package management.task.prototal.task_manager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Ids for tasks created without one. An id is a 63-bit Snowflake-style number written as 13 characters of
+ * Crockford base32, which sort as strings in the order of the numbers: 41 bits of milliseconds since
+ * 2024-01-01, then 10 bits of node id (tasks.id.node-id) and 12 bits of sequence. Ids from one node strictly
+ * increase, and ids from all nodes sort by creation time to the millisecond, so keyset pagination and range
+ * scans on _id follow creation order.
+ *
+ * A node makes up to 4096 ids per millisecond. Past that, or while the clock steps back, ids run ahead of the
+ * clock rather than wait for it, and the clock catches up later.
+ *
+ * Time-ordered ids all land at the end of the _id range, in the last chunk of a collection sharded on a range
+ * key. With tasks.id.prefix-buckets, ids start with a bucket picked by a hash of the rest (one character for
+ * up to 32 buckets, two for up to 1024), which spreads inserts over that many ranges. Ids then only sort by
+ * time within a bucket.
+ */
+@Component
+public class TaskIdGenerator {
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+
+    static final int SEQUENCE_BITS = 12;
+
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    static final int MAX_PREFIX_BUCKETS = 1 << 10;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int LENGTH = 13;
+
+    private static final byte[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Logger log = LoggerFactory.getLogger(TaskIdGenerator.class);
+
+    private final long node;
+
+    private final int prefixBuckets;
+
+    private final int prefixLength;
+
+    private final LongSupplier clock;
+
+    /**
+     * Milliseconds since EPOCH shifted left by SEQUENCE_BITS, plus the sequence, of the last id handed out.
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param nodeId 0 to 1023, unique among the nodes creating tasks, or -1 to pick one at random
+     * @param prefixBuckets 0 for no prefix, or the number of prefixes, up to 1024
+     */
+    @Autowired
+    public TaskIdGenerator(@Value("${tasks.id.node-id:-1}") int nodeId,
+                           @Value("${tasks.id.prefix-buckets:0}") int prefixBuckets) {
+        this(nodeId, prefixBuckets, System::currentTimeMillis);
+    }
+
+    TaskIdGenerator(int nodeId, int prefixBuckets, LongSupplier clock) {
+        if (nodeId < -1 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("tasks.id.node-id must be between 0 and " + MAX_NODE_ID + ", or -1");
+        }
+        if (prefixBuckets < 0 || prefixBuckets > MAX_PREFIX_BUCKETS) {
+            throw new IllegalArgumentException("tasks.id.prefix-buckets must be between 0 and " + MAX_PREFIX_BUCKETS);
+        }
+        if (nodeId == -1) {
+            nodeId = ThreadLocalRandom.current().nextInt(MAX_NODE_ID + 1);
+            log.info("Generating task ids as node {}; set tasks.id.node-id when several nodes create tasks", nodeId);
+        }
+        this.node = (long) nodeId << SEQUENCE_BITS;
+        this.prefixBuckets = prefixBuckets;
+        this.prefixLength = prefixBuckets == 0 ? 0 : prefixBuckets <= 32 ? 1 : 2;
+        this.clock = clock;
+    }
+
+    public String next() {
+        long value = nextValue();
+        byte[] id = new byte[prefixLength + LENGTH];
+        if (prefixLength > 0) {
+            int bucket = (int) Long.remainderUnsigned(mix(value), prefixBuckets);
+            if (prefixLength == 2) {
+                id[0] = ALPHABET[bucket >>> 5];
+            }
+            id[prefixLength - 1] = ALPHABET[bucket & 31];
+        }
+        for (int i = id.length - 1; i >= prefixLength; i--) {
+            id[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(id, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * The next id as a number. One compare-and-set on the last id, retried when another thread got in first.
+     */
+    long nextValue() {
+        long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        long next = last.accumulateAndGet(now, (previous, clockValue) -> Math.max(previous + 1, clockValue));
+        long millis = next >>> SEQUENCE_BITS;
+        return millis << (NODE_BITS + SEQUENCE_BITS) | node | next & SEQUENCE_MASK;
+    }
+
+    /**
+     * The creation time encoded in an id from this generator, with or without a prefix.
+     */
+    public static Instant timestampOf(String id) {
+        if (id.length() < LENGTH) {
+            throw new IllegalArgumentException("Not a generated task id: " + id);
+        }
+        long value = 0;
+        for (int i = id.length() - LENGTH; i < id.length(); i++) {
+            int digit = indexOf(id.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not a generated task id: " + id);
+            }
+            value = value << 5 | digit;
+        }
+        return Instant.ofEpochMilli(EPOCH + (value >>> (NODE_BITS + SEQUENCE_BITS)));
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so consecutive ids land in unrelated buckets.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ value >>> 33;
+    }
+}
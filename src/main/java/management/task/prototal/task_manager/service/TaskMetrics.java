@@ -0,0 +1,133 @@
+package management.task.prototal.task_manager.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times TaskService operations. Each subscription records a tasks.operation timer tagged with the
+ * operation and its outcome, streaming operations also count the tasks they emitted, and operations
+ * slower than tasks.metrics.slow-threshold are logged with a description of how the store ran them,
+ * which for Mongo is the query shape.
+ */
+@Component
+public class TaskMetrics {
+
+    static final String OPERATION_TIMER = "tasks.operation";
+
+    static final String ITEMS_COUNTER = "tasks.operation.items";
+
+    private static final Logger log = LoggerFactory.getLogger(TaskMetrics.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration slowThreshold;
+
+    public TaskMetrics(MeterRegistry meterRegistry,
+                       @Value("${tasks.metrics.slow-threshold:500ms}") Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowThreshold = slowThreshold;
+    }
+
+    /**
+     * @param queryShape describes the store query with its values left out; only evaluated for slow operations
+     */
+    public <T> Mono<T> timed(String operation, Supplier<String> queryShape, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Sample sample = new Sample(operation, queryShape, false);
+            return mono.doOnError(sample::failed)
+                    .doFinally(sample::stop);
+        });
+    }
+
+    public <T> Flux<T> timed(String operation, Supplier<String> queryShape, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Sample sample = new Sample(operation, queryShape, true);
+            return flux.doOnNext(item -> sample.items++)
+                    .doOnError(sample::failed)
+                    .doFinally(sample::stop);
+        });
+    }
+
+    static String outcome(Throwable error) {
+        if (error == null) {
+            return "success";
+        }
+        if (error instanceof TaskNotFoundException) {
+            return "not_found";
+        }
+        if (error instanceof TaskVersionConflictException) {
+            return "conflict";
+        }
+        if (error instanceof DuplicateTaskException) {
+            return "duplicate";
+        }
+        if (error instanceof InvalidTaskException) {
+            return "invalid";
+        }
+        return "error";
+    }
+
+    private final class Sample {
+
+        private final long start = System.nanoTime();
+
+        private final String operation;
+
+        private final Supplier<String> queryShape;
+
+        private final boolean streaming;
+
+        private Throwable error;
+
+        private long items;
+
+        private Sample(String operation, Supplier<String> queryShape, boolean streaming) {
+            this.operation = operation;
+            this.queryShape = queryShape;
+            this.streaming = streaming;
+        }
+
+        private void failed(Throwable error) {
+            this.error = error;
+        }
+
+        private void stop(SignalType signal) {
+            long nanos = System.nanoTime() - start;
+            String outcome = signal == SignalType.CANCEL ? "cancelled" : outcome(error);
+            Timer.builder(OPERATION_TIMER)
+                    .description("Time taken by TaskService operations")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            if (streaming) {
+                Counter.builder(ITEMS_COUNTER)
+                        .description("Tasks emitted by streaming TaskService operations")
+                        .tag("operation", operation)
+                        .register(meterRegistry)
+                        .increment(items);
+            }
+            if (nanos >= slowThreshold.toNanos()) {
+                log.warn("Slow task operation: operation={} durationMs={} outcome={} items={} query={}",
+                        operation, TimeUnit.NANOSECONDS.toMillis(nanos), outcome, items, queryShape.get());
+            }
+        }
+    }
+}
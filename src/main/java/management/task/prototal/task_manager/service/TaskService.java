@@ -1,69 +1,312 @@
 package management.task.prototal.task_manager.service;
 
-import com.mongodb.client.result.DeleteResult;
-import management.task.prototal.task_manager.exception.DuplicateTaskException;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskBulkResult;
+import management.task.prototal.task_manager.dto.TaskCacheStats;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
 import management.task.prototal.task_manager.entity.Task;
-import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.store.TaskQuery;
+import management.task.prototal.task_manager.store.TaskStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
 @Service
 public class TaskService implements ITaskService {
 
+    private final TaskStore taskStore;
+
+    private final TaskCache taskCache;
+
+    private final TaskMetrics taskMetrics;
+
+    private final TaskBatchLoader taskBatchLoader;
+
+    private final TaskIdGenerator taskIdGenerator;
+
+    private final int batchChunkSize;
+
     @Autowired
-    private ReactiveMongoTemplate reactiveMongoTemplate;
+    public TaskService(TaskStore taskStore, TaskCache taskCache, TaskMetrics taskMetrics, TaskBatchLoader taskBatchLoader,
+                       TaskIdGenerator taskIdGenerator, @Value("${tasks.batch.chunk-size:500}") int batchChunkSize) {
+        this.taskStore = taskStore;
+        this.taskCache = taskCache;
+        this.taskMetrics = taskMetrics;
+        this.taskBatchLoader = taskBatchLoader;
+        this.taskIdGenerator = taskIdGenerator;
+        this.batchChunkSize = batchChunkSize;
+    }
 
     /**
-     * saveTask can also be used to update since it has cross-functionality with updateTask through
-     * .save().
+     * Creates the task in a single write. A duplicate id is rejected atomically by the store,
+     * unlike checking exists() first and then saving. Tasks without an id get one from TaskIdGenerator.
      * @param task
      * @return
      */
     public Mono<Task> createTask(Task task) {
-        Query query = new Query(Criteria.where("_id").is(task.getId()));
-        return reactiveMongoTemplate.exists(query, Task.class)
-                .flatMap(exists -> {
-                    if (exists) {
-                        return Mono.error(new DuplicateTaskException("Task with ID " + task.getId() + " already exists."));
-                    } else {
-                        return reactiveMongoTemplate.save(task);
-                    }
-                });
+        assignId(task);
+        return taskMetrics.timed("create", () -> "insert", taskStore.insert(task));
     }
 
+    /**
+     * Inserts the incoming tasks in chunks of tasks.batch.chunk-size with one store batch per chunk.
+     * Duplicates are reported by the store per task rather than checked up front, so a chunk costs
+     * a single round trip no matter how many of its tasks already exist.
+     * @param tasks
+     * @return one result per task, in input order
+     */
+    public Flux<TaskBatchResult> createTasks(Flux<Task> tasks) {
+        return taskMetrics.timed("createBatch", () -> "batch insert, chunks of " + batchChunkSize,
+                tasks.buffer(batchChunkSize).concatMap(this::insertChunk));
+    }
+
+    private Flux<TaskBatchResult> insertChunk(List<Task> chunk) {
+        List<Task> valid = new ArrayList<>(chunk.size());
+        for (Task task : chunk) {
+            if (isValid(task)) {
+                assignId(task);
+                valid.add(task);
+            }
+        }
+        Flux<TaskBatchResult> inserted = valid.isEmpty() ? Flux.empty() : taskStore.insertAll(valid);
+        return inserted.collectList()
+                .flatMapIterable(results -> mergeResults(chunk, results, TaskService::isValid));
+    }
+
+    private void assignId(Task task) {
+        if (task.getId() == null) {
+            task.setId(taskIdGenerator.next());
+        }
+    }
+
+    private static boolean isValid(Task task) {
+        return task.getTitle() != null && task.getDescription() != null;
+    }
+
+    private static boolean isValidUpdate(Task task) {
+        return task.getId() != null && isValid(task);
+    }
+
+    /**
+     * Puts the store's results for the valid tasks back in input order between the invalid ones.
+     */
+    private static List<TaskBatchResult> mergeResults(List<Task> chunk, List<TaskBatchResult> stored, Predicate<Task> valid) {
+        List<TaskBatchResult> results = new ArrayList<>(chunk.size());
+        int storedIndex = 0;
+        for (Task task : chunk) {
+            results.add(valid.test(task)
+                    ? stored.get(storedIndex++)
+                    : TaskBatchResult.invalid(task.getId(), "Task or task properties cannot be null"));
+        }
+        return results;
+    }
+
+    /**
+     * Reads through the cache. Misses are loaded by TaskBatchLoader, which can combine the misses of
+     * concurrent callers into one store query.
+     * @param id
+     * @return the task, or empty if there is none
+     */
     public Mono<Task> getTaskById(String id) {
-        return reactiveMongoTemplate.findById(id, Task.class);
+        return taskMetrics.timed("get", () -> taskBatchLoader.isBatching() ? "by ids, batched" : "by id",
+                taskCache.get(id, taskBatchLoader::load));
+    }
+
+    /**
+     * Reads the task with its sub-tasks down to depth levels from the store, bypassing the cache, which
+     * only holds whole tasks. Sub-tasks left out are counted in subTaskCount.
+     * @param id
+     * @param depth levels of sub-tasks to return, 0 for the task alone
+     * @return the task, or empty if there is none
+     */
+    public Mono<Task> getTaskById(String id, int depth) {
+        return taskMetrics.timed("get", () -> "by id, depth limited", taskStore.findById(id, depth));
+    }
+
+    /**
+     * Reads one sub-task with its own sub-tasks down to depth levels, to expand a tree read with a depth.
+     * @param id
+     * @param path JSON Pointer to the sub-task, as in patches, e.g. /subTasks/1/subTasks/0
+     * @param depth levels of sub-tasks to return below it
+     * @return the sub-task, or TaskNotFoundException if the task or the sub-task does not exist
+     */
+    public Mono<SubTask> getSubTree(String id, String path, int depth) {
+        List<Integer> indexes;
+        try {
+            indexes = subTaskIndexes(path);
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+        return taskMetrics.timed("getSubTree", () -> "by id and path", taskStore.findSubTree(id, indexes, depth)
+                .switchIfEmpty(Mono.error(() -> new TaskNotFoundException("Sub-task " + path + " of task " + id + " does not exist."))));
     }
 
+    private static List<Integer> subTaskIndexes(String path) {
+        String[] tokens = path == null ? new String[0] : path.split("/", -1);
+        if (tokens.length < 3 || tokens.length % 2 == 0 || !tokens[0].isEmpty()) {
+            throw new InvalidTaskException("Invalid sub-task path: " + path);
+        }
+        List<Integer> indexes = new ArrayList<>(tokens.length / 2);
+        for (int i = 1; i < tokens.length; i += 2) {
+            String index = tokens[i + 1];
+            if (!tokens[i].equals("subTasks") || index.isEmpty() || index.length() > 9
+                    || !index.chars().allMatch(Character::isDigit)) {
+                throw new InvalidTaskException("Invalid sub-task path: " + path);
+            }
+            indexes.add(Integer.parseInt(index));
+        }
+        return indexes;
+    }
+
+    /**
+     * Replaces the task's fields and increments its version. When the task carries a version, the update
+     * only applies if the stored version still matches, so concurrent editors can't overwrite each other.
+     * @param task
+     * @return the updated task
+     */
     public Mono<Task> updateTask(Task task) {
-        Query query = new Query(Criteria.where("_id").is(task.getId()));
-        Update update = new Update()
-                .set("title", task.getTitle())
-                .set("description", task.getDescription())
-                .set("subTasks", task.getSubTasks());
-        return reactiveMongoTemplate.findAndModify(query, update, Task.class)
-                .defaultIfEmpty(task);
+        return taskMetrics.timed("update", () -> versionedDescription(task.getVersion()), taskStore.update(task)
+                .doOnTerminate(() -> taskCache.invalidate(task.getId())));
+    }
+
+    /**
+     * Applies JSON Patch operations, writing only the patched paths.
+     * @param id
+     * @param expectedVersion version the patch was made against, or null to patch whatever is stored
+     * @param operations
+     * @return the patched task
+     */
+    public Mono<Task> patchTask(String id, Long expectedVersion, List<TaskPatchOperation> operations) {
+        return taskMetrics.timed("patch", () -> versionedDescription(expectedVersion),
+                taskStore.patch(id, expectedVersion, operations)
+                        .doOnTerminate(() -> taskCache.invalidate(id)));
+    }
+
+    /**
+     * Updates the incoming tasks in chunks of tasks.batch.chunk-size with one store batch per chunk, so the
+     * input is never buffered beyond a chunk. Tasks without an id, title or description are reported as
+     * invalid; the rest are updated like updateTask, checking the version of those that carry one.
+     * @param tasks
+     * @return counts of the tasks processed and updated, with a result for each task that was not updated
+     */
+    public Mono<TaskBulkResult> updateTasks(Flux<Task> tasks) {
+        return taskMetrics.timed("updateBatch", () -> "bulk update by id, chunks of " + batchChunkSize,
+                tasks.buffer(batchChunkSize)
+                        .concatMap(this::updateChunk)
+                        .reduceWith(TaskBulkResult::new, TaskBulkResult::add));
+    }
+
+    private Flux<TaskBatchResult> updateChunk(List<Task> chunk) {
+        List<Task> valid = chunk.stream().filter(TaskService::isValidUpdate).toList();
+        Flux<TaskBatchResult> updated = valid.isEmpty() ? Flux.empty() : taskStore.updateAll(valid)
+                .doOnTerminate(() -> valid.forEach(task -> taskCache.invalidate(task.getId())));
+        return updated.collectList()
+                .flatMapIterable(results -> mergeResults(chunk, results, TaskService::isValidUpdate));
+    }
+
+    private static String versionedDescription(Long expectedVersion) {
+        return expectedVersion == null ? "by id" : "by id and version";
     }
 
     public Mono<Boolean> deleteTask(String id) {
-        return reactiveMongoTemplate.remove(Query.query(Criteria.where("_id").is(id)), Task.class)
-                .defaultIfEmpty(DeleteResult.unacknowledged())
-                .flatMap(deleteResult -> {
-                    if (deleteResult.getDeletedCount() > 0) {
-                        return Mono.just(true);
-                    } else {
-                        return Mono.just(false);
-                    }
-                });
+        return taskMetrics.timed("delete", () -> "by id", taskStore.deleteById(id)
+                .doOnTerminate(() -> taskCache.invalidate(id)));
+    }
+
+    /**
+     * Deletes the incoming ids in chunks of tasks.batch.chunk-size with one store batch per chunk, so the
+     * input is never buffered beyond a chunk.
+     * @param ids
+     * @return counts of the ids processed and deleted, with a result for each id that was not deleted
+     */
+    public Mono<TaskBulkResult> deleteTasks(Flux<String> ids) {
+        return taskMetrics.timed("deleteBatch", () -> "bulk delete by id, chunks of " + batchChunkSize,
+                ids.buffer(batchChunkSize)
+                        .concatMap(this::deleteChunk)
+                        .reduceWith(TaskBulkResult::new, TaskBulkResult::add));
+    }
+
+    private Flux<TaskBatchResult> deleteChunk(List<String> chunk) {
+        List<String> valid = chunk.stream().filter(id -> !id.isBlank()).toList();
+        Flux<TaskBatchResult> deleted = valid.isEmpty() ? Flux.empty() : taskStore.deleteAll(valid)
+                .doOnTerminate(() -> valid.forEach(taskCache::invalidate));
+        return deleted.concatWith(Flux.fromIterable(chunk)
+                .filter(String::isBlank)
+                .map(id -> TaskBatchResult.invalid(id, "Id is blank")));
+    }
+
+    /**
+     * Deletes every task matching the words, the exact title, or both, in one store operation. The ids
+     * deleted are not known, so the whole getById cache is cleared.
+     * @param text words to match, any of which may match, or null
+     * @param title exact title to match, or null
+     * @return the number of tasks deleted
+     */
+    public Mono<TaskBulkResult> deleteTasks(String text, String title) {
+        TaskQuery query = TaskQuery.search(text, title, null, 0);
+        return taskMetrics.timed("deleteMatching", () -> taskStore.describe(query), taskStore.deleteMatching(query)
+                .doOnTerminate(taskCache::invalidateAll)
+                .map(TaskBulkResult::of));
     }
 
     // Utility methods.
+
+    public TaskCacheStats getCacheStats() {
+        CacheStats stats = taskCache.stats();
+        return new TaskCacheStats(taskCache.size(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+
+    /**
+     * Streams the whole collection. The store only produces tasks as downstream requests them, so a slow
+     * client holds back the read instead of tasks piling up on the heap.
+     * @return
+     */
     public Flux<Task> getAllTasks() {
-        return reactiveMongoTemplate.findAll(Task.class);
+        return find("getAll", TaskQuery.all());
+    }
+
+    /**
+     * Keyset pagination on the id. Each page is a range read starting after the previous page, so the
+     * cost of a page does not grow with how far into the collection the client has read.
+     * @param afterId id of the last task on the previous page, or null for the first page
+     * @param limit
+     * @param direction
+     * @param fields fields to return, or empty for whole tasks. The id is always returned.
+     * @return
+     */
+    public Flux<Task> getTasks(String afterId, int limit, Sort.Direction direction, Collection<String> fields) {
+        return find("getPage", TaskQuery.page(afterId, limit, direction, fields));
+    }
+
+    /**
+     * Finds tasks by full-text search on title and description, by exact title, or both, paged by id
+     * like getTasks. On Mongo, an exact title search walks the title_id index in order, so each page costs
+     * only the tasks it returns. A text search reads every task matching the terms and sorts them by id
+     * before taking a page, so narrow terms, or an added title, keep it fast.
+     * @param text words to search for, any of which may match, or null
+     * @param title exact title to match, or null
+     * @param afterId id of the last task on the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    public Flux<Task> searchTasks(String text, String title, String afterId, int limit) {
+        return find("search", TaskQuery.search(text, title, afterId, limit));
+    }
+
+    private Flux<Task> find(String operation, TaskQuery query) {
+        return taskMetrics.timed(operation, () -> taskStore.describe(query), taskStore.find(query));
     }
 }
@@ -0,0 +1,491 @@
+package management.task.prototal.task_manager.store;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * TaskStore that keeps tasks on the heap, for edge deployments and tests that run without MongoDB.
+ *
+ * Tasks live in a ConcurrentSkipListMap ordered by id, so reads never lock and pages are range views of
+ * the map. Stored tasks are never modified: a write deep-copies the task, changes the copy and swaps it
+ * in atomically, so readers share stored tasks without copying and must not modify what they get back.
+ *
+ * With tasks.store.memory.data-dir set, the store is durable. Every write is appended to a write-ahead
+ * log (TaskLog) and completes once the log is synced, with concurrent writes sharing an fsync. Until then
+ * the write is only staged, where later writes build on it, and readers do not see it: it reaches the map
+ * once its log entry is synced. If the log fails, staged writes never reach the map and the store takes no
+ * more writes. Every
+ * tasks.store.memory.snapshot-interval, and on shutdown, the log is rotated and the tasks are written to
+ * a binary snapshot (TaskSnapshot), after which older log segments are deleted. Startup maps the snapshot
+ * and replays the log segments written since.
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.store", havingValue = "memory")
+public class InMemoryTaskStore implements TaskStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryTaskStore.class);
+
+    private static final String SNAPSHOT_FILE = "tasks.snapshot";
+
+    private final ConcurrentSkipListMap<String, Task> tasks = new ConcurrentSkipListMap<>();
+
+    /**
+     * The latest log entry of each task written but not yet synced. Writes check against these before the
+     * map; readers only see the map.
+     */
+    private final ConcurrentHashMap<String, TaskLog.Entry> staged = new ConcurrentHashMap<>();
+
+    /**
+     * Held while a write stages its changes and queues their log entries, so the log has writes in the
+     * order they were applied. The fsync happens after it is released.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final Path dataDirectory;
+
+    private final Duration snapshotInterval;
+
+    private final boolean fsync;
+
+    private TaskLog taskLog;
+
+    private Disposable snapshots;
+
+    @Autowired
+    public InMemoryTaskStore(@Value("${tasks.store.memory.data-dir:#{null}}") Path dataDirectory,
+                             @Value("${tasks.store.memory.snapshot-interval:60s}") Duration snapshotInterval,
+                             @Value("${tasks.store.memory.fsync:true}") boolean fsync) {
+        this.dataDirectory = dataDirectory;
+        this.snapshotInterval = snapshotInterval;
+        this.fsync = fsync;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (dataDirectory == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        Files.createDirectories(dataDirectory);
+        Path snapshotFile = dataDirectory.resolve(SNAPSHOT_FILE);
+        long fromSegment = Files.exists(snapshotFile)
+                ? TaskSnapshot.read(snapshotFile, task -> tasks.put(task.getId(), task))
+                : 0;
+        int fromSnapshot = tasks.size();
+        long[] replayed = new long[1];
+        taskLog = TaskLog.recover(dataDirectory, fromSegment, fsync, entry -> {
+            replay(entry);
+            replayed[0]++;
+        });
+        log.info("Restored {} tasks from {} in {} ms: {} from the snapshot, then {} log records",
+                tasks.size(), dataDirectory, Duration.ofNanos(System.nanoTime() - started).toMillis(),
+                fromSnapshot, replayed[0]);
+        if (!snapshotInterval.isZero()) {
+            snapshots = Flux.interval(snapshotInterval, snapshotInterval, Schedulers.boundedElastic())
+                    .subscribe(tick -> snapshotQuietly());
+        }
+    }
+
+    private void replay(TaskLog.Entry entry) {
+        if (entry.task() == null) {
+            tasks.remove(entry.id());
+        } else {
+            tasks.put(entry.id(), entry.task());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshots != null) {
+            snapshots.dispose();
+        }
+        if (taskLog != null) {
+            snapshotQuietly();
+            taskLog.close();
+        }
+    }
+
+    /**
+     * Runs a change under the write lock, which stages the entries it adds. Without a data directory the
+     * entries are published to the map straight away. With one, they are published once synced, in log
+     * order on the log's writer thread, and the write completes after that, off the writer thread so it is
+     * free to start the next batch. A change that fails must do so before it stages anything.
+     */
+    private <T> Mono<T> write(Function<List<TaskLog.Entry>, T> change) {
+        return Mono.defer(() -> {
+            List<TaskLog.Entry> entries = new ArrayList<>(1);
+            T result;
+            CompletableFuture<Void> synced = null;
+            writeLock.lock();
+            try {
+                if (taskLog != null) {
+                    taskLog.checkWritable();
+                }
+                result = change.apply(entries);
+                if (taskLog == null) {
+                    entries.forEach(this::publish);
+                } else if (!entries.isEmpty()) {
+                    // Registered before the lock is released, so entries are published in log order
+                    // even if the append was synced already.
+                    synced = taskLog.append(entries).thenRun(() -> entries.forEach(this::publish));
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            if (synced == null) {
+                return Mono.justOrEmpty(result);
+            }
+            return Mono.fromFuture(synced)
+                    .publishOn(Schedulers.parallel())
+                    .thenReturn(result);
+        });
+    }
+
+    /**
+     * The task as writes see it: the latest staged write, or else the one in the map.
+     */
+    private Task current(String id) {
+        TaskLog.Entry entry = staged.get(id);
+        return entry != null ? entry.task() : tasks.get(id);
+    }
+
+    private void stage(List<TaskLog.Entry> entries, TaskLog.Entry entry) {
+        entries.add(entry);
+        staged.put(entry.id(), entry);
+    }
+
+    private void publish(TaskLog.Entry entry) {
+        replay(entry);
+        staged.computeIfPresent(entry.id(), (id, latest) -> latest == entry ? null : latest);
+    }
+
+    @Override
+    public Mono<Task> insert(Task task) {
+        return write(entries -> {
+            initialiseVersion(task);
+            if (current(task.getId()) != null) {
+                throw new DuplicateTaskException("Task with ID " + task.getId() + " already exists.");
+            }
+            stage(entries, TaskLog.Entry.put(TaskCopies.copy(task)));
+            return task;
+        });
+    }
+
+    @Override
+    public Flux<TaskBatchResult> insertAll(List<Task> batch) {
+        return write(entries -> {
+            List<TaskBatchResult> results = new ArrayList<>(batch.size());
+            for (Task task : batch) {
+                initialiseVersion(task);
+                if (current(task.getId()) == null) {
+                    stage(entries, TaskLog.Entry.put(TaskCopies.copy(task)));
+                    results.add(TaskBatchResult.created(task.getId()));
+                } else {
+                    results.add(TaskBatchResult.duplicate(task.getId()));
+                }
+            }
+            return results;
+        }).flatMapIterable(results -> results);
+    }
+
+    private static void initialiseVersion(Task task) {
+        if (task.getVersion() == null) {
+            task.setVersion(0L);
+        }
+    }
+
+    @Override
+    public Mono<Task> findById(String id) {
+        return Mono.fromSupplier(() -> tasks.get(id));
+    }
+
+    @Override
+    public Mono<Task> findById(String id, int depth) {
+        return findById(id).map(task -> TaskTrees.limit(task, depth));
+    }
+
+    @Override
+    public Mono<SubTask> findSubTree(String id, List<Integer> path, int depth) {
+        return findById(id).mapNotNull(task -> TaskTrees.subTree(task, path, depth));
+    }
+
+    @Override
+    public Flux<Task> findByIds(Collection<String> ids) {
+        return Flux.defer(() -> Flux.fromStream(ids.stream().map(tasks::get).filter(Objects::nonNull)));
+    }
+
+    @Override
+    public Mono<Task> update(Task task) {
+        return write(entries -> modify(entries, task.getId(), task.getVersion(), current -> replaced(current, task)));
+    }
+
+    private static Task replaced(Task current, Task task) {
+        Task next = new Task();
+        next.setId(current.getId());
+        next.setTitle(task.getTitle());
+        next.setDescription(task.getDescription());
+        next.setSubTasks(TaskCopies.copy(task.getSubTasks()));
+        return next;
+    }
+
+    /**
+     * Updates the whole batch under one hold of the write lock, with a single log append.
+     */
+    @Override
+    public Flux<TaskBatchResult> updateAll(List<Task> batch) {
+        return write(entries -> {
+            List<TaskBatchResult> results = new ArrayList<>(batch.size());
+            for (Task task : batch) {
+                try {
+                    modify(entries, task.getId(), task.getVersion(), current -> replaced(current, task));
+                    results.add(TaskBatchResult.updated(task.getId()));
+                } catch (TaskNotFoundException e) {
+                    results.add(TaskBatchResult.notFound(task.getId()));
+                } catch (TaskVersionConflictException e) {
+                    results.add(TaskBatchResult.conflict(task.getId(), task.getVersion()));
+                }
+            }
+            return results;
+        }).flatMapIterable(results -> results);
+    }
+
+    @Override
+    public Mono<Task> patch(String id, Long expectedVersion, List<TaskPatchOperation> operations) {
+        return write(entries -> {
+            TaskPatch patch = TaskPatch.of(operations);
+            return modify(entries, id, expectedVersion, current -> {
+                Task next = TaskCopies.copy(current);
+                TaskUpdates.apply(next, patch.getUpdate());
+                if (patch.getCleanup() != null) {
+                    TaskUpdates.apply(next, patch.getCleanup());
+                }
+                return next;
+            });
+        });
+    }
+
+    /**
+     * Stages the task built from the current one, after checking the expected version. The change gets the
+     * current task, which it must not modify.
+     */
+    private Task modify(List<TaskLog.Entry> entries, String id, Long expectedVersion, UnaryOperator<Task> change) {
+        Task current = current(id);
+        if (current == null) {
+            throw new TaskNotFoundException("Task with ID " + id + " does not exist.");
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new TaskVersionConflictException("Task with ID " + id + " is no longer at version " + expectedVersion + ".");
+        }
+        Task next = change.apply(current);
+        next.setVersion(current.getVersion() == null ? 1L : current.getVersion() + 1);
+        stage(entries, TaskLog.Entry.put(next));
+        return next;
+    }
+
+    @Override
+    public Mono<Boolean> deleteById(String id) {
+        return write(entries -> {
+            boolean removed = current(id) != null;
+            if (removed) {
+                stage(entries, TaskLog.Entry.delete(id));
+            }
+            return removed;
+        });
+    }
+
+    @Override
+    public Flux<TaskBatchResult> deleteAll(List<String> ids) {
+        return write(entries -> {
+            List<TaskBatchResult> results = new ArrayList<>(ids.size());
+            for (String id : ids.stream().distinct().toList()) {
+                if (current(id) != null) {
+                    stage(entries, TaskLog.Entry.delete(id));
+                    results.add(TaskBatchResult.deleted(id));
+                } else {
+                    results.add(TaskBatchResult.notFound(id));
+                }
+            }
+            return results;
+        }).flatMapIterable(results -> results);
+    }
+
+    @Override
+    public Mono<Long> deleteMatching(TaskQuery query) {
+        return write(entries -> {
+            Predicate<Task> matcher = matcher(query);
+            List<Task> matches = new ArrayList<>();
+            // Copied first: an entry published meanwhile is then found in the copy, not also in the map.
+            Map<String, TaskLog.Entry> pending = new HashMap<>(staged);
+            for (TaskLog.Entry entry : pending.values()) {
+                if (entry.task() != null && matcher.test(entry.task())) {
+                    matches.add(entry.task());
+                }
+            }
+            for (Task task : tasks.values()) {
+                if (!pending.containsKey(task.getId()) && matcher.test(task)) {
+                    matches.add(task);
+                }
+            }
+            matches.forEach(task -> stage(entries, TaskLog.Entry.delete(task.getId())));
+            return (long) matches.size();
+        });
+    }
+
+    @Override
+    public Flux<Task> find(TaskQuery query) {
+        return Flux.defer(() -> {
+            Flux<Task> matches = Flux.fromIterable(range(query).values())
+                    .filter(matcher(query));
+            if (query.isLimited()) {
+                matches = matches.take(query.getLimit(), true);
+            }
+            if (query.getFields() != null && !query.getFields().isEmpty()) {
+                matches = matches.map(task -> project(task, query.getFields()));
+            }
+            return matches;
+        });
+    }
+
+    @Override
+    public String describe(TaskQuery query) {
+        StringBuilder description = new StringBuilder(query.isLimited() ? "range scan by id" : "full scan");
+        if (query.getText() != null) {
+            description.append(", filter on words");
+        }
+        if (query.getTitle() != null) {
+            description.append(", filter on title");
+        }
+        return description.toString();
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    private NavigableMap<String, Task> range(TaskQuery query) {
+        String after = query.getAfterId();
+        if (query.getDirection().isAscending()) {
+            return after == null ? tasks : tasks.tailMap(after, false);
+        }
+        return after == null ? tasks.descendingMap() : tasks.headMap(after, false).descendingMap();
+    }
+
+    /**
+     * Exact title, and any of the words appearing in the title or description, ignoring case. Unlike a
+     * Mongo text index, words are not stemmed, so "tasks" does not match "task".
+     */
+    private static Predicate<Task> matcher(TaskQuery query) {
+        Predicate<Task> matcher = task -> true;
+        if (query.getTitle() != null) {
+            matcher = matcher.and(task -> query.getTitle().equals(task.getTitle()));
+        }
+        if (query.getText() != null) {
+            Set<String> words = words(query.getText());
+            matcher = matcher.and(task -> containsAny(task.getTitle(), words) || containsAny(task.getDescription(), words));
+        }
+        return matcher;
+    }
+
+    private static boolean containsAny(String text, Set<String> words) {
+        return text != null && words(text).stream().anyMatch(words::contains);
+    }
+
+    private static Set<String> words(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    private static Task project(Task task, Collection<String> fields) {
+        Task projected = new Task();
+        projected.setId(task.getId());
+        if (fields.contains("title")) {
+            projected.setTitle(task.getTitle());
+        }
+        if (fields.contains("description")) {
+            projected.setDescription(task.getDescription());
+        }
+        if (fields.contains("subTasks")) {
+            projected.setSubTasks(task.getSubTasks());
+        }
+        return projected;
+    }
+
+    /**
+     * Starts a new log segment, writes every task to the snapshot, and deletes the segments before the new
+     * one. Writes made while the snapshot is written may or may not be in it; they are also in the new
+     * segment, whose entries are replayed over the snapshot, so either way they are restored.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (taskLog == null) {
+            throw new IllegalStateException("Snapshots need tasks.store.memory.data-dir");
+        }
+        CompletableFuture<Long> rotated;
+        writeLock.lock();
+        try {
+            rotated = taskLog.rotate();
+        } finally {
+            writeLock.unlock();
+        }
+        long fromSegment;
+        try {
+            fromSegment = rotated.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rotating the task log", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not rotate the task log", e.getCause());
+        }
+        TaskSnapshot.write(dataDirectory.resolve(SNAPSHOT_FILE), fromSegment, tasks.values());
+        taskLog.deleteSegmentsBefore(fromSegment);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            log.error("Could not write task snapshot to {}", dataDirectory, e);
+        }
+    }
+}
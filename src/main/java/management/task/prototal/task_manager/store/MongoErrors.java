@@ -0,0 +1,36 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+
+/**
+ * Helpers for inspecting driver errors after Spring has translated them into DataAccessExceptions.
+ * The translated exception keeps the driver exception as its cause.
+ */
+final class MongoErrors {
+
+    static final int CONFLICTING_UPDATE_OPERATORS = 40;
+
+    static final int DUPLICATE_KEY = 11000;
+
+    private MongoErrors() {
+    }
+
+    static boolean hasErrorCode(Throwable e, int code) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && mongoException.getCode() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static MongoBulkWriteException bulkWriteException(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException;
+            }
+        }
+        return null;
+    }
+}
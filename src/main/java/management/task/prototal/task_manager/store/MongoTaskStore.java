@@ -0,0 +1,436 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.DeleteResult;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * TaskStore on the tasks collection through ReactiveMongoTemplate. Reads go to the replica set members
+ * picked by TaskReadRouting, set on their query so they run through the injected template and keep its
+ * settings; writes, and the reads that check their outcome, go to the primary.
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.store", havingValue = "mongo", matchIfMissing = true)
+public class MongoTaskStore implements TaskStore {
+
+    /**
+     * Deepest level cut off by a projection in depth-limited reads. Deeper limits read the whole task.
+     */
+    private static final int MAX_PROJECTED_DEPTH = 64;
+
+    /**
+     * Task.writeToken, set by each updateAll to a token of its own.
+     */
+    static final String WRITE_TOKEN = "writeToken";
+
+    /**
+     * Patches removing sub-tasks without an expected version are reapplied after a concurrent write this many
+     * times.
+     */
+    private static final int PATCH_ATTEMPTS = 4;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final int streamBatchSize;
+
+    private final TaskReadRouting readRouting;
+
+    @Autowired
+    public MongoTaskStore(ReactiveMongoTemplate reactiveMongoTemplate,
+                          @Value("${tasks.stream.batch-size:256}") int streamBatchSize,
+                          TaskReadRouting readRouting) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.streamBatchSize = streamBatchSize;
+        this.readRouting = readRouting;
+    }
+
+    /**
+     * The query reading with the given preference. find and findOne apply it on top of the template's
+     * own settings (findById does not, so reads by id go through findOne). Primary leaves the query as
+     * it is, so the template's default applies.
+     */
+    static Query routed(Query query, ReadPreference readPreference) {
+        return TaskReadRouting.isPrimary(readPreference) ? query : query.withReadPreference(readPreference);
+    }
+
+    /**
+     * A single insert. A duplicate id is rejected by the _id unique index, which is atomic, unlike
+     * checking exists() first and then saving.
+     */
+    @Override
+    public Mono<Task> insert(Task task) {
+        readRouting.written(task.getId());
+        return reactiveMongoTemplate.insert(task)
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new DuplicateTaskException("Task with ID " + task.getId() + " already exists."));
+    }
+
+    /**
+     * One unordered bulk insert. Duplicates are detected by the _id unique index rather than a separate
+     * exists() query, so the batch costs a single round trip no matter how many of its tasks already exist.
+     */
+    @Override
+    public Flux<TaskBatchResult> insertAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            readRouting.written(task.getId());
+            // Bulk inserts skip the version initialisation that insert() does.
+            if (task.getVersion() == null) {
+                task.setVersion(0L);
+            }
+        }
+        return reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)
+                .insert(tasks)
+                .execute()
+                .map(result -> Map.<Integer, BulkWriteError>of())
+                // A failed bulk write is translated to DuplicateKeyException or BulkOperationException;
+                // either way the driver exception with the per-item errors is the cause.
+                .onErrorResume(e -> MongoErrors.bulkWriteException(e) != null,
+                        e -> Mono.just(errorsByIndex(MongoErrors.bulkWriteException(e))))
+                .flatMapIterable(errors -> toResults(tasks, errors));
+    }
+
+    static List<TaskBatchResult> toResults(List<Task> tasks, Map<Integer, BulkWriteError> errors) {
+        List<TaskBatchResult> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            String id = tasks.get(i).getId();
+            BulkWriteError error = errors.get(i);
+            if (error == null) {
+                results.add(TaskBatchResult.created(id));
+            } else if (error.getCode() == MongoErrors.DUPLICATE_KEY) {
+                results.add(TaskBatchResult.duplicate(id));
+            } else {
+                results.add(TaskBatchResult.invalid(id, error.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    static Map<Integer, BulkWriteError> errorsByIndex(MongoBulkWriteException e) {
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        for (BulkWriteError error : e.getWriteErrors()) {
+            errors.put(error.getIndex(), error);
+        }
+        return errors;
+    }
+
+    @Override
+    public Mono<Task> findById(String id) {
+        return reactiveMongoTemplate.findOne(routed(byId(id), readRouting.forId(id)), Task.class);
+    }
+
+    /**
+     * A single find that projects out the sub-tasks below depth + 1. The extra level is only read to
+     * count the sub-tasks that are left out.
+     */
+    @Override
+    public Mono<Task> findById(String id, int depth) {
+        Query query = belowLevel(byId(id), depth + 1);
+        return reactiveMongoTemplate.findOne(routed(query, readRouting.forId(id)), Task.class)
+                .map(task -> TaskTrees.limit(task, depth));
+    }
+
+    /**
+     * Like findById with a depth, cutting the projection below the sub-tree.
+     */
+    @Override
+    public Mono<SubTask> findSubTree(String id, List<Integer> path, int depth) {
+        Query query = belowLevel(byId(id), path.size() + depth + 1);
+        return reactiveMongoTemplate.findOne(routed(query, readRouting.forId(id)), Task.class)
+                .mapNotNull(task -> TaskTrees.subTree(task, path, depth));
+    }
+
+    private static Query belowLevel(Query query, int level) {
+        if (level < MAX_PROJECTED_DEPTH) {
+            query.fields().exclude(String.join(".", Collections.nCopies(level + 1, "subTasks")));
+        }
+        return query;
+    }
+
+    /**
+     * A single find on _id $in.
+     */
+    @Override
+    public Flux<Task> findByIds(Collection<String> ids) {
+        return reactiveMongoTemplate.find(routed(new Query(Criteria.where("_id").in(ids)), readRouting.forIds(ids)),
+                Task.class);
+    }
+
+    /**
+     * A single findAndModify that matches the id, and the version when the task carries one.
+     */
+    @Override
+    public Mono<Task> update(Task task) {
+        readRouting.written(task.getId());
+        return reactiveMongoTemplate.findAndModify(versionedQuery(task.getId(), task.getVersion()), replacement(task),
+                        FindAndModifyOptions.options().returnNew(true), Task.class)
+                .switchIfEmpty(Mono.defer(() -> notModified(task.getId(), task.getVersion())));
+    }
+
+    private static Update replacement(Task task) {
+        return new Update()
+                .set("title", task.getTitle())
+                .set("description", task.getDescription())
+                .set("subTasks", task.getSubTasks())
+                .inc("version", 1);
+    }
+
+    /**
+     * One unordered bulk write with an updateOne per id, each also setting a write token unique to the batch.
+     * An id sent twice is only written once, and its repeats are reported as invalid. When every task matched,
+     * that is the only round trip; otherwise a second query reads the tokens of the batch's ids to tell the
+     * tasks it updated from those that are gone or whose version moved on.
+     */
+    @Override
+    public Flux<TaskBatchResult> updateAll(List<Task> tasks) {
+        Map<String, Task> written = new LinkedHashMap<>();
+        tasks.forEach(task -> written.putIfAbsent(task.getId(), task));
+        ObjectId token = new ObjectId();
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class);
+        for (Task task : written.values()) {
+            readRouting.written(task.getId());
+            bulk.updateOne(versionedQuery(task.getId(), task.getVersion()), replacement(task).set(WRITE_TOKEN, token));
+        }
+        return bulk.execute()
+                .flatMap(result -> result.getMatchedCount() == written.size()
+                        ? Mono.<Function<Task, TaskBatchResult>>just(task -> TaskBatchResult.updated(task.getId()))
+                        : unmatched(written.keySet(), token))
+                .flatMapIterable(outcome -> tasks.stream()
+                        .map(task -> written.get(task.getId()) == task
+                                ? outcome.apply(task)
+                                : TaskBatchResult.invalid(task.getId(), "Task with ID " + task.getId() + " appears more than once in the batch."))
+                        .toList());
+    }
+
+    /**
+     * A task still carrying the batch's token was updated by it. If a later batch has replaced the token
+     * since, the task is reported as a conflict even though this batch's update was applied first; a lost
+     * update is never reported as updated.
+     */
+    private Mono<Function<Task, TaskBatchResult>> unmatched(Collection<String> ids, ObjectId token) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include(WRITE_TOKEN);
+        return reactiveMongoTemplate.find(query, Task.class)
+                .collectMap(Task::getId)
+                .map(stored -> task -> {
+                    Task current = stored.get(task.getId());
+                    if (current == null) {
+                        return TaskBatchResult.notFound(task.getId());
+                    }
+                    return token.equals(current.getWriteToken())
+                            ? TaskBatchResult.updated(task.getId())
+                            : TaskBatchResult.conflict(task.getId(), task.getVersion());
+                });
+    }
+
+    static Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
+    }
+
+    static Query versionedQuery(String id, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return new Query(criteria);
+    }
+
+    /**
+     * Works out why a versioned write matched nothing: the task is gone, or its version moved on.
+     */
+    Mono<Task> notModified(String id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.error(new TaskNotFoundException("Task with ID " + id + " does not exist."));
+        }
+        return reactiveMongoTemplate.exists(byId(id), Task.class)
+                .flatMap(exists -> Mono.error(exists
+                        ? new TaskVersionConflictException("Task with ID " + id + " is no longer at version " + expectedVersion + ".")
+                        : new TaskNotFoundException("Task with ID " + id + " does not exist.")));
+    }
+
+    /**
+     * A single findAndModify that only writes the patched paths, matching only while the sub-tasks it writes
+     * into exist. Patches that remove sub-tasks are applied to the task in memory instead and written back
+     * like update, against the version read, so the nulls Mongo's removal by index leaves are never stored.
+     */
+    @Override
+    public Mono<Task> patch(String id, Long expectedVersion, List<TaskPatchOperation> operations) {
+        TaskPatch patch;
+        try {
+            patch = TaskPatch.of(operations);
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+        readRouting.written(id);
+        if (patch.getCleanup() != null) {
+            return replacePatched(id, expectedVersion, patch);
+        }
+        Query query = versionedQuery(id, expectedVersion);
+        patch.getRequiredPaths().forEach(path -> query.addCriteria(Criteria.where(path).exists(true)));
+        return reactiveMongoTemplate.findAndModify(query, patch.getUpdate().inc("version", 1),
+                        FindAndModifyOptions.options().returnNew(true), Task.class)
+                .switchIfEmpty(Mono.defer(() -> notPatched(id, expectedVersion)))
+                .onErrorMap(e -> MongoErrors.hasErrorCode(e, MongoErrors.CONFLICTING_UPDATE_OPERATORS),
+                        e -> new InvalidTaskException("Patch operations conflict with each other"));
+    }
+
+    private Mono<Task> replacePatched(String id, Long expectedVersion, TaskPatch patch) {
+        Mono<Task> patched = Mono.defer(() -> reactiveMongoTemplate.findById(id, Task.class))
+                .switchIfEmpty(Mono.error(() -> new TaskNotFoundException("Task with ID " + id + " does not exist.")))
+                .flatMap(current -> {
+                    if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                        return Mono.error(new TaskVersionConflictException("Task with ID " + id + " is no longer at version " + expectedVersion + "."));
+                    }
+                    TaskUpdates.apply(current, patch.getUpdate());
+                    TaskUpdates.apply(current, patch.getCleanup());
+                    return update(current);
+                });
+        if (expectedVersion != null) {
+            return patched;
+        }
+        return patched.retryWhen(Retry.max(PATCH_ATTEMPTS - 1)
+                .filter(TaskVersionConflictException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Works out why a patch matched nothing: the task is gone, its version moved on, or a sub-task the patch
+     * writes into does not exist.
+     */
+    private Mono<Task> notPatched(String id, Long expectedVersion) {
+        Query query = byId(id);
+        query.fields().include("version");
+        return reactiveMongoTemplate.findOne(query, Task.class)
+                .switchIfEmpty(Mono.error(() -> new TaskNotFoundException("Task with ID " + id + " does not exist.")))
+                .flatMap(stored -> Mono.error(expectedVersion != null && !expectedVersion.equals(stored.getVersion())
+                        ? new TaskVersionConflictException("Task with ID " + id + " is no longer at version " + expectedVersion + ".")
+                        : new InvalidTaskException("Patch refers to a sub-task that does not exist")));
+    }
+
+    @Override
+    public Mono<Boolean> deleteById(String id) {
+        readRouting.written(id);
+        return reactiveMongoTemplate.remove(byId(id), Task.class)
+                .defaultIfEmpty(DeleteResult.unacknowledged())
+                .flatMap(deleteResult -> {
+                    if (deleteResult.getDeletedCount() > 0) {
+                        return Mono.just(true);
+                    } else {
+                        return Mono.just(false);
+                    }
+                });
+    }
+
+    /**
+     * A single remove on _id $in over the distinct ids, which is the only round trip.
+     */
+    @Override
+    public Flux<TaskBatchResult> deleteAll(List<String> ids) {
+        List<String> distinct = ids.stream().distinct().toList();
+        readRouting.written(distinct);
+        return reactiveMongoTemplate.remove(new Query(Criteria.where("_id").in(distinct)), Task.class)
+                .flatMapIterable(result -> removed(distinct, result.getDeletedCount()));
+    }
+
+    /**
+     * Results for a remove of distinct ids that deleted the given number of tasks. A remove only counts what
+     * it deleted, so when some ids were missing but not all, nothing left in the collection can tell them from
+     * the deleted ones, and the missing ones are reported without an id.
+     */
+    static List<TaskBatchResult> removed(List<String> ids, long deletedCount) {
+        if (deletedCount == ids.size()) {
+            return ids.stream().map(TaskBatchResult::deleted).toList();
+        }
+        if (deletedCount == 0) {
+            return ids.stream().map(TaskBatchResult::notFound).toList();
+        }
+        List<TaskBatchResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            results.add(i < deletedCount ? TaskBatchResult.deleted(null) : TaskBatchResult.notFoundAmongOthers());
+        }
+        return results;
+    }
+
+    /**
+     * A single remove with the query's filter.
+     */
+    @Override
+    public Mono<Long> deleteMatching(TaskQuery query) {
+        readRouting.writtenMatching();
+        return reactiveMongoTemplate.remove(toQuery(query), Task.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    /**
+     * The cursor fetches tasks.stream.batch-size documents per getMore and only asks for the next batch
+     * once downstream has requested it, so a slow client holds back the cursor instead of tasks piling up
+     * on the heap. Limited queries page on _id, so each page is a single indexed range scan, or a walk of
+     * the title_id index when filtering by title.
+     */
+    @Override
+    public Flux<Task> find(TaskQuery query) {
+        return reactiveMongoTemplate.find(routed(toQuery(query), readRouting.forQuery(query)), Task.class)
+                .limitRate(streamBatchSize);
+    }
+
+    @Override
+    public String describe(TaskQuery query) {
+        return QueryShape.of(toQuery(query));
+    }
+
+    Query toQuery(TaskQuery taskQuery) {
+        Query query = taskQuery.getText() == null
+                ? new Query()
+                : TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(taskQuery.getText()));
+        if (taskQuery.getTitle() != null) {
+            query.addCriteria(Criteria.where("title").is(taskQuery.getTitle()));
+        }
+        if (taskQuery.getAfterId() != null) {
+            Criteria id = Criteria.where("_id");
+            query.addCriteria(taskQuery.getDirection().isAscending() ? id.gt(taskQuery.getAfterId()) : id.lt(taskQuery.getAfterId()));
+        }
+        if (taskQuery.isLimited()) {
+            query.with(Sort.by(taskQuery.getDirection(), "_id")).limit(taskQuery.getLimit());
+        }
+        if (taskQuery.getFields() != null && !taskQuery.getFields().isEmpty()) {
+            query.fields().include(taskQuery.getFields().toArray(new String[0]));
+        }
+        return query.cursorBatchSize(streamBatchSize);
+    }
+}
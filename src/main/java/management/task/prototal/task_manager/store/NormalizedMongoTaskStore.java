@@ -0,0 +1,547 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.bulk.BulkWriteError;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * TaskStore that keeps sub-tasks out of the task document, for task trees too large to read or write as
+ * one document. The tasks collection holds the task's own fields, the number of its sub-tasks and the
+ * revision of its tree; every sub-task is a SubTaskNode in the subTasks collection, tagged with the
+ * revision it belongs to. Reading a task without its sub-tasks (depth 0, getAll, getPage, search) reads
+ * the task document alone, however large the tree.
+ *
+ * A standalone mongod has no multi-document transactions, so the task document is the commit point. A
+ * write inserts the new tree under a fresh revision, switches the task to it with a single findAndModify
+ * that checks the version like MongoTaskStore, and only then deletes the previous revision. Reads of
+ * sub-tasks check afterwards that the task still names the revision they read, and start over if a write
+ * replaced it in the meantime. A write that fails after inserting its tree but before the switch leaves
+ * an unreferenced revision behind, which is never read and is deleted with the task.
+ *
+ * Every write rewrites the whole tree. Patches are applied to the tree read from the store.
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.store", havingValue = "mongo-normalized")
+public class NormalizedMongoTaskStore implements TaskStore {
+
+    private static final String TASKS = "tasks";
+
+    private static final String REVISION = "subTaskRevision";
+
+    private static final String COUNT = "subTaskCount";
+
+    private static final String PATH_PADDING = "000000";
+
+    private static final int MAX_SUB_TASKS = 1_000_000;
+
+    /**
+     * Reads that keep racing writes to the same task give up after this many attempts.
+     */
+    private static final int READ_ATTEMPTS = 4;
+
+    /**
+     * Patches without an expected version are reapplied after a concurrent write this many times.
+     */
+    private static final int PATCH_ATTEMPTS = 4;
+
+    private static final int WRITE_CONCURRENCY = 8;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    /**
+     * Runs queries over the task documents, which have the same fields as embedded tasks.
+     */
+    private final MongoTaskStore taskDocuments;
+
+    /**
+     * Only find follows readRouting. Reads by id go to the primary, where the task and the sub-task revision
+     * it names are read from the same node.
+     */
+    @Autowired
+    public NormalizedMongoTaskStore(ReactiveMongoTemplate reactiveMongoTemplate,
+                                    @Value("${tasks.stream.batch-size:256}") int streamBatchSize,
+                                    TaskReadRouting readRouting) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.taskDocuments = new MongoTaskStore(reactiveMongoTemplate, streamBatchSize, readRouting);
+    }
+
+    /**
+     * Inserts the sub-tasks, then the task document. If the id is taken, the sub-tasks are deleted again.
+     */
+    @Override
+    public Mono<Task> insert(Task task) {
+        String revision = newRevision();
+        List<SubTaskNode> nodes;
+        try {
+            nodes = nodes(task.getId(), revision, task.getSubTasks());
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+        initialiseVersion(task);
+        return insertNodes(nodes)
+                .then(reactiveMongoTemplate.insert(taskDocument(task, revision), TASKS))
+                .thenReturn(task)
+                .onErrorResume(DuplicateKeyException.class, e -> discard(task.getId(), revision)
+                        .then(Mono.error(new DuplicateTaskException("Task with ID " + task.getId() + " already exists."))));
+    }
+
+    /**
+     * One insert of the sub-tasks of the whole batch, then one unordered bulk insert of the task documents.
+     * The sub-tasks of tasks reported as duplicates are deleted again with a single remove.
+     */
+    @Override
+    public Flux<TaskBatchResult> insertAll(List<Task> tasks) {
+        List<String> revisions = new ArrayList<>(tasks.size());
+        List<SubTaskNode> nodes = new ArrayList<>();
+        List<Document> documents = new ArrayList<>(tasks.size());
+        try {
+            for (Task task : tasks) {
+                String revision = newRevision();
+                initialiseVersion(task);
+                nodes.addAll(nodes(task.getId(), revision, task.getSubTasks()));
+                documents.add(taskDocument(task, revision));
+                revisions.add(revision);
+            }
+        } catch (InvalidTaskException e) {
+            return Flux.error(e);
+        }
+        return insertNodes(nodes)
+                .then(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TASKS)
+                        .insert(documents)
+                        .execute())
+                .map(result -> Map.<Integer, BulkWriteError>of())
+                .onErrorResume(e -> MongoErrors.bulkWriteException(e) != null,
+                        e -> Mono.just(MongoTaskStore.errorsByIndex(MongoErrors.bulkWriteException(e))))
+                .flatMap(errors -> errors.isEmpty()
+                        ? Mono.just(errors)
+                        : discard(errors.keySet().stream().map(i -> tasks.get(i).getId()).toList(),
+                                errors.keySet().stream().map(revisions::get).toList()).thenReturn(errors))
+                .flatMapIterable(errors -> MongoTaskStore.toResults(tasks, errors));
+    }
+
+    private static void initialiseVersion(Task task) {
+        if (task.getVersion() == null) {
+            task.setVersion(0L);
+        }
+    }
+
+    @Override
+    public Mono<Task> findById(String id) {
+        return findById(id, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the task document, then, unless depth is 0, the sub-tasks of its revision down to depth in a
+     * single range scan ordered by path, and checks that the revision is still current.
+     */
+    @Override
+    public Mono<Task> findById(String id, int depth) {
+        return consistentRead(() -> findTaskDocument(id).flatMap(document -> {
+            Task task = toTask(document);
+            if (depth == 0 || task.getSubTaskCount() == null) {
+                return Mono.just(task);
+            }
+            String revision = document.getString(REVISION);
+            return findNodes(id, revision, null, depth)
+                    .flatMap(nodes -> checkRevision(id, revision).thenReturn(withSubTasks(task, nodes, depth)));
+        }));
+    }
+
+    /**
+     * Like findById with a depth, reading only the range of paths under the sub-tree.
+     */
+    @Override
+    public Mono<SubTask> findSubTree(String id, List<Integer> path, int depth) {
+        if (path.stream().anyMatch(index -> index >= MAX_SUB_TASKS)) {
+            return Mono.empty();
+        }
+        String nodePath = path.stream().map(NormalizedMongoTaskStore::segment).collect(Collectors.joining("."));
+        int deepest = deepest(path.size(), depth);
+        return consistentRead(() -> findTaskDocument(id).flatMap(document -> {
+            Integer count = toTask(document).getSubTaskCount();
+            if (count == null || path.get(0) >= count) {
+                return Mono.empty();
+            }
+            String revision = document.getString(REVISION);
+            return findNodes(id, revision, nodePath, deepest)
+                    .flatMap(nodes -> checkRevision(id, revision)
+                            .then(Mono.justOrEmpty(nodes.isEmpty() ? null : tree(nodes, path.size() - 1, deepest).get(0))));
+        }));
+    }
+
+    /**
+     * One find of the task documents and one of the sub-tasks of all their revisions. Tasks whose revision
+     * changed before the check are read again on their own.
+     */
+    @Override
+    public Flux<Task> findByIds(Collection<String> ids) {
+        return reactiveMongoTemplate.find(new Query(Criteria.where("_id").in(ids)), Document.class, TASKS)
+                .collectList()
+                .flatMapMany(documents -> {
+                    List<Task> tasks = new ArrayList<>(documents.size());
+                    Map<String, String> revisions = new HashMap<>();
+                    for (Document document : documents) {
+                        Task task = toTask(document);
+                        if (task.getSubTaskCount() != null) {
+                            revisions.put(task.getId(), document.getString(REVISION));
+                        }
+                        tasks.add(task);
+                    }
+                    if (revisions.isEmpty()) {
+                        return Flux.fromIterable(tasks);
+                    }
+                    Query nodes = new Query(Criteria.where("taskId").in(revisions.keySet()).and("revision").in(revisions.values()))
+                            .with(Sort.by("taskId", "revision", "path"));
+                    return reactiveMongoTemplate.find(nodes, SubTaskNode.class)
+                            .filter(node -> node.getRevision().equals(revisions.get(node.getTaskId())))
+                            .collectMultimap(SubTaskNode::getTaskId)
+                            .zipWith(currentRevisions(revisions.keySet()))
+                            .flatMapMany(read -> Flux.fromIterable(tasks).concatMap(task -> {
+                                String revision = revisions.get(task.getId());
+                                if (revision == null) {
+                                    return Mono.just(task);
+                                }
+                                if (!revision.equals(read.getT2().get(task.getId()))) {
+                                    return findById(task.getId());
+                                }
+                                return Mono.just(withSubTasks(task, read.getT1().getOrDefault(task.getId(), List.of()), Integer.MAX_VALUE));
+                            }));
+                });
+    }
+
+    private Mono<Map<String, String>> currentRevisions(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include(REVISION);
+        return reactiveMongoTemplate.find(query, Document.class, TASKS)
+                .collectMap(document -> document.get("_id").toString(), document -> document.getString(REVISION));
+    }
+
+    /**
+     * Inserts the new tree, then switches the task to it with a findAndModify that matches the id, and the
+     * version when the task carries one. The previous tree is deleted after the switch, or the new one if
+     * nothing matched.
+     */
+    @Override
+    public Mono<Task> update(Task task) {
+        String revision = newRevision();
+        List<SubTaskNode> nodes;
+        try {
+            nodes = nodes(task.getId(), revision, task.getSubTasks());
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+        Update update = new Update()
+                .set("title", task.getTitle())
+                .set("description", task.getDescription())
+                .set(REVISION, revision)
+                .inc("version", 1);
+        if (nodes.isEmpty()) {
+            update.unset(COUNT);
+        } else {
+            update.set(COUNT, count(task.getSubTasks()));
+        }
+        return insertNodes(nodes)
+                .then(reactiveMongoTemplate.findAndModify(MongoTaskStore.versionedQuery(task.getId(), task.getVersion()),
+                        update, Document.class, TASKS))
+                .flatMap(previous -> discard(task.getId(), previous.getString(REVISION))
+                        .thenReturn(updated(task, toTask(previous).getVersion())))
+                .switchIfEmpty(Mono.defer(() -> discard(task.getId(), revision)
+                        .then(taskDocuments.notModified(task.getId(), task.getVersion()))));
+    }
+
+    private static Task updated(Task task, Long previousVersion) {
+        Task updated = TaskCopies.copy(task);
+        updated.setVersion(previousVersion == null ? 1L : previousVersion + 1);
+        return updated;
+    }
+
+    /**
+     * Reads the whole task, applies the patch in memory and writes it back like update, against the version
+     * it read. Without an expected version, a write that gets in between is not a conflict: the patch is
+     * applied again to the task that write left.
+     */
+    @Override
+    public Mono<Task> patch(String id, Long expectedVersion, List<TaskPatchOperation> operations) {
+        TaskPatch patch;
+        try {
+            patch = TaskPatch.of(operations);
+        } catch (InvalidTaskException e) {
+            return Mono.error(e);
+        }
+        Mono<Task> patched = Mono.defer(() -> findById(id))
+                .switchIfEmpty(Mono.error(() -> new TaskNotFoundException("Task with ID " + id + " does not exist.")))
+                .flatMap(current -> {
+                    if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                        return Mono.error(new TaskVersionConflictException("Task with ID " + id + " is no longer at version " + expectedVersion + "."));
+                    }
+                    TaskUpdates.apply(current, patch.getUpdate());
+                    if (patch.getCleanup() != null) {
+                        TaskUpdates.apply(current, patch.getCleanup());
+                    }
+                    return update(current);
+                });
+        if (expectedVersion != null) {
+            return patched;
+        }
+        return patched.retryWhen(Retry.max(PATCH_ATTEMPTS - 1)
+                .filter(TaskVersionConflictException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Updates the tasks like update, WRITE_CONCURRENCY at a time.
+     */
+    @Override
+    public Flux<TaskBatchResult> updateAll(List<Task> tasks) {
+        return Flux.fromIterable(tasks)
+                .flatMapSequential(task -> update(task)
+                        .map(updated -> TaskBatchResult.updated(task.getId()))
+                        .onErrorResume(TaskNotFoundException.class, e -> Mono.just(TaskBatchResult.notFound(task.getId())))
+                        .onErrorResume(TaskVersionConflictException.class,
+                                e -> Mono.just(TaskBatchResult.conflict(task.getId(), task.getVersion())))
+                        .onErrorResume(InvalidTaskException.class,
+                                e -> Mono.just(TaskBatchResult.invalid(task.getId(), e.getMessage()))), WRITE_CONCURRENCY);
+    }
+
+    @Override
+    public Mono<Boolean> deleteById(String id) {
+        return reactiveMongoTemplate.remove(MongoTaskStore.byId(id), TASKS)
+                .flatMap(result -> result.getDeletedCount() > 0
+                        ? discardAll(List.of(id)).thenReturn(true)
+                        : Mono.just(false));
+    }
+
+    /**
+     * Removes the task documents of the distinct ids with one remove, then their sub-tasks with another,
+     * reporting like MongoTaskStore.deleteAll.
+     */
+    @Override
+    public Flux<TaskBatchResult> deleteAll(List<String> ids) {
+        List<String> distinct = ids.stream().distinct().toList();
+        return delete(distinct)
+                .flatMapIterable(deleted -> MongoTaskStore.removed(distinct, deleted));
+    }
+
+    /**
+     * Reads the ids of the matching tasks, then deletes them like deleteAll.
+     */
+    @Override
+    public Mono<Long> deleteMatching(TaskQuery query) {
+        Query matching = taskDocuments.toQuery(query);
+        matching.fields().include("_id");
+        return reactiveMongoTemplate.find(matching, Document.class, TASKS)
+                .map(document -> document.get("_id").toString())
+                .collectList()
+                .flatMap(found -> found.isEmpty() ? Mono.just(0L) : delete(found));
+    }
+
+    private Mono<Long> delete(Collection<String> ids) {
+        return reactiveMongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), TASKS)
+                .flatMap(result -> discardAll(ids).thenReturn(result.getDeletedCount()));
+    }
+
+    /**
+     * Reads task documents only, so tasks come back without sub-tasks and with subTaskCount.
+     */
+    @Override
+    public Flux<Task> find(TaskQuery query) {
+        return taskDocuments.find(query);
+    }
+
+    @Override
+    public String describe(TaskQuery query) {
+        return taskDocuments.describe(query);
+    }
+
+    private Mono<Document> findTaskDocument(String id) {
+        return reactiveMongoTemplate.findById(id, Document.class, TASKS);
+    }
+
+    private Task toTask(Document document) {
+        return reactiveMongoTemplate.getConverter().read(Task.class, document);
+    }
+
+    private Document taskDocument(Task task, String revision) {
+        Task stored = new Task();
+        stored.setId(task.getId());
+        stored.setTitle(task.getTitle());
+        stored.setDescription(task.getDescription());
+        stored.setVersion(task.getVersion());
+        stored.setSubTasks(null);
+        stored.setSubTaskCount(count(task.getSubTasks()));
+        Document document = new Document();
+        reactiveMongoTemplate.getConverter().write(stored, document);
+        document.put(REVISION, revision);
+        return document;
+    }
+
+    /**
+     * The sub-tasks of a revision, ordered by path, down to depth levels below path (or below the task
+     * when path is null).
+     */
+    private Mono<List<SubTaskNode>> findNodes(String taskId, String revision, String path, int deepest) {
+        Criteria criteria = Criteria.where("taskId").is(taskId).and("revision").is(revision);
+        if (path != null) {
+            criteria = criteria.and("path").gte(path).lt(path + "/");
+        }
+        if (deepest < Integer.MAX_VALUE) {
+            criteria = criteria.and("depth").lte(deepest);
+        }
+        return reactiveMongoTemplate.find(new Query(criteria).with(Sort.by("path")), SubTaskNode.class)
+                .collectList();
+    }
+
+    private Mono<Void> checkRevision(String id, String revision) {
+        return reactiveMongoTemplate.exists(new Query(Criteria.where("_id").is(id).and(REVISION).is(revision)), TASKS)
+                .flatMap(current -> current ? Mono.<Void>empty() : Mono.error(new StaleReadException(id)));
+    }
+
+    private static <T> Mono<T> consistentRead(Supplier<Mono<T>> read) {
+        return Mono.defer(read)
+                .retryWhen(Retry.max(READ_ATTEMPTS - 1)
+                        .filter(StaleReadException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static Task withSubTasks(Task task, Collection<SubTaskNode> nodes, int depth) {
+        task.setSubTasks(tree(nodes, 0, depth));
+        task.setSubTaskCount(null);
+        return task;
+    }
+
+    /**
+     * Rebuilds the tree from sub-tasks ordered by path, where the shallowest are at baseDepth + 1.
+     * Sub-tasks at deepest keep the number of their own sub-tasks, which were not read.
+     */
+    private static List<SubTask> tree(Collection<SubTaskNode> nodes, int baseDepth, int deepest) {
+        List<SubTask> top = new ArrayList<>();
+        // The lists the next sub-task can go in, from the top down to the sub-tasks of the previous one.
+        List<List<SubTask>> open = new ArrayList<>();
+        open.add(top);
+        for (SubTaskNode node : nodes) {
+            int level = node.getDepth() - baseDepth;
+            while (open.size() > level) {
+                open.remove(open.size() - 1);
+            }
+            SubTask subTask = new SubTask();
+            subTask.setTitle(node.getTitle());
+            subTask.setDescription(node.getDescription());
+            if (node.getDepth() == deepest && node.getSubTaskCount() > 0) {
+                subTask.setSubTaskCount(node.getSubTaskCount());
+            }
+            open.get(level - 1).add(subTask);
+            open.add(subTask.getSubTasks());
+        }
+        return top;
+    }
+
+    private static List<SubTaskNode> nodes(String taskId, String revision, List<SubTask> subTasks) {
+        List<SubTaskNode> nodes = new ArrayList<>();
+        addNodes(nodes, taskId, revision, subTasks, null, 1);
+        return nodes;
+    }
+
+    private static void addNodes(List<SubTaskNode> nodes, String taskId, String revision, List<SubTask> subTasks,
+                                 String parentPath, int depth) {
+        List<SubTask> present = present(subTasks);
+        if (present.size() > MAX_SUB_TASKS) {
+            throw new InvalidTaskException("A task or sub-task can have at most " + MAX_SUB_TASKS + " sub-tasks");
+        }
+        for (int i = 0; i < present.size(); i++) {
+            SubTask subTask = present.get(i);
+            String path = parentPath == null ? segment(i) : parentPath + "." + segment(i);
+            SubTaskNode node = new SubTaskNode();
+            node.setTaskId(taskId);
+            node.setRevision(revision);
+            node.setPath(path);
+            node.setDepth(depth);
+            node.setTitle(subTask.getTitle());
+            node.setDescription(subTask.getDescription());
+            node.setSubTaskCount(present(subTask.getSubTasks()).size());
+            nodes.add(node);
+            addNodes(nodes, taskId, revision, subTask.getSubTasks(), path, depth + 1);
+        }
+    }
+
+    private static List<SubTask> present(List<SubTask> subTasks) {
+        if (subTasks == null) {
+            return List.of();
+        }
+        return subTasks.stream().filter(subTask -> subTask != null).toList();
+    }
+
+    private static Integer count(List<SubTask> subTasks) {
+        int count = present(subTasks).size();
+        return count == 0 ? null : count;
+    }
+
+    private static String segment(int index) {
+        String digits = Integer.toString(index);
+        return PATH_PADDING.substring(digits.length()) + digits;
+    }
+
+    private static int deepest(int baseDepth, int depth) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) baseDepth + depth);
+    }
+
+    private static String newRevision() {
+        return new ObjectId().toHexString();
+    }
+
+    private Mono<Void> insertNodes(List<SubTaskNode> nodes) {
+        return nodes.isEmpty() ? Mono.empty() : reactiveMongoTemplate.insertAll(nodes).then();
+    }
+
+    private Mono<Void> discard(String taskId, String revision) {
+        return revision == null ? Mono.empty() : discard(List.of(taskId), List.of(revision));
+    }
+
+    private Mono<Void> discard(List<String> taskIds, List<String> revisions) {
+        return reactiveMongoTemplate.remove(new Query(Criteria.where("taskId").in(taskIds).and("revision").in(revisions)),
+                SubTaskNode.class).then();
+    }
+
+    private Mono<Void> discardAll(Collection<String> taskIds) {
+        return reactiveMongoTemplate.remove(new Query(Criteria.where("taskId").in(taskIds)), SubTaskNode.class).then();
+    }
+
+    /**
+     * The task was given a new tree while its sub-tasks were being read.
+     */
+    private static final class StaleReadException extends RuntimeException {
+
+        StaleReadException(String id) {
+            super("Task with ID " + id + " kept changing while its sub-tasks were read.");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package management.task.prototal.task_manager.store;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Renders a query with its values replaced by "?", so queries that differ only in their arguments
+ * log the same way and ids or task contents don't end up in the logs.
+ */
+final class QueryShape {
+
+    private static final String MASK = "?";
+
+    private static final Set<String> LOGICAL_OPERATORS = Set.of("$and", "$or", "$nor");
+
+    private QueryShape() {
+    }
+
+    static String of(Query query) {
+        StringBuilder shape = new StringBuilder("filter=").append(mask(query.getQueryObject()).toJson());
+        if (!query.getSortObject().isEmpty()) {
+            shape.append(" sort=").append(query.getSortObject().toJson());
+        }
+        if (!query.getFieldsObject().isEmpty()) {
+            shape.append(" projection=").append(query.getFieldsObject().toJson());
+        }
+        if (query.isLimited()) {
+            shape.append(" limit=").append(query.getLimit());
+        }
+        return shape.toString();
+    }
+
+    /**
+     * Keeps field names and operators, masks every value. Arrays are masked whole, since their length
+     * varies with the arguments, except the clauses of $and, $or and $nor.
+     */
+    private static Document mask(Document document) {
+        Document masked = new Document();
+        document.forEach((key, value) -> masked.put(key, maskValue(key, value)));
+        return masked;
+    }
+
+    private static Object maskValue(String key, Object value) {
+        if (value instanceof Document nested && (key.startsWith("$") || isOperators(nested))) {
+            return mask(nested);
+        }
+        if (LOGICAL_OPERATORS.contains(key) && value instanceof List<?> clauses) {
+            return clauses.stream()
+                    .map(clause -> clause instanceof Document document ? mask(document) : MASK)
+                    .toList();
+        }
+        return MASK;
+    }
+
+    private static boolean isOperators(Document document) {
+        return !document.isEmpty() && document.keySet().stream().allMatch(key -> key.startsWith("$"));
+    }
+}
@@ -0,0 +1,44 @@
+package management.task.prototal.task_manager.store;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A sub-task stored on its own by NormalizedMongoTaskStore, one document per sub-task.
+ *
+ * path is the materialized path of the sub-task: its index in each list from the task down, zero-padded
+ * and joined with dots, such as 000001.000000. Sorting by path lists a tree depth first, parents before
+ * their sub-tasks, and a sub-tree is the range from its path up to its path followed by "/", the
+ * character after the dot. The index serves every read of a tree or sub-tree, filtering on depth without
+ * fetching the documents it leaves out.
+ */
+@Data
+@Document(collection = "subTasks")
+@CompoundIndex(name = "taskId_revision_path_depth", def = "{'taskId': 1, 'revision': 1, 'path': 1, 'depth': 1}")
+public class SubTaskNode {
+
+    @Id
+    private String id;
+
+    private String taskId;
+
+    /**
+     * The tree this sub-task belongs to. Only the revision named by the task document is visible.
+     */
+    private String revision;
+
+    private String path;
+
+    /**
+     * 1 for the task's own sub-tasks.
+     */
+    private int depth;
+
+    private String title;
+
+    private String description;
+
+    private int subTaskCount;
+}
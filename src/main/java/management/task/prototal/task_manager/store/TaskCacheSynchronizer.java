@@ -0,0 +1,179 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.service.TaskCache;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the local TaskCache coherent with writes made by other nodes by following a change stream on
+ * the tasks collection. The last resume token is saved periodically so a restarted node picks up where
+ * it left off. Change streams need a replica set; on a standalone mongod the cache falls back to
+ * TTL-only expiry.
+ */
+@Component
+@ConditionalOnExpression("'${tasks.store:mongo}' == 'mongo' and ${tasks.cache.change-stream.enabled:false}")
+public class TaskCacheSynchronizer {
+
+    static final String RESUME_TOKEN_COLLECTION = "taskCacheResumeTokens";
+
+    private static final Logger log = LoggerFactory.getLogger(TaskCacheSynchronizer.class);
+
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final TaskCache taskCache;
+
+    private final String nodeId;
+
+    private final Duration tokenFlushInterval;
+
+    private final AtomicReference<BsonValue> resumeToken = new AtomicReference<>();
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    private volatile BsonValue savedToken;
+
+    public TaskCacheSynchronizer(ReactiveMongoTemplate reactiveMongoTemplate, TaskCache taskCache,
+                                 @Value("${tasks.cache.change-stream.node-id:${HOSTNAME:task_manager}}") String nodeId,
+                                 @Value("${tasks.cache.change-stream.token-flush-interval:5s}") Duration tokenFlushInterval) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.taskCache = taskCache;
+        this.nodeId = nodeId;
+        this.tokenFlushInterval = tokenFlushInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Flux<ChangeStreamEvent<Task>> events = Flux.defer(this::changes)
+                .doOnNext(this::apply)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .filter(e -> !MongoErrors.hasErrorCode(e, CHANGE_STREAM_NOT_SUPPORTED))
+                        .doBeforeRetry(signal -> log.warn("Task change stream failed, resuming", signal.failure())));
+
+        subscriptions.add(loadResumeToken()
+                .thenMany(events)
+                .subscribe(event -> { }, e -> log.warn("Task change stream unavailable, the task cache falls back"
+                        + " to TTL-only expiry: {}", e.getMessage())));
+        subscriptions.add(Flux.interval(tokenFlushInterval)
+                .concatMap(tick -> saveResumeToken())
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+        saveResumeToken().block(Duration.ofSeconds(5));
+    }
+
+    private Flux<ChangeStreamEvent<Task>> changes() {
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                .returnFullDocumentOnUpdate();
+        BsonValue token = resumeToken.get();
+        if (token != null) {
+            options.resumeAfter(token);
+        }
+        return reactiveMongoTemplate.changeStream(reactiveMongoTemplate.getCollectionName(Task.class),
+                        options.build(), Task.class)
+                .doOnError(e -> MongoErrors.hasErrorCode(e, CHANGE_STREAM_HISTORY_LOST), e -> {
+                    // The token is older than the oplog, so changes were missed and nothing cached can be trusted.
+                    resumeToken.set(null);
+                    taskCache.invalidateAll();
+                });
+    }
+
+    private void apply(ChangeStreamEvent<Task> event) {
+        BsonValue documentKey = event.getRaw() == null || event.getRaw().getDocumentKey() == null
+                ? null : event.getRaw().getDocumentKey().get("_id");
+        apply(event.getOperationType(), documentKey == null ? null : idOf(documentKey), event.getBody());
+        if (event.getResumeToken() != null) {
+            resumeToken.set(event.getResumeToken());
+        }
+    }
+
+    void apply(OperationType operationType, String id, Task body) {
+        if (operationType == null) {
+            return;
+        }
+        switch (operationType) {
+            case INSERT, UPDATE, REPLACE -> {
+                if (body != null && body.getId() != null) {
+                    taskCache.replaceIfPresent(body);
+                } else if (id != null) {
+                    taskCache.invalidate(id);
+                }
+            }
+            case DELETE -> {
+                if (id != null) {
+                    taskCache.invalidate(id);
+                }
+            }
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> taskCache.invalidateAll();
+            default -> { }
+        }
+    }
+
+    private Mono<Void> loadResumeToken() {
+        return reactiveMongoTemplate.findById(nodeId, Document.class, RESUME_TOKEN_COLLECTION)
+                .doOnNext(document -> {
+                    BsonValue token = BsonDocument.parse(document.getString("token"));
+                    resumeToken.compareAndSet(null, token);
+                    savedToken = token;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not load the task change stream resume token", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> saveResumeToken() {
+        BsonValue token = resumeToken.get();
+        if (token == null || token.equals(savedToken)) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.upsert(Query.query(Criteria.where("_id").is(nodeId)),
+                        Update.update("token", token.asDocument().toJson()), RESUME_TOKEN_COLLECTION)
+                .doOnSuccess(result -> savedToken = token)
+                .onErrorResume(e -> {
+                    log.warn("Could not save the task change stream resume token", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of a task for the log and snapshots of InMemoryTaskStore: strings as a length and
+ * UTF-8 bytes (-1 for null), the version as a long (-1 for none), and sub-tasks as a count followed by
+ * each sub-task in turn.
+ */
+final class TaskCodec {
+
+    private TaskCodec() {
+    }
+
+    static void write(DataOutput out, Task task) throws IOException {
+        writeString(out, task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        out.writeLong(task.getVersion() == null ? -1 : task.getVersion());
+        writeSubTasks(out, task.getSubTasks());
+    }
+
+    static Task read(ByteBuffer in) {
+        Task task = new Task();
+        task.setId(readString(in));
+        task.setTitle(readString(in));
+        task.setDescription(readString(in));
+        long version = in.getLong();
+        task.setVersion(version < 0 ? null : version);
+        task.setSubTasks(readSubTasks(in));
+        return task;
+    }
+
+    private static void writeSubTasks(DataOutput out, List<SubTask> subTasks) throws IOException {
+        if (subTasks == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(subTasks.size());
+        for (SubTask subTask : subTasks) {
+            writeString(out, subTask.getTitle());
+            writeString(out, subTask.getDescription());
+            writeSubTasks(out, subTask.getSubTasks());
+        }
+    }
+
+    private static List<SubTask> readSubTasks(ByteBuffer in) {
+        int count = in.getInt();
+        List<SubTask> subTasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SubTask subTask = new SubTask();
+            subTask.setTitle(readString(in));
+            subTask.setDescription(readString(in));
+            subTask.setSubTasks(readSubTasks(in));
+            subTasks.add(subTask);
+        }
+        return subTasks;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deep copies of tasks, for stores that keep tasks on the heap and must not share them with callers.
+ */
+final class TaskCopies {
+
+    private TaskCopies() {
+    }
+
+    static Task copy(Task task) {
+        Task copy = new Task();
+        copy.setId(task.getId());
+        copy.setTitle(task.getTitle());
+        copy.setDescription(task.getDescription());
+        copy.setSubTasks(copy(task.getSubTasks()));
+        copy.setVersion(task.getVersion());
+        return copy;
+    }
+
+    static List<SubTask> copy(List<SubTask> subTasks) {
+        List<SubTask> copies = new ArrayList<>(subTasks == null ? 0 : subTasks.size());
+        if (subTasks != null) {
+            for (SubTask subTask : subTasks) {
+                copies.add(subTask == null ? null : copy(subTask));
+            }
+        }
+        return copies;
+    }
+
+    static SubTask copy(SubTask subTask) {
+        SubTask copy = new SubTask();
+        copy.setTitle(subTask.getTitle());
+        copy.setDescription(subTask.getDescription());
+        copy.setSubTasks(copy(subTask.getSubTasks()));
+        return copy;
+    }
+}
@@ -0,0 +1,63 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates the indexes declared on Task (and on SubTaskNode for the normalized store) through indexOps
+ * at startup, instead of relying on spring.data.mongodb.auto-index-creation. Creating an index that
+ * already exists is a no-op, and an index that can't be created (for example a text index whose
+ * definition changed) is logged without stopping the others.
+ */
+@Component
+@ConditionalOnExpression("'${tasks.store:mongo}'.startsWith('mongo') and ${tasks.indexes.create-on-startup:true}")
+public class TaskIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskIndexes.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final boolean normalized;
+
+    @Autowired
+    public TaskIndexes(ReactiveMongoTemplate reactiveMongoTemplate, @Value("${tasks.store:mongo}") String store) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.normalized = store.equals("mongo-normalized");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createOnStartup() {
+        ensureIndexes().subscribe();
+    }
+
+    public Mono<Void> ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(reactiveMongoTemplate.getConverter().getMappingContext());
+        Mono<Void> tasks = ensureIndexes(resolver, Task.class, "tasks");
+        return normalized ? tasks.then(ensureIndexes(resolver, SubTaskNode.class, "subTasks")) : tasks;
+    }
+
+    private Mono<Void> ensureIndexes(IndexResolver resolver, Class<?> type, String collection) {
+        ReactiveIndexOperations indexOps = reactiveMongoTemplate.indexOps(type);
+        return Flux.<IndexDefinition>fromIterable(resolver.resolveIndexFor(type))
+                .concatMap(index -> indexOps.ensureIndex(index)
+                        .doOnNext(name -> log.info("Ensured index {} on {}", name, collection))
+                        .onErrorResume(e -> {
+                            log.error("Could not create index {} on {}", index.getIndexKeys().toJson(), collection, e);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+}
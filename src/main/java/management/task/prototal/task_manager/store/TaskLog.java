@@ -0,0 +1,343 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of InMemoryTaskStore, as numbered segment files in the data directory. Each record is
+ * the stored task after the write, or the id of a deleted task, so replaying the log in order over any
+ * snapshot taken after the start of a segment rebuilds the latest state.
+ *
+ * <p>Records are framed as an int length, the CRC32 of the payload, and the payload. A single writer
+ * thread takes every record queued since its last write, writes them together and syncs once, so
+ * concurrent writes share one fsync (group commit). A write completes once its record is synced.
+ */
+final class TaskLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskLog.class);
+
+    private static final Pattern SEGMENT = Pattern.compile("wal-(\\d+)\\.log");
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private static final int MAX_BATCH = 1024;
+
+    private static final Object CLOSE = new Object();
+
+    /**
+     * A task as stored after a write, or a deleted task when task is null.
+     */
+    record Entry(String id, Task task) {
+
+        static Entry put(Task task) {
+            return new Entry(task.getId(), task);
+        }
+
+        static Entry delete(String id) {
+            return new Entry(id, null);
+        }
+    }
+
+    private record Append(List<Entry> entries, CompletableFuture<Void> synced) {
+    }
+
+    private record Rotate(long segment, CompletableFuture<Long> rotated) {
+    }
+
+    private final Path directory;
+
+    private final boolean fsync;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private final Thread writer;
+
+    // Only used by the writer thread.
+    private FileChannel channel;
+
+    // Only changed by rotate(), which callers serialise with their appends.
+    private long segment;
+
+    private volatile IOException failure;
+
+    private volatile boolean closed;
+
+    private TaskLog(Path directory, long segment, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.fsync = fsync;
+        this.channel = openSegment(segment);
+        this.writer = new Thread(this::run, "task-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Replays every segment from fromSegment on, in order, deletes older segments, and opens a new
+     * segment for writing. A record cut short by a crash, and anything after it in the same segment, is
+     * skipped: it was never synced, so its write was never acknowledged.
+     * @return the log, appending to the new segment
+     */
+    static TaskLog recover(Path directory, long fromSegment, boolean fsync, Consumer<Entry> replay) throws IOException {
+        long last = fromSegment - 1;
+        for (long number : segments(directory)) {
+            if (number < fromSegment) {
+                Files.delete(segmentPath(directory, number));
+            } else {
+                replay(segmentPath(directory, number), replay);
+            }
+            last = Math.max(last, number);
+        }
+        return new TaskLog(directory, last + 1, fsync);
+    }
+
+    /**
+     * Queues the entries, which must be appended in the order their writes were applied.
+     * @return completes once the entries are synced, or exceptionally if the log could not write them
+     */
+    CompletableFuture<Void> append(List<Entry> entries) {
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        if (closed) {
+            synced.completeExceptionally(new IllegalStateException("Task log is closed"));
+        } else {
+            queue.add(new Append(entries, synced));
+        }
+        return synced;
+    }
+
+    /**
+     * Fails if an earlier write to the log failed. After a failed write or fsync, what reached the disk is
+     * unknown, so the log takes no more writes.
+     */
+    void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Task log is unavailable", failure);
+        }
+    }
+
+    /**
+     * Starts a new segment after the entries already queued.
+     * @return completes with the number of the new segment once the writer has switched to it
+     */
+    CompletableFuture<Long> rotate() {
+        CompletableFuture<Long> rotated = new CompletableFuture<>();
+        queue.add(new Rotate(++segment, rotated));
+        return rotated;
+    }
+
+    void deleteSegmentsBefore(long number) throws IOException {
+        for (long existing : segments(directory)) {
+            if (existing < number) {
+                Files.delete(segmentPath(directory, existing));
+            }
+        }
+    }
+
+    /**
+     * Syncs everything queued so far, then stops the writer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(1024);
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            for (Object item : batch) {
+                if (item instanceof Append append) {
+                    encode(append.entries(), bytes, payload);
+                    pending.add(append.synced());
+                    continue;
+                }
+                flush(bytes, pending);
+                if (item == CLOSE) {
+                    closeChannel();
+                    return;
+                }
+                Rotate rotate = (Rotate) item;
+                try {
+                    closeChannel();
+                    channel = openSegment(rotate.segment());
+                    rotate.rotated().complete(rotate.segment());
+                } catch (IOException e) {
+                    fail(e);
+                    rotate.rotated().completeExceptionally(e);
+                }
+            }
+            flush(bytes, pending);
+            batch.clear();
+        }
+    }
+
+    private void encode(List<Entry> entries, ByteArrayOutputStream bytes, ByteArrayOutputStream payload) {
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            DataOutputStream payloadOut = new DataOutputStream(payload);
+            CRC32 crc = new CRC32();
+            for (Entry entry : entries) {
+                payload.reset();
+                if (entry.task() == null) {
+                    payloadOut.writeByte(DELETE);
+                    TaskCodec.writeString(payloadOut, entry.id());
+                } else {
+                    payloadOut.writeByte(PUT);
+                    TaskCodec.write(payloadOut, entry.task());
+                }
+                crc.reset();
+                crc.update(payload.toByteArray());
+                out.writeInt(payload.size());
+                out.writeInt((int) crc.getValue());
+                payload.writeTo(out);
+            }
+        } catch (IOException e) {
+            // Writing to byte arrays does not throw.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(ByteArrayOutputStream bytes, List<CompletableFuture<Void>> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            pending.forEach(synced -> synced.complete(null));
+        } catch (IOException e) {
+            fail(e);
+            pending.forEach(synced -> synced.completeExceptionally(e));
+        } finally {
+            bytes.reset();
+            pending.clear();
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            log.error("Task log write failed, no further writes will be accepted", e);
+            failure = e;
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel opened = FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        syncDirectory(directory);
+        return opened;
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close task log segment", e);
+        }
+    }
+
+    private static void replay(Path segment, Consumer<Entry> replay) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Task log segment " + segment + " is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= 8) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    buffer.position(start);
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    buffer.position(start);
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+                replay.accept(payload.get() == DELETE
+                        ? Entry.delete(TaskCodec.readString(payload))
+                        : Entry.put(TaskCodec.read(payload)));
+            }
+            if (buffer.hasRemaining()) {
+                log.warn("Skipped {} bytes of unsynced records at the end of {}", buffer.remaining(), segment);
+            }
+        }
+    }
+
+    private static List<Long> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> SEGMENT.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("wal-%019d.log", number));
+    }
+
+    /**
+     * Makes a created or renamed file in the directory durable. Not supported on every platform, where
+     * this does nothing.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package management.task.prototal.task_manager.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates JSON Patch operations into Mongo update operators that touch only the patched paths:
+ * $set/$unset on fields, $push on sub-task lists and positional paths such as subTasks.1.subTasks.0.title
+ * for nested sub-tasks.
+ *
+ * Array indexes refer to the task as it was before the patch. Setting an element past the end of a list
+ * would make Mongo pad it with nulls, so the sub-tasks a patch writes into are listed as required paths for
+ * the store to match on. Mongo has no operator to remove an array element by index: removals unset the
+ * element and pull the resulting nulls in a cleanup update, which stores apply to the task in memory and
+ * write back in one replacement, so the nulls are never stored.
+ *
+ * Because indexes do not shift between operations, no operation may use the path of another, or a path
+ * inside it, except for appends to the same list.
+ */
+public class TaskPatch {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final CollectionType SUB_TASK_LIST = MAPPER.getTypeFactory().constructCollectionType(List.class, SubTask.class);
+
+    private final Update update = new Update();
+
+    /**
+     * $pull of the nulls left behind by removed sub-tasks, or null if nothing was removed.
+     */
+    private Update cleanup;
+
+    private final Map<String, List<SubTask>> appends = new LinkedHashMap<>();
+
+    private final Set<String> requiredPaths = new LinkedHashSet<>();
+
+    /**
+     * Tokens of the paths of the operations applied so far.
+     */
+    private final List<List<String>> paths = new ArrayList<>();
+
+    private TaskPatch() {
+    }
+
+    public Update getUpdate() {
+        return update;
+    }
+
+    public Update getCleanup() {
+        return cleanup;
+    }
+
+    /**
+     * Paths of the sub-tasks the patch writes into, such as subTasks.1.subTasks.0, which must exist.
+     */
+    public Set<String> getRequiredPaths() {
+        return requiredPaths;
+    }
+
+    public static TaskPatch of(List<TaskPatchOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new InvalidTaskException("Patch must contain at least one operation");
+        }
+        TaskPatch patch = new TaskPatch();
+        for (TaskPatchOperation operation : operations) {
+            patch.apply(operation);
+        }
+        patch.appends.forEach((key, subTasks) -> patch.update.push(key).each(subTasks.toArray()));
+        return patch;
+    }
+
+    private void claim(TaskPatchOperation operation, List<String> tokens) {
+        boolean append = tokens.get(tokens.size() - 1).equals("-");
+        for (List<String> other : paths) {
+            if ((startsWith(tokens, other) || startsWith(other, tokens)) && !(append && tokens.equals(other))) {
+                throw new InvalidTaskException("Patch operations overlap at " + operation.getPath());
+            }
+        }
+        paths.add(tokens);
+    }
+
+    private static boolean startsWith(List<String> path, List<String> prefix) {
+        return path.size() >= prefix.size() && path.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private void apply(TaskPatchOperation operation) {
+        String op = operation.getOp();
+        if (!"add".equals(op) && !"replace".equals(op) && !"remove".equals(op)) {
+            throw new InvalidTaskException("Unsupported patch operation: " + op);
+        }
+        List<String> tokens = tokens(operation.getPath());
+        claim(operation, tokens);
+        String root = tokens.get(0);
+        if (root.equals("title") || root.equals("description")) {
+            if (tokens.size() != 1) {
+                throw invalidPath(operation);
+            }
+            if (op.equals("remove")) {
+                throw new InvalidTaskException("Task " + root + " cannot be removed");
+            }
+            update.set(root, text(operation));
+            return;
+        }
+        if (!root.equals("subTasks")) {
+            throw invalidPath(operation);
+        }
+        applySubTaskOperation(operation, tokens);
+    }
+
+    private void applySubTaskOperation(TaskPatchOperation operation, List<String> tokens) {
+        String op = operation.getOp();
+        StringBuilder arrayPath = new StringBuilder("subTasks");
+        int i = 1;
+        while (true) {
+            if (i == tokens.size()) {
+                // The whole list, e.g. /subTasks or /subTasks/0/subTasks.
+                update.set(arrayPath.toString(), op.equals("remove") ? List.of() : subTaskList(operation));
+                return;
+            }
+            String token = tokens.get(i);
+            if (token.equals("-")) {
+                if (!op.equals("add") || i != tokens.size() - 1) {
+                    throw invalidPath(operation);
+                }
+                if (update.modifies(arrayPath.toString())) {
+                    throw conflictingInsert(operation);
+                }
+                appends.computeIfAbsent(arrayPath.toString(), key -> new ArrayList<>()).add(subTask(operation));
+                return;
+            }
+            int index = index(token, operation);
+            String elementPath = arrayPath + "." + index;
+            if (i == tokens.size() - 1) {
+                applyElementOperation(operation, arrayPath.toString(), elementPath, index);
+                return;
+            }
+            String field = tokens.get(i + 1);
+            if ((field.equals("title") || field.equals("description")) && i + 2 == tokens.size()) {
+                requiredPaths.add(elementPath);
+                if (op.equals("remove")) {
+                    update.unset(elementPath + "." + field);
+                } else {
+                    update.set(elementPath + "." + field, text(operation));
+                }
+                return;
+            }
+            if (!field.equals("subTasks")) {
+                throw invalidPath(operation);
+            }
+            requiredPaths.add(elementPath);
+            arrayPath = new StringBuilder(elementPath).append(".subTasks");
+            i += 2;
+        }
+    }
+
+    private void applyElementOperation(TaskPatchOperation operation, String arrayPath, String elementPath, int index) {
+        switch (operation.getOp()) {
+            case "replace" -> {
+                requiredPaths.add(elementPath);
+                update.set(elementPath, subTask(operation));
+            }
+            case "add" -> {
+                if (update.modifies(arrayPath) || appends.containsKey(arrayPath)) {
+                    throw conflictingInsert(operation);
+                }
+                update.push(arrayPath).atPosition(index).each(subTask(operation));
+            }
+            default -> {
+                requiredPaths.add(elementPath);
+                update.unset(elementPath);
+                if (cleanup == null) {
+                    cleanup = new Update();
+                }
+                cleanup.pull(arrayPath, null);
+            }
+        }
+    }
+
+    private static List<String> tokens(String path) {
+        if (path == null || !path.startsWith("/") || path.length() == 1) {
+            throw new InvalidTaskException("Invalid patch path: " + path);
+        }
+        return List.of(path.substring(1).split("/", -1));
+    }
+
+    private static int index(String token, TaskPatchOperation operation) {
+        if (token.isEmpty() || !token.chars().allMatch(Character::isDigit) || token.length() > 9) {
+            throw invalidPath(operation);
+        }
+        return Integer.parseInt(token);
+    }
+
+    private static String text(TaskPatchOperation operation) {
+        JsonNode value = operation.getValue();
+        if (value == null || !value.isTextual()) {
+            throw new InvalidTaskException("Value of " + operation.getPath() + " must be a string");
+        }
+        return value.asText();
+    }
+
+    private static SubTask subTask(TaskPatchOperation operation) {
+        JsonNode value = operation.getValue();
+        if (value == null || !value.isObject()) {
+            throw new InvalidTaskException("Value of " + operation.getPath() + " must be a sub-task");
+        }
+        try {
+            return MAPPER.convertValue(value, SubTask.class);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTaskException("Value of " + operation.getPath() + " must be a sub-task");
+        }
+    }
+
+    private static List<SubTask> subTaskList(TaskPatchOperation operation) {
+        JsonNode value = operation.getValue();
+        if (value == null || !value.isArray()) {
+            throw new InvalidTaskException("Value of " + operation.getPath() + " must be a list of sub-tasks");
+        }
+        try {
+            return MAPPER.convertValue(value, SUB_TASK_LIST);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTaskException("Value of " + operation.getPath() + " must be a list of sub-tasks");
+        }
+    }
+
+    private static InvalidTaskException conflictingInsert(TaskPatchOperation operation) {
+        return new InvalidTaskException("Only one positional insert, or any number of appends, per sub-task list: "
+                + operation.getPath());
+    }
+
+    private static InvalidTaskException invalidPath(TaskPatchOperation operation) {
+        return new InvalidTaskException("Unsupported patch path for " + operation.getOp() + ": " + operation.getPath());
+    }
+}
@@ -0,0 +1,58 @@
+package management.task.prototal.task_manager.store;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+
+/**
+ * A read over many tasks, independent of the store. Limited queries are ordered by id and continue
+ * after afterId; an unlimited query returns every task in the store's natural order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskQuery {
+
+    private String afterId;
+
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+    /**
+     * Maximum number of tasks, or 0 for no limit.
+     */
+    private int limit;
+
+    /**
+     * Fields to return, or null for whole tasks. The id is always returned.
+     */
+    private Collection<String> fields;
+
+    /**
+     * Words that must appear in the title or description (any of them), or null.
+     */
+    private String text;
+
+    /**
+     * Exact title, or null.
+     */
+    private String title;
+
+    public static TaskQuery all() {
+        return new TaskQuery();
+    }
+
+    public static TaskQuery page(String afterId, int limit, Sort.Direction direction, Collection<String> fields) {
+        return new TaskQuery(afterId, direction, limit, fields, null, null);
+    }
+
+    public static TaskQuery search(String text, String title, String afterId, int limit) {
+        return new TaskQuery(afterId, Sort.Direction.ASC, limit, null, text, title);
+    }
+
+    public boolean isLimited() {
+        return limit > 0;
+    }
+}
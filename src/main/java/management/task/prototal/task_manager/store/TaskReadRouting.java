@@ -0,0 +1,144 @@
+package management.task.prototal.task_manager.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The replica set members each Mongo read goes to, set per operation with tasks.read-preference.get-by-id,
+ * get-page, get-all and search, each a read preference name such as primary or secondaryPreferred.
+ *
+ * Reads off the primary may miss the latest writes. So that clients read their own writes, a task written
+ * through this node is read by id from the primary for tasks.read-preference.primary-after-write, and so
+ * is every task for that long after a delete by query. This holds while fewer than MAX_RECENT_WRITES ids
+ * are written through the node within that time. Writes made through other nodes are not tracked.
+ */
+@Component
+@ConditionalOnExpression("'${tasks.store:mongo}'.startsWith('mongo')")
+public class TaskReadRouting {
+
+    /**
+     * Most ids remembered as recently written. Caffeine evicts by frequency (W-TinyLFU), not age, so when
+     * more ids than this are written within primaryAfterWrite any of them, the latest included, can be
+     * forgotten early and read from a secondary.
+     */
+    private static final long MAX_RECENT_WRITES = 100_000;
+
+    private final ReadPreference getById;
+
+    private final ReadPreference getPage;
+
+    private final ReadPreference getAll;
+
+    private final ReadPreference search;
+
+    private final Duration primaryAfterWrite;
+
+    /**
+     * Ids written in the last primaryAfterWrite, or null when reads by id go to the primary anyway.
+     */
+    private final Cache<String, Boolean> recentWrites;
+
+    private volatile long primaryUntil = System.nanoTime();
+
+    public TaskReadRouting(@Value("${tasks.read-preference.get-by-id:primary}") String getById,
+                           @Value("${tasks.read-preference.get-page:primary}") String getPage,
+                           @Value("${tasks.read-preference.get-all:primary}") String getAll,
+                           @Value("${tasks.read-preference.search:primary}") String search,
+                           @Value("${tasks.read-preference.max-staleness:0s}") Duration maxStaleness,
+                           @Value("${tasks.read-preference.primary-after-write:10s}") Duration primaryAfterWrite) {
+        this.getById = readPreference(getById, maxStaleness);
+        this.getPage = readPreference(getPage, maxStaleness);
+        this.getAll = readPreference(getAll, maxStaleness);
+        this.search = readPreference(search, maxStaleness);
+        this.primaryAfterWrite = primaryAfterWrite;
+        this.recentWrites = isPrimary(this.getById) || primaryAfterWrite.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(MAX_RECENT_WRITES)
+                .expireAfterWrite(primaryAfterWrite)
+                .build();
+    }
+
+    /**
+     * Every read on the primary, for stores constructed outside Spring.
+     */
+    public static TaskReadRouting primary() {
+        return new TaskReadRouting("primary", "primary", "primary", "primary", Duration.ZERO, Duration.ZERO);
+    }
+
+    private static ReadPreference readPreference(String name, Duration maxStaleness) {
+        ReadPreference readPreference = ReadPreference.valueOf(name);
+        if (maxStaleness.isZero() || isPrimary(readPreference)) {
+            return readPreference;
+        }
+        return ReadPreference.valueOf(name, List.of(), maxStaleness.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    static boolean isPrimary(ReadPreference readPreference) {
+        return readPreference.equals(ReadPreference.primary());
+    }
+
+    public ReadPreference forId(String id) {
+        if (recentWrites == null) {
+            return getById;
+        }
+        return afterBulkDelete() || recentWrites.getIfPresent(id) != null ? ReadPreference.primary() : getById;
+    }
+
+    /**
+     * The primary if any of the ids was written recently, for reads of many ids in one query.
+     */
+    public ReadPreference forIds(Collection<String> ids) {
+        if (recentWrites == null) {
+            return getById;
+        }
+        if (afterBulkDelete()) {
+            return ReadPreference.primary();
+        }
+        for (String id : ids) {
+            if (recentWrites.getIfPresent(id) != null) {
+                return ReadPreference.primary();
+            }
+        }
+        return getById;
+    }
+
+    public ReadPreference forQuery(TaskQuery query) {
+        if (query.getText() != null || query.getTitle() != null) {
+            return search;
+        }
+        return query.isLimited() ? getPage : getAll;
+    }
+
+    public void written(String id) {
+        if (recentWrites != null) {
+            recentWrites.put(id, Boolean.TRUE);
+        }
+    }
+
+    public void written(Collection<String> ids) {
+        if (recentWrites != null) {
+            ids.forEach(id -> recentWrites.put(id, Boolean.TRUE));
+        }
+    }
+
+    /**
+     * Records a write whose ids are not known, such as a delete by query.
+     */
+    public void writtenMatching() {
+        if (recentWrites != null) {
+            primaryUntil = System.nanoTime() + primaryAfterWrite.toNanos();
+        }
+    }
+
+    private boolean afterBulkDelete() {
+        return System.nanoTime() - primaryUntil < 0;
+    }
+}
@@ -0,0 +1,72 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot file of InMemoryTaskStore: a header with the first log segment to replay on top of it,
+ * then every task as TaskCodec writes it. Read back through a memory mapping, so restoring decodes
+ * straight from the page cache without copying the file into buffers first.
+ */
+final class TaskSnapshot {
+
+    private static final int MAGIC = 0x54534E50;
+
+    private static final int FORMAT = 1;
+
+    private TaskSnapshot() {
+    }
+
+    /**
+     * Writes to a temporary file, syncs it, and moves it over the previous snapshot, so a crash while
+     * writing leaves the previous snapshot in place.
+     */
+    static void write(Path file, long fromSegment, Iterable<Task> tasks) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(fromSegment);
+            for (Task task : tasks) {
+                TaskCodec.write(out, task);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        TaskLog.syncDirectory(file.getParent());
+    }
+
+    /**
+     * @return the first log segment to replay after the snapshot
+     */
+    static long read(Path file, Consumer<Task> restore) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Task snapshot " + file + " is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                throw new IOException(file + " is not a task snapshot");
+            }
+            long fromSegment = buffer.getLong();
+            while (buffer.hasRemaining()) {
+                restore.accept(TaskCodec.read(buffer));
+            }
+            return fromSegment;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage engine behind TaskService. The engine is picked with tasks.store: "mongo" (the default) or
+ * "memory" for a Mongo-free in-process store.
+ *
+ * Writes keep Task.version: inserts start it at 0 and every update or patch increments it. A write
+ * given an expected version fails with TaskVersionConflictException if the stored task has moved on,
+ * and with TaskNotFoundException if the task does not exist.
+ */
+public interface TaskStore {
+
+    /**
+     * Inserts the task, which must have an id. Fails with DuplicateTaskException if the id is taken.
+     */
+    Mono<Task> insert(Task task);
+
+    /**
+     * Inserts tasks that all have ids, reporting created or duplicate for each, in input order.
+     */
+    Flux<TaskBatchResult> insertAll(List<Task> tasks);
+
+    Mono<Task> findById(String id);
+
+    /**
+     * The task with its sub-tasks down to depth levels, 0 being the task alone. A task or sub-task whose
+     * sub-tasks were left out carries their number in subTaskCount.
+     */
+    Mono<Task> findById(String id, int depth);
+
+    /**
+     * The sub-task at path, given as indexes from the task's sub-tasks down, with its own sub-tasks down
+     * to depth levels like findById. Empty if the task or the sub-task does not exist.
+     */
+    Mono<SubTask> findSubTree(String id, List<Integer> path, int depth);
+
+    /**
+     * The tasks with the given ids, in no particular order. Ids without a task are left out.
+     */
+    Flux<Task> findByIds(Collection<String> ids);
+
+    /**
+     * Replaces the title, description and sub-tasks, checking the task's version if it has one.
+     */
+    Mono<Task> update(Task task);
+
+    /**
+     * Applies JSON Patch operations, checking expectedVersion if it is not null.
+     */
+    Mono<Task> patch(String id, Long expectedVersion, List<TaskPatchOperation> operations);
+
+    /**
+     * Updates many tasks like update, reporting updated, not found or conflict for each, in input order. A
+     * store that writes them all at once reports an id sent more than once as invalid after its first task.
+     */
+    Flux<TaskBatchResult> updateAll(List<Task> tasks);
+
+    Mono<Boolean> deleteById(String id);
+
+    /**
+     * Deletes the tasks with the given ids, reporting deleted or not found once for each distinct id, in the
+     * order they first appear. A store that deletes them all at once cannot name the missing ids when only
+     * some were missing, and reports those as not found without an id.
+     */
+    Flux<TaskBatchResult> deleteAll(List<String> ids);
+
+    /**
+     * Deletes every task matching the query's text and title, returning how many were deleted.
+     */
+    Mono<Long> deleteMatching(TaskQuery query);
+
+    Flux<Task> find(TaskQuery query);
+
+    /**
+     * How the store runs the query, with argument values left out, for slow-operation logs.
+     */
+    String describe(TaskQuery query);
+}
@@ -0,0 +1,78 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Depth-limited copies of sub-task trees, for stores that read whole tasks and cut them down in memory.
+ * Where sub-tasks are left out, the task or sub-task they belong to gets subTaskCount instead.
+ */
+final class TaskTrees {
+
+    private TaskTrees() {
+    }
+
+    /**
+     * A copy of the task with its sub-tasks down to depth levels, 0 being the task alone.
+     */
+    static Task limit(Task task, int depth) {
+        Task copy = new Task();
+        copy.setId(task.getId());
+        copy.setTitle(task.getTitle());
+        copy.setDescription(task.getDescription());
+        copy.setVersion(task.getVersion());
+        if (depth == 0) {
+            copy.setSubTaskCount(count(task.getSubTasks()));
+        } else {
+            copy.setSubTasks(limit(task.getSubTasks(), depth - 1));
+        }
+        return copy;
+    }
+
+    /**
+     * A copy of the sub-task at path, with its sub-tasks down to depth levels, or null if there is none.
+     */
+    static SubTask subTree(Task task, List<Integer> path, int depth) {
+        List<SubTask> subTasks = task.getSubTasks();
+        SubTask subTask = null;
+        for (int index : path) {
+            if (subTasks == null || index >= subTasks.size() || subTasks.get(index) == null) {
+                return null;
+            }
+            subTask = subTasks.get(index);
+            subTasks = subTask.getSubTasks();
+        }
+        return subTask == null ? null : limit(subTask, depth);
+    }
+
+    private static List<SubTask> limit(List<SubTask> subTasks, int depth) {
+        List<SubTask> copies = new ArrayList<>(subTasks == null ? 0 : subTasks.size());
+        if (subTasks != null) {
+            for (SubTask subTask : subTasks) {
+                if (subTask != null) {
+                    copies.add(limit(subTask, depth));
+                }
+            }
+        }
+        return copies;
+    }
+
+    private static SubTask limit(SubTask subTask, int depth) {
+        SubTask copy = new SubTask();
+        copy.setTitle(subTask.getTitle());
+        copy.setDescription(subTask.getDescription());
+        if (depth == 0) {
+            copy.setSubTaskCount(count(subTask.getSubTasks()));
+        } else {
+            copy.setSubTasks(limit(subTask.getSubTasks(), depth - 1));
+        }
+        return copy;
+    }
+
+    private static Integer count(List<SubTask> subTasks) {
+        return subTasks == null || subTasks.isEmpty() ? null : subTasks.size();
+    }
+}
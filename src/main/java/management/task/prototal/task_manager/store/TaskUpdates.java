@@ -0,0 +1,147 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Applies the updates built by TaskPatch ($set, $unset, $push with $each/$position and $pull of nulls)
+ * to a task on the heap, the way Mongo would apply them to the stored document. This keeps patches
+ * behaving the same on every store, including array indexes referring to the task before the patch.
+ * Writing into a sub-task past the end of a list is rejected, as MongoTaskStore rejects it by matching only
+ * while the sub-tasks the patch writes into exist.
+ */
+final class TaskUpdates {
+
+    private TaskUpdates() {
+    }
+
+    static void apply(Task task, Update update) {
+        for (Map.Entry<String, Object> operator : update.getUpdateObject().entrySet()) {
+            Document fields = (Document) operator.getValue();
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                List<String> path = List.of(field.getKey().split("\\."));
+                switch (operator.getKey()) {
+                    case "$set" -> assign(parent(task, path), last(path), field.getValue());
+                    case "$unset" -> assign(parent(task, path), last(path), null);
+                    case "$push" -> push(subTasks(parent(task, path), last(path)), field.getValue());
+                    case "$pull" -> subTasks(parent(task, path), last(path)).removeIf(Objects::isNull);
+                    default -> throw new IllegalArgumentException("Unsupported update operator " + operator.getKey());
+                }
+            }
+        }
+    }
+
+    private static Object parent(Task task, List<String> path) {
+        Object node = task;
+        for (String segment : path.subList(0, path.size() - 1)) {
+            if (node instanceof List<?> list) {
+                node = element(list, segment);
+            } else {
+                node = subTasks(node, segment);
+            }
+        }
+        return node;
+    }
+
+    private static String last(List<String> path) {
+        return path.get(path.size() - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assign(Object node, String field, Object value) {
+        if (node instanceof List<?> list) {
+            int index = index(list, field);
+            ((List<SubTask>) list).set(index, value == null ? null : TaskCopies.copy((SubTask) value));
+            return;
+        }
+        switch (field) {
+            case "title" -> {
+                if (node instanceof Task task) {
+                    task.setTitle((String) value);
+                } else {
+                    ((SubTask) node).setTitle((String) value);
+                }
+            }
+            case "description" -> {
+                if (node instanceof Task task) {
+                    task.setDescription((String) value);
+                } else {
+                    ((SubTask) node).setDescription((String) value);
+                }
+            }
+            case "subTasks" -> {
+                List<SubTask> subTasks = TaskCopies.copy((List<SubTask>) value);
+                if (node instanceof Task task) {
+                    task.setSubTasks(subTasks);
+                } else {
+                    ((SubTask) node).setSubTasks(subTasks);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown task field " + field);
+        }
+    }
+
+    private static List<SubTask> subTasks(Object node, String field) {
+        if (!field.equals("subTasks") || node == null) {
+            throw new InvalidTaskException("No sub-task list at " + field);
+        }
+        if (node instanceof Task task) {
+            if (task.getSubTasks() == null) {
+                task.setSubTasks(new ArrayList<>());
+            }
+            return task.getSubTasks();
+        }
+        SubTask subTask = (SubTask) node;
+        if (subTask.getSubTasks() == null) {
+            subTask.setSubTasks(new ArrayList<>());
+        }
+        return subTask.getSubTasks();
+    }
+
+    private static Object element(List<?> list, String segment) {
+        return list.get(index(list, segment));
+    }
+
+    private static int index(List<?> list, String segment) {
+        int index = Integer.parseInt(segment);
+        if (index >= list.size()) {
+            throw new InvalidTaskException("No sub-task at index " + index);
+        }
+        return index;
+    }
+
+    private static void push(List<SubTask> subTasks, Object value) {
+        List<SubTask> values = new ArrayList<>();
+        int position = subTasks.size();
+        if (value instanceof Update.Modifiers modifiers) {
+            for (Update.Modifier modifier : modifiers.getModifiers()) {
+                switch (modifier.getKey()) {
+                    case "$each" -> values.addAll(subTaskValues(modifier.getValue()));
+                    case "$position" -> position = Math.min(((Number) modifier.getValue()).intValue(), subTasks.size());
+                    default -> throw new IllegalArgumentException("Unsupported $push modifier " + modifier.getKey());
+                }
+            }
+        } else {
+            values.add((SubTask) value);
+        }
+        subTasks.addAll(position, TaskCopies.copy(values));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<SubTask> subTaskValues(Object value) {
+        if (value instanceof Object[] array) {
+            return Arrays.stream(array).map(SubTask.class::cast).toList();
+        }
+        return (Collection<SubTask>) value;
+    }
+}
@@ -0,0 +1,45 @@
+package management.task.prototal.task_manager.perf;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+
+import java.io.IOException;
+
+/**
+ * A throwaway mongod for benchmarks, on a free local port. The binary is downloaded on first use.
+ */
+public final class EmbeddedMongo implements AutoCloseable {
+
+    private final MongodExecutable executable;
+
+    private final int port;
+
+    private EmbeddedMongo(MongodExecutable executable, int port) {
+        this.executable = executable;
+        this.port = port;
+    }
+
+    public static EmbeddedMongo start() throws IOException {
+        int port = Network.getFreeServerPort();
+        MongodConfig config = MongodConfig.builder()
+                .version(Version.Main.V5_0)
+                .net(new Net(port, Network.localhostIsIPv6()))
+                .build();
+        MongodExecutable executable = MongodStarter.getDefaultInstance().prepare(config);
+        executable.start();
+        return new EmbeddedMongo(executable, port);
+    }
+
+    public String uri(String database) {
+        return "mongodb://localhost:" + port + "/" + database;
+    }
+
+    @Override
+    public void close() {
+        executable.stop();
+    }
+}
@@ -0,0 +1,453 @@
+package management.task.prototal.task_manager.perf;
+
+import management.task.prototal.task_manager.TaskManagerApplication;
+import management.task.prototal.task_manager.entity.Task;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load generator for the /tasks endpoints. Starts the application on a random port against an
+ * embedded mongod (or targets --base-url), seeds tasks, then runs a weighted mix of requests from a fixed
+ * number of concurrent workers and prints p50/p99/p99.9 latency and throughput per endpoint.
+ *
+ * <p>Options, all in the form --name=value:
+ * <ul>
+ *     <li>duration: measured run length (default 30s)</li>
+ *     <li>warmup: run before measuring, results discarded (default 10s)</li>
+ *     <li>concurrency: requests in flight (default 32)</li>
+ *     <li>seed: tasks created before the run, read and updated by the mix (default 1000)</li>
+ *     <li>mix: endpoint weights (default createTask=15,getById=50,update=20,deleteTask=10,getAll=5)</li>
+ *     <li>base-url: drive an already running instance instead of starting one</li>
+ *     <li>out: directory for per-endpoint HdrHistogram percentile files (.hgrm)</li>
+ *     <li>profiles: Spring profiles for the started application, e.g. prod; with memory no mongod is
+ *     started (default none)</li>
+ *     <li>compress: send Accept-Encoding: gzip and decompress responses (default false)</li>
+ *     <li>http2: talk h2c instead of HTTP/1.1; the server needs server.http2.enabled (default false)</li>
+ *     <li>properties: comma-separated name=value settings for the started application, e.g.
+ *     tasks.get.batch-window=2ms (default none)</li>
+ * </ul>
+ *
+ * <p>Before measuring, one getById and one getAll are sent on their own and the bytes each response took
+ * on the wire are printed, so runs with and without --compress show what compression saves. The report
+ * also gives the total bytes received during the measured run. When the application is started here, it
+ * also gives the store reads made by getById and the MongoDB commands per second.
+ *
+ * <p>Workers are closed-loop: each waits for its response before sending the next request. Once the
+ * service saturates, latencies understate what independent clients would see; read throughput at a
+ * given concurrency as the capacity figure.
+ */
+public final class LoadTest {
+
+    enum Endpoint {
+        CREATE("createTask"),
+        GET_BY_ID("getById"),
+        UPDATE("update"),
+        DELETE("deleteTask"),
+        GET_ALL("getAll");
+
+        private final String option;
+
+        Endpoint(String option) {
+            this.option = option;
+        }
+
+        static Endpoint fromOption(String option) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.option.equals(option)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint in mix: " + option);
+        }
+    }
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("duration", "30s"),
+            Map.entry("warmup", "10s"),
+            Map.entry("concurrency", "32"),
+            Map.entry("seed", "1000"),
+            Map.entry("mix", "createTask=15,getById=50,update=20,deleteTask=10,getAll=5"),
+            Map.entry("base-url", ""),
+            Map.entry("out", ""),
+            Map.entry("profiles", ""),
+            Map.entry("compress", "false"),
+            Map.entry("http2", "false"),
+            Map.entry("properties", ""));
+
+    private final WebClient webClient;
+
+    private final int concurrency;
+
+    private final int seed;
+
+    private final Endpoint[] weighted;
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+
+    private final Queue<String> created = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final WireBytes wireBytes = new WireBytes();
+
+    private MeterRegistry serverMeters;
+
+    LoadTest(String baseUrl, int concurrency, int seed, Map<Endpoint, Integer> mix, boolean compress, boolean http2) {
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .compress(compress)
+                .protocol(http2 ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                // First in the pipeline, so it counts bytes before TLS, HTTP/2 framing or decompression.
+                .doOnChannelInit((observer, channel, address) -> channel.pipeline().addFirst(wireBytes));
+        this.webClient = WebClient.builder()
+                .baseUrl(baseUrl + "/tasks/")
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.concurrency = concurrency;
+        this.seed = seed;
+        this.weighted = mix.entrySet().stream()
+                .flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+                .toArray(Endpoint[]::new);
+        if (weighted.length == 0) {
+            throw new IllegalArgumentException("The mix must give at least one endpoint a positive weight");
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        String baseUrl = options.get("base-url");
+        EmbeddedMongo mongo = null;
+        ConfigurableApplicationContext context = null;
+        try {
+            if (baseUrl.isEmpty()) {
+                System.setProperty("spring.devtools.restart.enabled", "false");
+                List<String> profiles = options.get("profiles").isEmpty()
+                        ? List.of() : List.of(options.get("profiles").split(","));
+                // Passed as arguments rather than builder properties, which application.properties overrides.
+                List<String> arguments = new ArrayList<>(List.of("--server.port=0"));
+                // The memory profile swaps in the in-memory store, which needs no mongod.
+                for (String property : options.get("properties").split(",")) {
+                    if (!property.isBlank()) {
+                        arguments.add("--" + property.trim());
+                    }
+                }
+                if (!profiles.contains("memory")) {
+                    mongo = EmbeddedMongo.start();
+                    arguments.add("--spring.data.mongodb.uri=" + mongo.uri("loadtest"));
+                }
+                context = new SpringApplicationBuilder(TaskManagerApplication.class)
+                        .profiles(profiles.toArray(String[]::new))
+                        .run(arguments.toArray(String[]::new));
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            }
+            LoadTest loadTest = new LoadTest(baseUrl,
+                    Integer.parseInt(options.get("concurrency")),
+                    Integer.parseInt(options.get("seed")),
+                    parseMix(options.get("mix")),
+                    Boolean.parseBoolean(options.get("compress")),
+                    Boolean.parseBoolean(options.get("http2")));
+            if (context != null) {
+                loadTest.serverMeters = context.getBean(MeterRegistry.class);
+            }
+            loadTest.run(DurationStyle.detectAndParse(options.get("warmup")),
+                    DurationStyle.detectAndParse(options.get("duration")),
+                    options.get("out").isEmpty() ? null : Path.of(options.get("out")));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (mongo != null) {
+                mongo.close();
+            }
+        }
+    }
+
+    void run(Duration warmup, Duration duration, Path out) throws IOException {
+        System.out.printf("Seeding %d tasks, %d concurrent workers, warmup %s, duration %s%n",
+                seed, concurrency, warmup, duration);
+        seed();
+        probeWireSizes(System.out);
+        drive(warmup);
+        latencies.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+
+        long received = wireBytes.received.sum();
+        ServerCounts before = ServerCounts.read(serverMeters);
+        long start = System.nanoTime();
+        drive(duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report(System.out, seconds);
+        if (serverMeters != null) {
+            ServerCounts.read(serverMeters).minus(before).report(System.out, seconds);
+        }
+        System.out.printf("%-12s %10.1f MB received, %.1f KB per request%n", "wire",
+                (wireBytes.received.sum() - received) / 1e6,
+                (wireBytes.received.sum() - received) / 1e3 / Math.max(1, totalRequests()));
+        if (out != null) {
+            writeHistograms(out);
+        }
+    }
+
+    private void seed() {
+        webClient.post().uri("createTasks")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(IntStream.range(0, seed).mapToObj(i -> TaskTrees.build(seededId(i))).toList())
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+    }
+
+    /**
+     * Sends one getById and one getAll with nothing else in flight and prints the bytes each response
+     * took on the wire, headers and framing included.
+     */
+    private void probeWireSizes(PrintStream out) {
+        for (Endpoint endpoint : new Endpoint[]{Endpoint.GET_BY_ID, Endpoint.GET_ALL}) {
+            String id = target(endpoint).block();
+            long before = wireBytes.received.sum();
+            call(endpoint, id).block();
+            out.printf("%-12s %10d bytes on the wire%n", endpoint.option, wireBytes.received.sum() - before);
+        }
+    }
+
+    private void drive(Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        Flux.range(0, concurrency)
+                .flatMap(worker -> Mono.defer(this::next).repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+    }
+
+    private Mono<Void> next() {
+        Endpoint endpoint = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+        return target(endpoint).flatMap(id -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call(endpoint, id)
+                    .doOnSuccess(ignored -> latencies.get(endpoint).recordValue((System.nanoTime() - start) / 1000))
+                    .doOnError(e -> errors.get(endpoint).increment())
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        }));
+    }
+
+    /**
+     * The id each request works on, resolved before the clock starts so deletes are not charged for the
+     * create that feeds them when the queue of created tasks runs dry.
+     */
+    private Mono<String> target(Endpoint endpoint) {
+        return switch (endpoint) {
+            case CREATE -> Mono.just("load-" + ids.incrementAndGet());
+            case GET_BY_ID, UPDATE -> Mono.just(seededId(ThreadLocalRandom.current().nextInt(seed)));
+            case DELETE -> Mono.justOrEmpty(created.poll())
+                    .switchIfEmpty(Mono.defer(() -> create("load-" + ids.incrementAndGet())));
+            case GET_ALL -> Mono.just("");
+        };
+    }
+
+    private Mono<?> call(Endpoint endpoint, String id) {
+        return switch (endpoint) {
+            case CREATE -> create(id).doOnNext(created::add);
+            case GET_BY_ID -> webClient.get().uri("getById/{id}", id)
+                    .retrieve()
+                    .bodyToMono(Task.class);
+            case UPDATE -> {
+                Task task = TaskTrees.build(id);
+                task.setTitle("Updated by load test " + ids.incrementAndGet());
+                yield webClient.put().uri("update/{id}", id)
+                        .bodyValue(task)
+                        .retrieve()
+                        .bodyToMono(Task.class);
+            }
+            case DELETE -> webClient.delete().uri("deleteTask/{id}", id)
+                    .retrieve()
+                    .bodyToMono(Boolean.class);
+            case GET_ALL -> webClient.get().uri("getAll")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .retrieve()
+                    .bodyToFlux(Task.class)
+                    .count();
+        };
+    }
+
+    private Mono<String> create(String id) {
+        return webClient.post().uri("createTask")
+                .bodyValue(TaskTrees.build(id))
+                .retrieve()
+                .bodyToMono(Task.class)
+                .map(Task::getId);
+    }
+
+    void report(PrintStream out, double seconds) {
+        out.printf("%n%-12s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            long count = histogram.getTotalCount();
+            long failed = errors.get(endpoint).sum();
+            if (count == 0 && failed == 0) {
+                continue;
+            }
+            total += count;
+            out.printf("%-12s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    endpoint.option, count, failed, count / seconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+        out.printf("%-12s %10d %8s %10.1f%n", "total", total, "", total / seconds);
+    }
+
+    private long totalRequests() {
+        return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    private void writeHistograms(Path out) throws IOException {
+        Files.createDirectories(out);
+        for (Map.Entry<Endpoint, Histogram> entry : latencies.entrySet()) {
+            if (entry.getValue().getTotalCount() == 0) {
+                continue;
+            }
+            try (PrintStream stream = new PrintStream(Files.newOutputStream(out.resolve(entry.getKey().option + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(stream, 1000.0);
+            }
+        }
+        System.out.println("Percentile distributions written to " + out);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String seededId(int i) {
+        return "seed-" + i;
+    }
+
+    /**
+     * Server-side counters read from the started application's meter registry.
+     */
+    record ServerCounts(long storeReads, double idsRead, long mongoCommands) {
+
+        static ServerCounts read(MeterRegistry registry) {
+            if (registry == null) {
+                return null;
+            }
+            DistributionSummary batches = registry.find("tasks.get.batch.size").summary();
+            long commands = registry.find("mongodb.driver.commands").timers().stream().mapToLong(Timer::count).sum();
+            return new ServerCounts(batches == null ? 0 : batches.count(), batches == null ? 0 : batches.totalAmount(), commands);
+        }
+
+        ServerCounts minus(ServerCounts earlier) {
+            return new ServerCounts(storeReads - earlier.storeReads, idsRead - earlier.idsRead, mongoCommands - earlier.mongoCommands);
+        }
+
+        void report(PrintStream out, double seconds) {
+            out.printf("%-12s %10.1f store reads/s, %.1f ids per read%n", "getById", storeReads / seconds,
+                    storeReads == 0 ? 0 : idsRead / storeReads);
+            if (mongoCommands > 0) {
+                out.printf("%-12s %10.1f commands/s%n", "mongodb", mongoCommands / seconds);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read off every connection, as they arrive from the socket.
+     */
+    @ChannelHandler.Sharable
+    static final class WireBytes extends ChannelInboundHandlerAdapter {
+
+        final LongAdder received = new LongAdder();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf buf) {
+                received.add(buf.readableBytes());
+            } else if (msg instanceof ByteBufHolder holder) {
+                received.add(holder.content().readableBytes());
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    static Map<String, String> parse(String[] args) {
+        return parse(args, DEFAULTS);
+    }
+
+    /**
+     * Options in the form --name=value, over the given defaults. Names without a default are rejected.
+     */
+    static Map<String, String> parse(String[] args, Map<String, String> defaults) {
+        Map<String, String> options = new LinkedHashMap<>(defaults);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (!defaults.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + name + ", expected one of " + defaults.keySet());
+            }
+            options.put(name, arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        return Arrays.stream(mix.split(","))
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .map(entry -> entry.split("=", 2))
+                .collect(Collectors.toMap(pair -> Endpoint.fromOption(pair[0].trim()),
+                        pair -> Integer.parseInt(pair[1].trim()),
+                        (a, b) -> b,
+                        () -> new EnumMap<>(Endpoint.class)));
+    }
+}
@@ -0,0 +1,258 @@
+package management.task.prototal.task_manager.perf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Startup time and memory of the packaged application, as a plain jar, as the AOT-processed jar with its
+ * CDS archive and as a native image. Each mode is started as its own process several times; the report
+ * gives the median and best time until the first request was answered, and the median resident set size
+ * (RSS) once ready and after a short burst of requests.
+ *
+ * <p>The artifacts are built beforehand, see the aot and native Maven profiles. The AOT jar and the native
+ * image are processed for the profiles they were built with (aot.profiles), so build them for the profiles
+ * passed here. Modes whose artifact is missing are skipped.
+ *
+ * <p>Options, all in the form --name=value:
+ * <ul>
+ *     <li>modes: any of jar, cds and native (default jar,cds,native)</li>
+ *     <li>runs: starts per mode (default 5)</li>
+ *     <li>requests: createTask and getById pairs sent once ready, before RSS is read again (default 500)</li>
+ *     <li>profiles: Spring profiles for the started application; with memory no mongod is started
+ *     (default memory)</li>
+ *     <li>jvm-args: space-separated JVM options for the jar and cds modes, e.g. -Xmx256m (default none)</li>
+ *     <li>jar: the plain jar (default target/task_manager-0.0.1-SNAPSHOT.jar)</li>
+ *     <li>cds: the directory the aot profile extracted the jar and wrote the archive to (default
+ *     target/cds)</li>
+ *     <li>native: the native executable (default target/task_manager)</li>
+ *     <li>out: directory for the output of each started process (default target/startup)</li>
+ * </ul>
+ *
+ * <p>RSS is read from /proc, so it is only reported on Linux. Start-up time is measured from launching the
+ * process, so it includes JVM start, which is what a restarted or scaled-out instance pays.
+ */
+public final class StartupBenchmark {
+
+    enum Mode {
+        JAR, CDS, NATIVE
+    }
+
+    static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("modes", "jar,cds,native"),
+            Map.entry("runs", "5"),
+            Map.entry("requests", "500"),
+            Map.entry("profiles", "memory"),
+            Map.entry("jvm-args", ""),
+            Map.entry("jar", "target/task_manager-0.0.1-SNAPSHOT.jar"),
+            Map.entry("cds", "target/cds"),
+            Map.entry("native", "target/task_manager"),
+            Map.entry("out", "target/startup"));
+
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(60);
+
+    private static final Pattern VM_RSS = Pattern.compile("VmRSS:\\s+(\\d+) kB");
+
+    private StartupBenchmark() {
+    }
+
+    record Run(long readyMillis, long readyRssKb, long loadedRssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parse(args, DEFAULTS);
+        int runs = Integer.parseInt(options.get("runs"));
+        int requests = Integer.parseInt(options.get("requests"));
+        String profiles = options.get("profiles");
+        Path out = Path.of(options.get("out"));
+        Files.createDirectories(out);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+        EmbeddedMongo mongo = Arrays.asList(profiles.split(",")).contains("memory") ? null : EmbeddedMongo.start();
+        try {
+            for (String name : options.get("modes").split(",")) {
+                Mode mode = Mode.valueOf(name.trim().toUpperCase());
+                List<String> command = command(mode, options);
+                if (command == null) {
+                    System.out.printf("%-7s skipped, %s not found%n", name, artifact(mode, options));
+                    continue;
+                }
+                List<Run> results = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    String database = "startup-" + name + "-" + i;
+                    results.add(run(client, command, profiles, mongo == null ? null : mongo.uri(database),
+                            requests, out.resolve(name + "-" + i + ".log")));
+                }
+                report(name, results);
+            }
+        } finally {
+            if (mongo != null) {
+                mongo.close();
+            }
+        }
+    }
+
+    static Path artifact(Mode mode, Map<String, String> options) {
+        return switch (mode) {
+            case JAR -> Path.of(options.get("jar"));
+            case CDS -> Path.of(options.get("cds"), "application.jsa");
+            case NATIVE -> Path.of(options.get("native"));
+        };
+    }
+
+    /**
+     * The command starting the mode, without the application arguments, or null if its artifact is missing.
+     */
+    static List<String> command(Mode mode, Map<String, String> options) throws IOException {
+        if (!Files.exists(artifact(mode, options))) {
+            return null;
+        }
+        List<String> command = new ArrayList<>();
+        if (mode == Mode.NATIVE) {
+            command.add(Path.of(options.get("native")).toAbsolutePath().toString());
+            return command;
+        }
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        String jvmArgs = options.get("jvm-args").trim();
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        if (mode == Mode.JAR) {
+            command.add("-jar");
+            command.add(options.get("jar"));
+            return command;
+        }
+        Path cds = Path.of(options.get("cds"));
+        try (var files = Files.list(cds)) {
+            Path jar = files.filter(file -> file.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IOException("No extracted jar in " + cds));
+            command.add("-XX:SharedArchiveFile=" + cds.resolve("application.jsa"));
+            command.add("-Xlog:cds=off");
+            command.add("-Dspring.aot.enabled=true");
+            command.add("-jar");
+            command.add(jar.toString());
+        }
+        return command;
+    }
+
+    static Run run(HttpClient client, List<String> command, String profiles, String mongoUri, int requests,
+                   Path log) throws Exception {
+        int port = freePort();
+        List<String> full = new ArrayList<>(command);
+        full.add("--server.port=" + port);
+        full.add("--spring.profiles.active=" + profiles);
+        if (mongoUri != null) {
+            full.add("--spring.data.mongodb.uri=" + mongoUri);
+        }
+        String base = "http://localhost:" + port + "/tasks/";
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(full).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            awaitReady(client, process, base, started, log);
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            long readyRss = rssKb(process.pid());
+            for (int i = 0; i < requests; i++) {
+                String created = send(client, HttpRequest.newBuilder(URI.create(base + "createTask"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"title\":\"startup " + i + "\",\"description\":\"warm-up\"}"))
+                        .build());
+                Matcher id = Pattern.compile("\"id\":\"([^\"]+)\"").matcher(created);
+                if (id.find()) {
+                    send(client, HttpRequest.newBuilder(URI.create(base + "getById/" + id.group(1))).build());
+                }
+            }
+            return new Run(readyMillis, readyRss, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void awaitReady(HttpClient client, Process process, String base, long started, Path log)
+            throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(base + "getPage?limit=1")).build();
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Exited with " + process.exitValue() + " before it was ready, see "
+                        + log);
+            }
+            if (System.nanoTime() - started > START_TIMEOUT.toNanos()) {
+                throw new IllegalStateException("Not ready within " + START_TIMEOUT + ", see " + log);
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static String send(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * Resident set size of the process in kB, or -1 where /proc is not available.
+     */
+    static long rssKb(long pid) {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            Matcher matcher = VM_RSS.matcher(Files.readString(status));
+            return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void report(String mode, List<Run> runs) {
+        long[] ready = runs.stream().mapToLong(Run::readyMillis).sorted().toArray();
+        long[] readyRss = runs.stream().mapToLong(Run::readyRssKb).sorted().toArray();
+        long[] loadedRss = runs.stream().mapToLong(Run::loadedRssKb).sorted().toArray();
+        System.out.printf("%-7s ready median %5d ms, best %5d ms; RSS ready %s, after requests %s (%d runs)%n",
+                mode, median(ready), ready[0], megabytes(median(readyRss)), megabytes(median(loadedRss)),
+                runs.size());
+    }
+
+    private static long median(long[] sorted) {
+        return sorted[sorted.length / 2];
+    }
+
+    private static String megabytes(long kb) {
+        return kb < 0 ? "n/a" : String.format("%d MB", kb / 1024);
+    }
+}
@@ -0,0 +1,77 @@
+package management.task.prototal.task_manager.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import management.task.prototal.task_manager.entity.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encode/decode cost of tasks with wide and deep sub-task trees in each wire format the
+ * controller negotiates, using the same ObjectMapper configuration Spring Boot gives the WebFlux codecs.
+ * The encoded size of each payload is printed at setup.
+ * Deep trees stop at 400 levels: each level nests an object and an array, and Jackson rejects
+ * documents nested more than 1000 deep by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskCodecBenchmark {
+
+    @Param({"wide", "deep"})
+    private String shape;
+
+    @Param({"10", "100", "400"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+
+    private Task task;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (format) {
+            case "json" -> { }
+            case "cbor" -> builder.factory(new CBORFactory());
+            case "smile" -> builder.factory(new SmileFactory());
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        }
+        objectMapper = builder.build();
+        task = TaskTrees.build("bench", shape, size);
+        encoded = objectMapper.writeValueAsBytes(task);
+        System.out.printf("%n%s %s/%d payload: %d bytes%n", format, shape, size, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public Task deserialize() throws IOException {
+        return objectMapper.readValue(encoded, Task.class);
+    }
+}
@@ -0,0 +1,70 @@
+package management.task.prototal.task_manager.perf;
+
+import management.task.prototal.task_manager.controller.TaskController;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.service.ITaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the controller's validation path, with a service that returns its input immediately.
+ * The invalid case includes building and propagating the InvalidTaskException.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskControllerBenchmark {
+
+    private TaskController taskController;
+
+    private Task valid;
+
+    private Task invalid;
+
+    @Setup
+    public void setUp() {
+        ITaskService echo = (ITaskService) Proxy.newProxyInstance(ITaskService.class.getClassLoader(),
+                new Class<?>[]{ITaskService.class},
+                (proxy, method, args) -> {
+                    if (method.getReturnType() == Flux.class) {
+                        return Flux.empty();
+                    }
+                    return args != null && args.length > 0 && args[0] instanceof Task ? Mono.just(args[0]) : Mono.empty();
+                });
+        taskController = new TaskController(echo);
+        valid = TaskTrees.build("valid");
+        invalid = new Task();
+        invalid.setId("invalid");
+    }
+
+    @Benchmark
+    public Task createValid() {
+        return taskController.createTask(valid).block();
+    }
+
+    @Benchmark
+    public Task createInvalid() {
+        return taskController.createTask(invalid).onErrorResume(e -> Mono.empty()).block();
+    }
+
+    @Benchmark
+    public Object updateValid() {
+        return taskController.updateTask("valid", null, valid).block();
+    }
+}
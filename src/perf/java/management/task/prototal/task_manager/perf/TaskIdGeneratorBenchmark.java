@@ -0,0 +1,68 @@
+package management.task.prototal.task_manager.perf;
+
+import management.task.prototal.task_manager.service.TaskIdGenerator;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of task id generation, from one thread and from as many threads as there are CPUs sharing one
+ * generator, next to the ObjectId hex strings used before. Every thread of a node goes through the same
+ * compare-and-set, so the contended runs show what it costs when all cores create tasks at once. Run with
+ * -prof gc to compare allocation per id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskIdGeneratorBenchmark {
+
+    /**
+     * 0 for plain time-ordered ids, otherwise the number of hashed prefixes.
+     */
+    @Param({"0", "1024"})
+    private int prefixBuckets;
+
+    private TaskIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new TaskIdGenerator(1, prefixBuckets);
+    }
+
+    @Benchmark
+    public String taskId() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String taskIdContended() {
+        return generator.next();
+    }
+
+    @Benchmark
+    public String objectId() {
+        return new ObjectId().toHexString();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String objectIdContended() {
+        return new ObjectId().toHexString();
+    }
+}
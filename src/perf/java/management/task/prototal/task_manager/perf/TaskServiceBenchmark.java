@@ -0,0 +1,107 @@
+package management.task.prototal.task_manager.perf;
+
+import management.task.prototal.task_manager.TaskManagerApplication;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.service.ITaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TaskService CRUD paths against an embedded mongod. With cached=false the getById cache holds
+ * nothing, so getById measures the database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    private static final int SEEDED_TASKS = 1000;
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private EmbeddedMongo mongo;
+
+    private ConfigurableApplicationContext context;
+
+    private ITaskService taskService;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mongo = EmbeddedMongo.start();
+        // Passed as arguments rather than builder properties, which application.properties overrides.
+        context = new SpringApplicationBuilder(TaskManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.data.mongodb.uri=" + mongo.uri("benchmark"),
+                        "--spring.devtools.restart.enabled=false",
+                        "--tasks.cache.maximum-size=" + (cached ? 10_000 : 0));
+        taskService = context.getBean(ITaskService.class);
+        taskService.createTasks(Flux.range(0, SEEDED_TASKS).map(i -> TaskTrees.build("seed-" + i))).blockLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        mongo.close();
+    }
+
+    @Benchmark
+    public Task create() {
+        return taskService.createTask(TaskTrees.build("create-" + ids.incrementAndGet())).block();
+    }
+
+    @Benchmark
+    public Task getById() {
+        return taskService.getTaskById(seededId()).block();
+    }
+
+    @Benchmark
+    public Task update() {
+        Task task = TaskTrees.build(seededId());
+        task.setTitle("Updated " + ids.incrementAndGet());
+        return taskService.updateTask(task).block();
+    }
+
+    @Benchmark
+    public Boolean createThenDelete() {
+        String id = "delete-" + ids.incrementAndGet();
+        return taskService.createTask(TaskTrees.build(id))
+                .then(taskService.deleteTask(id))
+                .block();
+    }
+
+    @Benchmark
+    public Task getPage() {
+        return taskService.getTasks(null, 100, Sort.Direction.ASC, null).blockLast();
+    }
+
+    private static String seededId() {
+        return "seed-" + ThreadLocalRandom.current().nextInt(SEEDED_TASKS);
+    }
+}
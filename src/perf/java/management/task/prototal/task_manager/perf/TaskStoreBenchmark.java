@@ -0,0 +1,107 @@
+package management.task.prototal.task_manager.perf;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.store.InMemoryTaskStore;
+import management.task.prototal.task_manager.store.MongoTaskStore;
+import management.task.prototal.task_manager.store.TaskReadRouting;
+import management.task.prototal.task_manager.store.TaskStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Durable write throughput of the stores with concurrent writers: Mongo against an embedded mongod, and
+ * the in-memory store with its write-ahead log, with and without fsync. With fsync, concurrent writes
+ * share a sync through group commit, so throughput depends heavily on the thread count and the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class TaskStoreBenchmark {
+
+    private static final int SEEDED_TASKS = 1000;
+
+    @Param({"mongo", "memory", "memory-nosync"})
+    private String engine;
+
+    private EmbeddedMongo mongo;
+
+    private MongoClient mongoClient;
+
+    private Path dataDirectory;
+
+    private InMemoryTaskStore inMemoryTaskStore;
+
+    private TaskStore taskStore;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (engine.equals("mongo")) {
+            mongo = EmbeddedMongo.start();
+            mongoClient = MongoClients.create(mongo.uri("benchmark"));
+            taskStore = new MongoTaskStore(new ReactiveMongoTemplate(mongoClient, "benchmark"), 256,
+                    TaskReadRouting.primary());
+        } else {
+            dataDirectory = Files.createTempDirectory("task-store-benchmark");
+            inMemoryTaskStore = new InMemoryTaskStore(dataDirectory, Duration.ZERO, !engine.endsWith("nosync"));
+            inMemoryTaskStore.start();
+            taskStore = inMemoryTaskStore;
+        }
+        taskStore.insertAll(IntStream.range(0, SEEDED_TASKS).mapToObj(i -> TaskTrees.build("seed-" + i)).toList())
+                .blockLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (mongo != null) {
+            mongoClient.close();
+            mongo.close();
+        }
+        if (inMemoryTaskStore != null) {
+            inMemoryTaskStore.stop();
+            FileSystemUtils.deleteRecursively(dataDirectory);
+        }
+    }
+
+    @Benchmark
+    public Task create() {
+        return taskStore.insert(TaskTrees.build("create-" + ids.incrementAndGet())).block();
+    }
+
+    @Benchmark
+    public Task update() {
+        Task task = TaskTrees.build("seed-" + ThreadLocalRandom.current().nextInt(SEEDED_TASKS));
+        task.setTitle("Updated " + ids.incrementAndGet());
+        return taskStore.update(task).block();
+    }
+}
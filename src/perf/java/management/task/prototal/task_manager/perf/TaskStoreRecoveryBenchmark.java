@@ -0,0 +1,91 @@
+package management.task.prototal.task_manager.perf;
+
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.store.InMemoryTaskStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Startup time of the in-memory store: mapping the snapshot of snapshotTasks tasks and replaying
+ * loggedWrites updates from the log written after it. Each invocation restores a fresh copy of the same
+ * data directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TaskStoreRecoveryBenchmark {
+
+    @Param({"10000", "100000"})
+    private int snapshotTasks;
+
+    @Param({"0", "10000"})
+    private int loggedWrites;
+
+    private Path prepared;
+
+    private Path dataDirectory;
+
+    private InMemoryTaskStore restored;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        prepared = Files.createTempDirectory("task-store-recovery");
+        InMemoryTaskStore writer = new InMemoryTaskStore(prepared, Duration.ZERO, false);
+        writer.start();
+        writer.insertAll(IntStream.range(0, snapshotTasks).mapToObj(i -> TaskTrees.build("task-" + i)).toList())
+                .blockLast();
+        writer.snapshot();
+        for (int i = 0; i < loggedWrites; i++) {
+            Task task = TaskTrees.build("task-" + (i % snapshotTasks));
+            task.setTitle("Logged " + i);
+            writer.update(task).block();
+        }
+        // Left running rather than stopped, since stopping would fold the log into a new snapshot.
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() throws IOException {
+        dataDirectory = Files.createTempDirectory("task-store-recovery-run");
+        FileSystemUtils.copyRecursively(prepared, dataDirectory);
+    }
+
+    @Benchmark
+    public InMemoryTaskStore restore() throws IOException {
+        restored = new InMemoryTaskStore(dataDirectory, Duration.ZERO, false);
+        restored.start();
+        return restored;
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeRestored() throws IOException {
+        restored.stop();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        FileSystemUtils.deleteRecursively(prepared);
+    }
+}
@@ -0,0 +1,52 @@
+package management.task.prototal.task_manager.perf;
+
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+
+/**
+ * Representative task payloads for benchmarks.
+ */
+public final class TaskTrees {
+
+    private TaskTrees() {
+    }
+
+    /**
+     * @param shape "wide" for size sub-tasks directly under the task, "deep" for a chain size levels deep
+     */
+    public static Task build(String id, String shape, int size) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle("Plan the quarterly release");
+        task.setDescription("Coordinate the work needed to ship the next release of the task manager.");
+        switch (shape) {
+            case "wide" -> {
+                for (int i = 0; i < size; i++) {
+                    task.getSubTasks().add(subTask(i));
+                }
+            }
+            case "deep" -> {
+                SubTask parent = subTask(0);
+                task.getSubTasks().add(parent);
+                for (int i = 1; i < size; i++) {
+                    SubTask child = subTask(i);
+                    parent.getSubTasks().add(child);
+                    parent = child;
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        return task;
+    }
+
+    public static Task build(String id) {
+        return build(id, "wide", 5);
+    }
+
+    private static SubTask subTask(int i) {
+        SubTask subTask = new SubTask();
+        subTask.setTitle("Step " + i);
+        subTask.setDescription("Details of step " + i + " of the plan, with enough text to look like a real note.");
+        return subTask;
+    }
+}
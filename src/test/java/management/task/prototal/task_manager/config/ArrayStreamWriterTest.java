@@ -0,0 +1,96 @@
+package management.task.prototal.task_manager.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import management.task.prototal.task_manager.entity.Task;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArrayStreamWriterTest {
+
+    private static final ResolvableType TASK = ResolvableType.forClass(Task.class);
+
+    private final CBORMapper cbor = new CBORMapper();
+
+    private final SmileMapper smile = new SmileMapper();
+
+    @Test
+    void testWritesBeforeTheSourceCompletes() {
+        Flux<Task> endless = Flux.concat(Flux.fromIterable(tasks(2000)), Flux.never());
+
+        StepVerifier.create(new CborEncoder(cbor).encode(endless, DefaultDataBufferFactory.sharedInstance, TASK,
+                        MediaType.APPLICATION_CBOR, Map.of()))
+                .assertNext(buffer -> {
+                    assertTrue(buffer.readableByteCount() >= ArrayStreamWriter.FLUSH_SIZE);
+                    DataBufferUtils.release(buffer);
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testCborArrayRoundTrips() throws IOException {
+        List<Task> tasks = tasks(2000);
+
+        byte[] body = join(new CborEncoder(cbor).encode(Flux.fromIterable(tasks), DefaultDataBufferFactory.sharedInstance,
+                TASK, MediaType.APPLICATION_CBOR, Map.of()));
+
+        assertEquals(tasks, read(cbor, body));
+    }
+
+    @Test
+    void testSmileArrayRoundTrips() throws IOException {
+        List<Task> tasks = tasks(2000);
+
+        byte[] body = join(new SmileEncoder(smile).encode(Flux.fromIterable(tasks), DefaultDataBufferFactory.sharedInstance,
+                TASK, TaskMediaTypes.APPLICATION_SMILE, Map.of()));
+
+        assertEquals(tasks, read(smile, body));
+    }
+
+    @Test
+    void testEmptyFluxIsAnEmptyArray() throws IOException {
+        byte[] body = join(new CborEncoder(cbor).encode(Flux.empty(), DefaultDataBufferFactory.sharedInstance, TASK,
+                MediaType.APPLICATION_CBOR, Map.of()));
+
+        assertEquals(List.of(), read(cbor, body));
+    }
+
+    private static byte[] join(Flux<DataBuffer> buffers) {
+        DataBuffer joined = DataBufferUtils.join(buffers).block();
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        DataBufferUtils.release(joined);
+        return bytes;
+    }
+
+    private static List<Task> read(ObjectMapper mapper, byte[] body) throws IOException {
+        return mapper.readValue(body, new TypeReference<List<Task>>() {});
+    }
+
+    private static List<Task> tasks(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Task task = new Task();
+            task.setId("task-" + i);
+            task.setTitle("Title " + i);
+            task.setDescription("Description " + i);
+            return task;
+        }).toList();
+    }
+}
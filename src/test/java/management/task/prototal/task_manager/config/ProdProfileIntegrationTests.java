@@ -0,0 +1,110 @@
+package management.task.prototal.task_manager.config;
+
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.store.TaskStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "tasks.admission.client-keys=rate-limited")
+@DirtiesContext
+@ActiveProfiles({"memory", "prod"})
+class ProdProfileIntegrationTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TaskStore taskStore;
+
+    @BeforeEach
+    void setUp() {
+        // Enough tasks for getAll to pass the 2KB compression threshold.
+        Flux.range(0, 50)
+                .flatMap(i -> {
+                    Task task = new Task();
+                    task.setId("prod-" + i);
+                    task.setTitle("Task " + i);
+                    task.setDescription("Description of task " + i);
+                    return taskStore.insert(task);
+                })
+                .onErrorResume(e -> Flux.empty())
+                .blockLast();
+    }
+
+    /**
+     * The auto-configured WebTestClient decompresses responses and drops Content-Encoding, so these
+     * tests use a client that leaves the body as it came off the wire.
+     */
+    private WebTestClient client(HttpProtocol protocol) {
+        return WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create().protocol(protocol)))
+                .baseUrl("http://localhost:" + port)
+                .build();
+    }
+
+    @Test
+    void testGetAllIsBrotliCompressedWhenAccepted() {
+        client(HttpProtocol.HTTP11).get().uri("/tasks/getAll")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "br");
+    }
+
+    @Test
+    void testGetAllIsGzipCompressedWithoutBrotli() {
+        client(HttpProtocol.HTTP11).get().uri("/tasks/getAll")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+
+    @Test
+    void testSmallResponseIsNotCompressed() {
+        client(HttpProtocol.HTTP11).get().uri("/tasks/getById/prod-1")
+                .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING);
+    }
+
+    @Test
+    void testRateLimitsGetAllPerClient() {
+        WebTestClient client = client(HttpProtocol.HTTP11);
+        for (int i = 0; i < 5; i++) {
+            client.get().uri("/tasks/getAll")
+                    .header("X-API-Key", "rate-limited")
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        client.get().uri("/tasks/getAll")
+                .header("X-API-Key", "rate-limited")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+    }
+
+    @Test
+    void testServesHttp2OverCleartext() {
+        client(HttpProtocol.H2C).get().uri("/tasks/getById/prod-1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo("prod-1");
+    }
+}
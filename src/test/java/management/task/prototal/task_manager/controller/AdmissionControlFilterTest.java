@@ -0,0 +1,150 @@
+package management.task.prototal.task_manager.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AdmissionControlFilterTest {
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("tasks.admission.rate.default", "10")
+            .withProperty("tasks.admission.burst.default", "2")
+            .withProperty("tasks.admission.rate.getAll", "1")
+            .withProperty("tasks.admission.burst.getAll", "1")
+            .withProperty("tasks.admission.max-concurrent.search", "1");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(environment, meterRegistry, "X-API-Key",
+            Set.of("key", "other"), 100, now::get);
+
+    private final AtomicInteger handled = new AtomicInteger();
+
+    private final WebFilterChain chain = exchange -> Mono.fromRunnable(handled::incrementAndGet);
+
+    @Test
+    void testAdmitsBurstThenRejectsWithRetryAfter() {
+        assertNull(call("/tasks/getById/1", "key").getResponse().getStatusCode());
+        assertNull(call("/tasks/getById/2", "key").getResponse().getStatusCode());
+
+        MockServerWebExchange rejected = call("/tasks/getById/3", "key");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(2, handled.get());
+        assertEquals(1.0, meterRegistry.get(AdmissionControlFilter.REJECTED_COUNTER)
+                .tag("route", "getById").tag("reason", "rate_limited").counter().count());
+    }
+
+    @Test
+    void testRefillsAtConfiguredRate() {
+        call("/tasks/getAll", "key");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, call("/tasks/getAll", "key").getResponse().getStatusCode());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertNull(call("/tasks/getAll", "key").getResponse().getStatusCode());
+    }
+
+    @Test
+    void testLimitsClientsAndRoutesSeparately() {
+        call("/tasks/getAll", "key");
+
+        assertNull(call("/tasks/getAll", "other").getResponse().getStatusCode());
+        assertNull(call("/tasks/getById/1", "key").getResponse().getStatusCode());
+    }
+
+    @Test
+    void testFallsBackToRemoteAddress() {
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("/tasks/getAll")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 5000)));
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/tasks/getAll")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 5001)));
+        filter.filter(first, chain).block();
+        filter.filter(second, chain).block();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, second.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testKeysUnknownClientHeadersOnRemoteAddress() {
+        filter.filter(fromAddress("/tasks/getById/1", "rotated-0"), chain).block();
+        filter.filter(fromAddress("/tasks/getById/1", "rotated-1"), chain).block();
+        MockServerWebExchange third = fromAddress("/tasks/getById/1", "rotated-2");
+        filter.filter(third, chain).block();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, third.getResponse().getStatusCode());
+        assertEquals(2, handled.get());
+    }
+
+    @Test
+    void testSendsUnmappedPathsToOneRoute() {
+        for (int i = 0; i < 5; i++) {
+            call("/tasks/made-up-" + i, "key");
+        }
+
+        assertEquals(2, handled.get());
+        assertEquals(1, meterRegistry.find(AdmissionControlFilter.IN_FLIGHT_GAUGE).gauges().size());
+        assertEquals(3.0, meterRegistry.get(AdmissionControlFilter.REJECTED_COUNTER)
+                .tag("route", AdmissionControlFilter.OTHER_ROUTE).counter().count());
+    }
+
+    @Test
+    void testShedsRequestsOverConcurrencyCap() {
+        Sinks.Empty<Void> inProgress = Sinks.empty();
+        MockServerWebExchange first = exchange("/tasks/search?q=a", "key");
+        StepVerifier.create(filter.filter(first, exchange -> inProgress.asMono()))
+                .then(() -> {
+                    MockServerWebExchange shed = call("/tasks/search?q=b", "other");
+                    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, shed.getResponse().getStatusCode());
+                    assertEquals("1", shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                    assertEquals(1.0, meterRegistry.get(AdmissionControlFilter.IN_FLIGHT_GAUGE).tag("route", "search").gauge().value());
+                })
+                .then(inProgress::tryEmitEmpty)
+                .verifyComplete();
+
+        assertNull(call("/tasks/search?q=c", "other").getResponse().getStatusCode());
+        assertEquals(0.0, meterRegistry.get(AdmissionControlFilter.IN_FLIGHT_GAUGE).tag("route", "search").gauge().value());
+    }
+
+    @Test
+    void testIgnoresPathsOutsideTasks() {
+        for (int i = 0; i < 5; i++) {
+            assertNull(call("/actuator/health", "key").getResponse().getStatusCode());
+        }
+        assertEquals(5, handled.get());
+    }
+
+    private MockServerWebExchange call(String path, String apiKey) {
+        MockServerWebExchange exchange = exchange(path, apiKey);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    private static MockServerWebExchange fromAddress(String path, String apiKey) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).header("X-API-Key", apiKey)
+                .remoteAddress(new InetSocketAddress("10.0.0.2", 5000)));
+    }
+
+    private static MockServerWebExchange exchange(String path, String apiKey) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).header("X-API-Key", apiKey));
+    }
+}
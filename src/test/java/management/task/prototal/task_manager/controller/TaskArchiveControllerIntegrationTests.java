@@ -0,0 +1,116 @@
+package management.task.prototal.task_manager.controller;
+
+import management.task.prototal.task_manager.dto.TaskArchive;
+import management.task.prototal.task_manager.dto.TaskImportResult;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.store.TaskStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("memory")
+class TaskArchiveControllerIntegrationTests {
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("tasks.archive.dir", () -> directory.toString());
+        registry.add("tasks.archive.endpoints.enabled", () -> "true");
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TaskStore taskStore;
+
+    @BeforeEach
+    void setUp() {
+        Task task = new Task();
+        task.setId("1");
+        task.setTitle("Test Task");
+        task.setDescription("Test Description");
+        taskStore.insert(task).block();
+    }
+
+    private TaskArchive export(String compression) {
+        return webTestClient.post().uri("/admin/tasks/exportTasks?compression=" + compression)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskArchive.class)
+                .returnResult().getResponseBody();
+    }
+
+    @Test
+    void testExportAndDownload() throws IOException {
+        TaskArchive archive = export("zstd");
+        assertEquals(1L, archive.getTasks());
+
+        byte[] body = webTestClient.get().uri("/admin/tasks/downloadArchive/" + archive.getName())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/zstd")
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + archive.getName() + "\"")
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertArrayEquals(Files.readAllBytes(directory.resolve(archive.getName())), body);
+    }
+
+    @Test
+    void testImport() {
+        TaskArchive archive = export("gzip");
+
+        webTestClient.post().uri("/admin/tasks/importTasks/" + archive.getName())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskImportResult.class)
+                .value(result -> assertEquals(1, result.getDuplicates()));
+    }
+
+    @Test
+    void testListArchives() {
+        TaskArchive archive = export("none");
+
+        webTestClient.get().uri("/admin/tasks/listArchives")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TaskArchive.class)
+                .value(archives -> assertEquals(archive.getName(),
+                        archives.get(archives.size() - 1).getName()));
+    }
+
+    @Test
+    void testInvalidCompression() {
+        webTestClient.post().uri("/admin/tasks/exportTasks?compression=brotli")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testDownloadMissingArchive() {
+        webTestClient.get().uri("/admin/tasks/downloadArchive/missing.ndjson.gz")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
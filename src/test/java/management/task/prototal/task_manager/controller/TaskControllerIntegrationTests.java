@@ -1,20 +1,29 @@
 package management.task.prototal.task_manager.controller;
 
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskBulkResult;
+import management.task.prototal.task_manager.entity.SubTask;
 import management.task.prototal.task_manager.entity.Task;
 import management.task.prototal.task_manager.service.TaskService;
+import management.task.prototal.task_manager.store.TaskStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.platform.commons.logging.Logger;
-import org.junit.platform.commons.logging.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("memory")
 class TaskControllerIntegrationTests {
 
     @Autowired
@@ -24,7 +33,7 @@ class TaskControllerIntegrationTests {
     private TaskService taskService;
 
     @Autowired
-    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private TaskStore taskStore;
 
     private Task task;
 
@@ -35,20 +44,7 @@ class TaskControllerIntegrationTests {
         task.setTitle("Test Task");
         task.setDescription("Test Description");
 
-        reactiveMongoTemplate.save(task).block();
-
-        reactiveMongoTemplate.findById("1", Task.class).doOnNext(savedTask -> {
-            if (savedTask != null) {
-                System.out.println("Task saved: " + savedTask);
-            } else {
-                System.out.println("Task not found!");
-            }
-        }).block();
-    }
-
-    @BeforeEach
-    void cleanDatabase() {
-        reactiveMongoTemplate.dropCollection(Task.class).block();
+        taskStore.insert(task).block();
     }
 
     @Test
@@ -60,8 +56,6 @@ class TaskControllerIntegrationTests {
                 .expectBodyList(Task.class)
                 .hasSize(1)
                 .contains(task);
-
-        reactiveMongoTemplate.save(task).block();
     }
 
     @Test
@@ -98,6 +92,36 @@ class TaskControllerIntegrationTests {
                 .isEqualTo(task);
     }
 
+    @Test
+    void testGetTaskByIdWithDepthAndExpandSubTree() {
+        SubTask child = new SubTask();
+        child.setTitle("Child");
+        child.setDescription("Desc");
+        SubTask parent = new SubTask();
+        parent.setTitle("Parent");
+        parent.setDescription("Desc");
+        parent.setSubTasks(List.of(child));
+        Task tree = new Task();
+        tree.setId("tree");
+        tree.setTitle("Tree");
+        tree.setDescription("Desc");
+        tree.setSubTasks(List.of(parent));
+        taskStore.insert(tree).block();
+
+        webTestClient.get().uri("/tasks/getById/tree?depth=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.subTasks[0].title").isEqualTo("Parent")
+                .jsonPath("$.subTasks[0].subTasks").doesNotExist()
+                .jsonPath("$.subTasks[0].subTaskCount").isEqualTo(1);
+
+        webTestClient.get().uri(uri -> uri.path("/tasks/getSubTree/tree").queryParam("path", "/subTasks/0").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(SubTask.class).isEqualTo(parent);
+    }
+
     @Test
     void testGetTaskByIdNotFound() {
         webTestClient.get().uri("/tasks/getById/")
@@ -116,7 +140,18 @@ class TaskControllerIntegrationTests {
                 .exchange()
                 .expectStatus().isOk()
                 .expectBody(Task.class)
-                .isEqualTo(task);
+                .value(updated -> {
+                    task.setVersion(task.getVersion() + 1);
+                    assertEquals(task, updated);
+                });
+    }
+
+    @Test
+    void testGetTaskByIdNotModified() {
+        webTestClient.get().uri("/tasks/getById/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + task.getVersion() + "\"")
+                .exchange()
+                .expectStatus().isNotModified();
     }
 
     @Test
@@ -142,6 +177,32 @@ class TaskControllerIntegrationTests {
                 .isEqualTo(true);
     }
 
+    @Test
+    void testUpdateAndDeleteTasksInBulk() {
+        task.setTitle("Bulk update");
+        Task missing = new Task();
+        missing.setId("2");
+        missing.setTitle("Missing");
+        missing.setDescription("Desc");
+
+        webTestClient.put().uri("/tasks/updateTasks")
+                .bodyValue(List.of(task, missing))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskBulkResult.class)
+                .isEqualTo(new TaskBulkResult(2, 1, List.of(TaskBatchResult.notFound("2"))));
+        assertEquals("Bulk update", taskStore.findById("1").block().getTitle());
+
+        webTestClient.method(HttpMethod.DELETE).uri("/tasks/deleteTasks")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(List.of(task, missing))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskBulkResult.class)
+                .isEqualTo(new TaskBulkResult(2, 1, List.of(TaskBatchResult.notFound("2"))));
+        assertEquals(null, taskStore.findById("1").block());
+    }
+
     @Test
     void testDeleteTaskWithNullId() {
         webTestClient.delete().uri("/tasks/deleteTask/")
@@ -1,7 +1,20 @@
 package management.task.prototal.task_manager.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import management.task.prototal.task_manager.config.TaskMediaTypes;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskBulkResult;
+import management.task.prototal.task_manager.dto.TaskCacheStats;
+import management.task.prototal.task_manager.dto.TaskPage;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
 import management.task.prototal.task_manager.entity.Task;
 import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
 import management.task.prototal.task_manager.service.TaskService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,19 +24,38 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @ExtendWith(MockitoExtension.class)
 @WebFluxTest(value = TaskController.class)
 class TaskControllerTest {
 
+    private static final ObjectMapper CBOR = new CBORMapper();
+
+    private static final ObjectMapper SMILE = new SmileMapper();
+
     @MockBean
     private TaskService taskService;
 
@@ -57,6 +89,185 @@ class TaskControllerTest {
                 .expectBodyList(Task.class).hasSize(1).contains(task);
     }
 
+    @Test
+    void testGetTaskPage() {
+        when(taskService.getTasks(isNull(), eq(1), eq(Sort.Direction.ASC), isNull())).thenReturn(Flux.just(task));
+
+        webTestClient.get().uri("/tasks/getPage?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskPage.class).isEqualTo(new TaskPage(List.of(task), TaskPage.encodeCursor("a")));
+    }
+
+    @Test
+    void testGetTaskPageWithCursor() {
+        when(taskService.getTasks(eq("a"), eq(2), eq(Sort.Direction.DESC), eq(List.of("id", "title")))).thenReturn(Flux.just(task));
+
+        webTestClient.get().uri("/tasks/getPage?limit=2&sort=desc&fields=id,title&after=" + TaskPage.encodeCursor("a"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskPage.class).isEqualTo(new TaskPage(List.of(task), null));
+    }
+
+    @Test
+    void testGetTaskPageWithInvalidParameters() {
+        webTestClient.get().uri("/tasks/getPage?limit=0").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/tasks/getPage?sort=sideways").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/tasks/getPage?fields=secret").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/tasks/getPage?after=%%%").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testSearchTasks() {
+        when(taskService.searchTasks(eq("amazing"), eq("Title"), eq("a"), eq(1))).thenReturn(Flux.just(task));
+
+        webTestClient.get().uri("/tasks/search?q=amazing&title=Title&limit=1&after=" + TaskPage.encodeCursor("a"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskPage.class).isEqualTo(new TaskPage(List.of(task), TaskPage.encodeCursor("a")));
+    }
+
+    @Test
+    void testSearchTasksWithInvalidParameters() {
+        webTestClient.get().uri("/tasks/search").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/tasks/search?q= ").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/tasks/search?q=amazing&limit=1001").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGetAllTasksAsNdjson() {
+        when(taskService.getAllTasks()).thenReturn(Flux.just(task, task));
+
+        webTestClient.get().uri("/tasks/getAll")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .expectBodyList(Task.class).hasSize(2).contains(task);
+    }
+
+    @Test
+    void testCreateTaskAsCbor() throws IOException {
+        when(taskService.createTask(any(Task.class))).thenReturn(Mono.just(task));
+
+        byte[] body = webTestClient.post().uri("/tasks/createTask")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(CBOR.writeValueAsBytes(task))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(task, CBOR.readValue(body, Task.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateTasksAsCbor() throws IOException {
+        when(taskService.createTasks(any())).thenAnswer(invocation -> ((Flux<Task>) invocation.getArgument(0))
+                .map(created -> TaskBatchResult.created(created.getId())));
+        Task other = new Task();
+        other.setId("b");
+        other.setTitle("Title");
+        other.setDescription("Desc");
+
+        byte[] body = webTestClient.post().uri("/tasks/createTasks")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(CBOR.writeValueAsBytes(List.of(task, other)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(List.of(TaskBatchResult.created("a"), TaskBatchResult.created("b")),
+                CBOR.readValue(body, new TypeReference<List<TaskBatchResult>>() {}));
+    }
+
+    @Test
+    void testGetAllTasksAsCborSequence() throws IOException {
+        when(taskService.getAllTasks()).thenReturn(Flux.just(task, task));
+
+        byte[] body = webTestClient.get().uri("/tasks/getAll")
+                .accept(TaskMediaTypes.APPLICATION_CBOR_SEQ)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(TaskMediaTypes.APPLICATION_CBOR_SEQ)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(List.of(task, task), CBOR.readerFor(Task.class).readValues(body).readAll());
+    }
+
+    @Test
+    void testGetAllTasksAsSmile() throws IOException {
+        when(taskService.getAllTasks()).thenReturn(Flux.just(task, task));
+
+        byte[] body = webTestClient.get().uri("/tasks/getAll")
+                .accept(TaskMediaTypes.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(TaskMediaTypes.APPLICATION_SMILE)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(List.of(task, task), SMILE.readValue(body, new TypeReference<List<Task>>() {}));
+    }
+
+    @Test
+    void testGetAllTasksAsCborArray() throws IOException {
+        List<Task> tasks = manyTasks();
+        when(taskService.getAllTasks()).thenReturn(Flux.fromIterable(tasks));
+
+        byte[] body = webTestClient.get().uri("/tasks/getAll")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(tasks, CBOR.readValue(body, new TypeReference<List<Task>>() {}));
+    }
+
+    @Test
+    void testGetAllTasksAsSmileAcrossBuffers() throws IOException {
+        List<Task> tasks = manyTasks();
+        when(taskService.getAllTasks()).thenReturn(Flux.fromIterable(tasks));
+
+        byte[] body = webTestClient.get().uri("/tasks/getAll")
+                .accept(TaskMediaTypes.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(tasks, SMILE.readValue(body, new TypeReference<List<Task>>() {}));
+    }
+
+    /**
+     * Enough tasks for the array to be written in several buffers.
+     */
+    private static List<Task> manyTasks() {
+        return IntStream.range(0, 2000).mapToObj(i -> {
+            Task task = new Task();
+            task.setId("task-" + i);
+            task.setTitle("Title " + i);
+            task.setDescription("Description " + i);
+            return task;
+        }).toList();
+    }
+
+    @Test
+    void testGetAllTasksAsSmileStream() throws IOException {
+        when(taskService.getAllTasks()).thenReturn(Flux.just(task, task));
+
+        byte[] body = webTestClient.get().uri("/tasks/getAll")
+                .accept(TaskMediaTypes.APPLICATION_STREAM_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(TaskMediaTypes.APPLICATION_STREAM_SMILE)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertEquals(List.of(task, task), SMILE.readerFor(Task.class).readValues(body).readAll());
+    }
+
     @Test
     void testCreateTask() {
         Task task = new Task();
@@ -73,6 +284,19 @@ class TaskControllerTest {
                 .expectBody(Task.class).isEqualTo(task);
     }
 
+    @Test
+    void testCreateTasks() {
+        when(taskService.createTasks(any())).thenReturn(Flux.just(TaskBatchResult.created("1"), TaskBatchResult.duplicate("2")));
+
+        webTestClient.post().uri("/tasks/createTasks")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(List.of(task, task))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TaskBatchResult.class)
+                .contains(TaskBatchResult.created("1"), TaskBatchResult.duplicate("2"));
+    }
+
     @Test
     void testCreateTaskWithEmptyTitle() {
         Task task = new Task();
@@ -133,6 +357,110 @@ class TaskControllerTest {
                 .expectBody(Task.class).isEqualTo(task);
     }
 
+    @Test
+    void testGetTaskByIdWithDepth() {
+        task.setSubTaskCount(4);
+        when(taskService.getTaskById("a", 0)).thenReturn(Mono.just(task));
+
+        webTestClient.get().uri("/tasks/getById/a?depth=0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.subTaskCount").isEqualTo(4);
+    }
+
+    @Test
+    void testGetTaskByIdWithDepthReturnsWeakETag() {
+        task.setVersion(3L);
+        when(taskService.getTaskById("a", 1)).thenReturn(Mono.just(task));
+
+        webTestClient.get().uri("/tasks/getById/a?depth=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"3;d=1\"");
+        webTestClient.get().uri("/tasks/getById/a?depth=1")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"3;d=1\"")
+                .exchange()
+                .expectStatus().isNotModified();
+        webTestClient.get().uri("/tasks/getById/a?depth=1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testUpdateTaskRefusesETagOfDepthLimitedRead() {
+        webTestClient.put().uri("/tasks/update/a")
+                .header(HttpHeaders.IF_MATCH, "W/\"3;d=1\"")
+                .bodyValue(task)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        webTestClient.patch().uri("/tasks/patch/a")
+                .contentType(APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "W/\"3;d=1\"")
+                .bodyValue("[{\"op\":\"replace\",\"path\":\"/title\",\"value\":\"New\"}]")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        verify(taskService, never()).updateTask(any(Task.class));
+        verify(taskService, never()).patchTask(any(), any(), any());
+    }
+
+    @Test
+    void testGetTaskByIdWithNegativeDepth() {
+        webTestClient.get().uri("/tasks/getById/a?depth=-1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGetSubTree() {
+        SubTask subTask = new SubTask();
+        subTask.setTitle("Sub");
+        subTask.setDescription("Desc");
+        when(taskService.getSubTree("a", "/subTasks/1", 1)).thenReturn(Mono.just(subTask));
+
+        webTestClient.get().uri(uri -> uri.path("/tasks/getSubTree/a").queryParam("path", "/subTasks/1").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(SubTask.class).isEqualTo(subTask);
+    }
+
+    @Test
+    void testGetSubTreeNotFound() {
+        when(taskService.getSubTree("a", "/subTasks/9", 2))
+                .thenReturn(Mono.error(new TaskNotFoundException("Sub-task /subTasks/9 of task a does not exist.")));
+
+        webTestClient.get().uri(uri -> uri.path("/tasks/getSubTree/a").queryParam("path", "/subTasks/9").queryParam("depth", 2).build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetTaskByIdReturnsETag() {
+        task.setVersion(3L);
+        when(taskService.getTaskById("a")).thenReturn(Mono.just(task));
+
+        webTestClient.get().uri("/tasks/getById/a")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody(Task.class).isEqualTo(task);
+    }
+
+    @Test
+    void testGetTaskByIdNotModified() {
+        task.setVersion(3L);
+        when(taskService.getTaskById("a")).thenReturn(Mono.just(task));
+
+        webTestClient.get().uri("/tasks/getById/a")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\", \"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody().isEmpty();
+    }
+
     @Test
     void tesGetByIdNull() {
         task.setId(null);
@@ -140,7 +468,7 @@ class TaskControllerTest {
                 .thenReturn(Mono.error(new InvalidTaskException("Task or task properties cannot be null")));
 
         assertThrows(InvalidTaskException.class, () -> {
-            taskController.getTaskById(null).block();
+            taskController.getTaskById(null, null, null).block();
         });
     }
 
@@ -161,6 +489,88 @@ class TaskControllerTest {
                 .expectBody(Task.class).isEqualTo(updatedTask);
     }
 
+    @Test
+    void testUpdateTaskWithIfMatch() {
+        Task updatedTask = new Task();
+        updatedTask.setId("a");
+        updatedTask.setTitle("Updated Task");
+        updatedTask.setDescription("Updated Description");
+        updatedTask.setVersion(5L);
+        when(taskService.updateTask(argThat(sent -> Long.valueOf(4L).equals(sent.getVersion())))).thenReturn(Mono.just(updatedTask));
+
+        webTestClient.put().uri("/tasks/update/a")
+                .header(HttpHeaders.IF_MATCH, "\"4\"")
+                .bodyValue(updatedTask)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5\"")
+                .expectBody(Task.class).isEqualTo(updatedTask);
+    }
+
+    @Test
+    void testUpdateTaskVersionConflict() {
+        when(taskService.updateTask(any(Task.class))).thenReturn(Mono.error(new TaskVersionConflictException("conflict")));
+
+        webTestClient.put().uri("/tasks/update/a")
+                .header(HttpHeaders.IF_MATCH, "\"4\"")
+                .bodyValue(task)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void testUpdateTaskNotFound() {
+        when(taskService.updateTask(any(Task.class))).thenReturn(Mono.error(new TaskNotFoundException("missing")));
+
+        webTestClient.put().uri("/tasks/update/a")
+                .bodyValue(task)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testUpdateTaskWithIfMatchList() {
+        when(taskService.updateTask(argThat(sent -> Long.valueOf(4L).equals(sent.getVersion())))).thenReturn(Mono.just(task));
+
+        webTestClient.put().uri("/tasks/update/a")
+                .header(HttpHeaders.IF_MATCH, "W/\"4;d=1\", \"4\", \"other\"")
+                .bodyValue(task)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testUpdateTaskWithIfMatchAnyOnlyRequiresTheTask() {
+        when(taskService.updateTask(argThat(sent -> sent.getVersion() == null)))
+                .thenReturn(Mono.error(new TaskNotFoundException("missing")));
+
+        webTestClient.put().uri("/tasks/update/a")
+                .header(HttpHeaders.IF_MATCH, "*")
+                .bodyValue(task)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testUpdateTaskRefusesIfMatchListOfSeveralVersions() {
+        webTestClient.put().uri("/tasks/update/a")
+                .header(HttpHeaders.IF_MATCH, "\"3\", \"4\"")
+                .bodyValue(task)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        verify(taskService, never()).updateTask(any(Task.class));
+    }
+
+    @Test
+    void testUpdateTaskWithMalformedIfMatch() {
+        webTestClient.put().uri("/tasks/update/a")
+                .header(HttpHeaders.IF_MATCH, "four")
+                .bodyValue(task)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void testUpdateTaskWithNullTitle() {
         Task taskWithNullTitle = new Task();
@@ -172,7 +582,7 @@ class TaskControllerTest {
                 .thenReturn(Mono.error(new InvalidTaskException("Task or task properties cannot be null")));
 
         assertThrows(InvalidTaskException.class, () -> {
-            taskController.updateTask(taskWithNullTitle.getId(), taskWithNullTitle).block();
+            taskController.updateTask(taskWithNullTitle.getId(), null, taskWithNullTitle).block();
         });
     }
 
@@ -187,7 +597,7 @@ class TaskControllerTest {
                 .thenReturn(Mono.error(new InvalidTaskException("Task or task properties cannot be null")));
 
         assertThrows(InvalidTaskException.class, () -> {
-            taskController.updateTask(taskWithNullDescription.getId(), taskWithNullDescription).block();
+            taskController.updateTask(taskWithNullDescription.getId(), null, taskWithNullDescription).block();
         });
     }
 
@@ -200,10 +610,90 @@ class TaskControllerTest {
                 .thenReturn(Mono.error(new InvalidTaskException("Task or task properties cannot be null")));
 
         assertThrows(InvalidTaskException.class, () -> {
-            taskController.updateTask(task.getId(), task).block();
+            taskController.updateTask(task.getId(), null, task).block();
         });
     }
 
+    @Test
+    void testGetCacheStats() {
+        TaskCacheStats stats = new TaskCacheStats(3, 10, 2, 1, 10 / 12.0);
+        when(taskService.getCacheStats()).thenReturn(stats);
+
+        webTestClient.get().uri("/tasks/cacheStats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskCacheStats.class).isEqualTo(stats);
+    }
+
+    @Test
+    void testPatchTask() {
+        when(taskService.patchTask(eq("a"), isNull(), any())).thenReturn(Mono.just(task));
+
+        webTestClient.patch().uri("/tasks/patch/a")
+                .contentType(MediaType.valueOf("application/json-patch+json"))
+                .bodyValue("[{\"op\": \"replace\", \"path\": \"/title\", \"value\": \"Title\"}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Task.class).isEqualTo(task);
+    }
+
+    @Test
+    void testPatchTaskWithInvalidPatch() {
+        when(taskService.patchTask(eq("a"), isNull(), any())).thenReturn(Mono.error(new InvalidTaskException("Unsupported patch operation: move")));
+
+        webTestClient.patch().uri("/tasks/patch/a")
+                .contentType(MediaType.valueOf("application/json-patch+json"))
+                .bodyValue(List.of(new TaskPatchOperation("move", "/title", null)))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testUpdateTasks() {
+        TaskBulkResult bulkResult = new TaskBulkResult(2, 1, List.of(TaskBatchResult.notFound("2")));
+        when(taskService.updateTasks(any())).thenReturn(Mono.just(bulkResult));
+
+        webTestClient.put().uri("/tasks/updateTasks")
+                .contentType(APPLICATION_NDJSON)
+                .bodyValue(List.of(task, task))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskBulkResult.class).isEqualTo(bulkResult);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeleteTasksReadsIdsFromBody() {
+        when(taskService.deleteTasks(any(Flux.class))).thenAnswer(invocation -> ((Flux<String>) invocation.getArgument(0))
+                .collectList()
+                .map(ids -> new TaskBulkResult(ids.size(), ids.size(), List.of())));
+        Task noId = new Task();
+
+        webTestClient.method(HttpMethod.DELETE).uri("/tasks/deleteTasks")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(List.of(task, noId))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskBulkResult.class).isEqualTo(new TaskBulkResult(2, 2, List.of()));
+    }
+
+    @Test
+    void testDeleteTasksByTitle() {
+        when(taskService.deleteTasks(isNull(), eq("Done"))).thenReturn(Mono.just(TaskBulkResult.of(3)));
+
+        webTestClient.delete().uri("/tasks/deleteTasks?title=Done")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskBulkResult.class).isEqualTo(TaskBulkResult.of(3));
+    }
+
+    @Test
+    void testDeleteTasksWithBlankFilter() {
+        webTestClient.delete().uri("/tasks/deleteTasks?title=")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void testDeleteTask() {
         when(taskService.deleteTask("1")).thenReturn(Mono.just(true));
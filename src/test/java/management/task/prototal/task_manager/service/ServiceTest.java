@@ -1,31 +1,52 @@
 package management.task.prototal.task_manager.service;
 
 
-import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
 import management.task.prototal.task_manager.entity.Task;
 import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.store.TaskQuery;
+import management.task.prototal.task_manager.store.TaskStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
-import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.domain.Sort;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class TaskServiceTest {
 
     @Mock
-    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private TaskStore taskStore;
+
+    private final TaskCache taskCache = new TaskCache(100, Duration.ofMinutes(1));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final TaskMetrics taskMetrics = new TaskMetrics(meterRegistry, Duration.ofSeconds(1));
 
-    @InjectMocks
     private TaskService taskService;
 
     private Task task;
@@ -33,6 +54,8 @@ class TaskServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        taskService = new TaskService(taskStore, taskCache, taskMetrics,
+                new TaskBatchLoader(taskStore, meterRegistry, Duration.ZERO, 100), new TaskIdGenerator(0, 0), 2);
         task = new Task();
         task.setId("a");
         task.setTitle("Title");
@@ -41,8 +64,7 @@ class TaskServiceTest {
 
     @Test
     void testCreateTask() {
-        when(reactiveMongoTemplate.exists(any(Query.class), eq(Task.class))).thenReturn(Mono.just(false));
-        when(reactiveMongoTemplate.save(any(Task.class))).thenReturn(Mono.just(task));
+        when(taskStore.insert(any(Task.class))).thenReturn(Mono.just(task));
 
         Mono<Task> result = taskService.createTask(task);
 
@@ -51,9 +73,37 @@ class TaskServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testCreateTaskAssignsId() {
+        Task noId = new Task();
+        noId.setTitle("No id");
+        noId.setDescription("Desc");
+        when(taskStore.insert(any(Task.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(taskService.createTask(noId))
+                .expectNextMatches(created -> created.getId() != null)
+                .verifyComplete();
+    }
+
+    @Test
+    void testCreateTaskAssignsTimeOrderedIds() {
+        when(taskStore.insert(any(Task.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Task first = new Task();
+        first.setTitle("First");
+        first.setDescription("Desc");
+        Task second = new Task();
+        second.setTitle("Second");
+        second.setDescription("Desc");
+
+        taskService.createTask(first).block();
+        taskService.createTask(second).block();
+
+        assertTrue(first.getId().compareTo(second.getId()) < 0);
+    }
+
     @Test
     void testCreateTaskWithExistingId() {
-        when(reactiveMongoTemplate.exists(any(Query.class), eq(Task.class))).thenReturn(Mono.just(true));
+        when(taskStore.insert(any(Task.class))).thenReturn(Mono.error(new DuplicateTaskException("Task with ID a already exists.")));
 
         Mono<Task> result = taskService.createTask(task);
 
@@ -62,9 +112,51 @@ class TaskServiceTest {
                 .verify();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateTasks() {
+        when(taskStore.insertAll(anyList())).thenAnswer(invocation -> Flux.fromIterable((List<Task>) invocation.getArgument(0))
+                .map(inserted -> TaskBatchResult.created(inserted.getId())));
+
+        Task noId = new Task();
+        noId.setTitle("No id");
+        noId.setDescription("Desc");
+
+        StepVerifier.create(taskService.createTasks(Flux.just(task, noId)))
+                .expectNext(TaskBatchResult.created("a"))
+                .expectNextMatches(result -> result.getStatus() == TaskBatchResult.Status.CREATED && result.getId() != null)
+                .verifyComplete();
+        assertNotNull(noId.getId());
+    }
+
+    @Test
+    void testCreateTasksReportsDuplicatesAndInvalidTasksPerItem() {
+        Task duplicate = new Task();
+        duplicate.setId("b");
+        duplicate.setTitle("Title");
+        duplicate.setDescription("Desc");
+        Task invalid = new Task();
+        invalid.setId("c");
+        Task last = new Task();
+        last.setId("d");
+        last.setTitle("Title");
+        last.setDescription("Desc");
+
+        when(taskStore.insertAll(List.of(task, duplicate)))
+                .thenReturn(Flux.just(TaskBatchResult.created("a"), TaskBatchResult.duplicate("b")));
+        when(taskStore.insertAll(List.of(last))).thenReturn(Flux.just(TaskBatchResult.created("d")));
+
+        StepVerifier.create(taskService.createTasks(Flux.just(task, duplicate, invalid, last)))
+                .expectNext(TaskBatchResult.created("a"))
+                .expectNext(TaskBatchResult.duplicate("b"))
+                .expectNextMatches(result -> result.getStatus() == TaskBatchResult.Status.INVALID && result.getId().equals("c"))
+                .expectNext(TaskBatchResult.created("d"))
+                .verifyComplete();
+    }
+
     @Test
     void testGetAllTasks() {
-        when(reactiveMongoTemplate.findAll(Task.class)).thenReturn(Flux.just(task));
+        when(taskStore.find(TaskQuery.all())).thenReturn(Flux.just(task));
 
         Flux<Task> result = taskService.getAllTasks();
 
@@ -73,9 +165,36 @@ class TaskServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testGetTasksQueriesPage() {
+        when(taskStore.find(any(TaskQuery.class))).thenReturn(Flux.just(task));
+
+        StepVerifier.create(taskService.getTasks("a", 10, Sort.Direction.DESC, List.of("title")))
+                .expectNext(task)
+                .verifyComplete();
+
+        verify(taskStore).find(TaskQuery.page("a", 10, Sort.Direction.DESC, List.of("title")));
+    }
+
+    @Test
+    void testSearchTasksQueriesTextTitleAndCursor() {
+        when(taskStore.find(any(TaskQuery.class))).thenReturn(Flux.just(task));
+
+        StepVerifier.create(taskService.searchTasks("amazing task", "Title", "a", 20))
+                .expectNext(task)
+                .verifyComplete();
+
+        ArgumentCaptor<TaskQuery> query = ArgumentCaptor.forClass(TaskQuery.class);
+        verify(taskStore).find(query.capture());
+        assertEquals("amazing task", query.getValue().getText());
+        assertEquals("Title", query.getValue().getTitle());
+        assertEquals("a", query.getValue().getAfterId());
+        assertEquals(20, query.getValue().getLimit());
+    }
+
     @Test
     void testGetTaskById() {
-        when(reactiveMongoTemplate.findById(eq("a"), eq(Task.class))).thenReturn(Mono.just(task));
+        when(taskStore.findById("a")).thenReturn(Mono.just(task));
 
         Mono<Task> result = taskService.getTaskById("a");
 
@@ -84,9 +203,101 @@ class TaskServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testGetTaskByIdIsCached() {
+        when(taskStore.findById("a")).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskService.getTaskById("a")).expectNext(task).verifyComplete();
+        StepVerifier.create(taskService.getTaskById("a")).expectNext(task).verifyComplete();
+
+        verify(taskStore, times(1)).findById("a");
+        assertEquals(1, taskService.getCacheStats().getHitCount());
+        assertEquals(1, taskService.getCacheStats().getMissCount());
+    }
+
+    @Test
+    void testGetTaskByIdCoalescesConcurrentMisses() {
+        when(taskStore.findById("a")).thenReturn(Mono.just(task).delayElement(Duration.ofMillis(50)));
+
+        StepVerifier.create(Flux.merge(taskService.getTaskById("a"), taskService.getTaskById("a"), taskService.getTaskById("a")))
+                .expectNext(task, task, task)
+                .verifyComplete();
+
+        verify(taskStore, times(1)).findById("a");
+    }
+
+    @Test
+    void testGetTaskByIdWithDepthBypassesCache() {
+        when(taskStore.findById("a", 1)).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskService.getTaskById("a", 1)).expectNext(task).verifyComplete();
+        StepVerifier.create(taskService.getTaskById("a", 1)).expectNext(task).verifyComplete();
+
+        verify(taskStore, times(2)).findById("a", 1);
+        verify(taskStore, never()).findById("a");
+    }
+
+    @Test
+    void testGetSubTreeParsesPath() {
+        SubTask subTask = new SubTask();
+        subTask.setTitle("Sub");
+        when(taskStore.findSubTree("a", List.of(1, 0), 2)).thenReturn(Mono.just(subTask));
+
+        StepVerifier.create(taskService.getSubTree("a", "/subTasks/1/subTasks/0", 2))
+                .expectNext(subTask)
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetSubTreeWithInvalidPath() {
+        for (String path : List.of("", "/subTasks", "/subTasks/x", "/title/0", "subTasks/0", "/subTasks/0/title")) {
+            StepVerifier.create(taskService.getSubTree("a", path, 1))
+                    .expectError(InvalidTaskException.class)
+                    .verify();
+        }
+        verify(taskStore, never()).findSubTree(any(), any(), anyInt());
+    }
+
+    @Test
+    void testGetSubTreeNotFound() {
+        when(taskStore.findSubTree("a", List.of(3), 1)).thenReturn(Mono.empty());
+
+        StepVerifier.create(taskService.getSubTree("a", "/subTasks/3", 1))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testGetTaskByIdDoesNotCacheMissingTasks() {
+        when(taskStore.findById("a")).thenReturn(Mono.empty());
+
+        StepVerifier.create(taskService.getTaskById("a")).verifyComplete();
+        StepVerifier.create(taskService.getTaskById("a")).verifyComplete();
+
+        verify(taskStore, times(2)).findById("a");
+    }
+
+    @Test
+    void testWritesInvalidateCachedTask() {
+        when(taskStore.findById("a")).thenReturn(Mono.just(task));
+        when(taskStore.update(task)).thenReturn(Mono.just(task));
+        when(taskStore.patch(eq("a"), eq(null), anyList())).thenReturn(Mono.just(task));
+        when(taskStore.deleteById("a")).thenReturn(Mono.just(true));
+
+        taskService.getTaskById("a").block();
+        taskService.updateTask(task).block();
+        taskService.getTaskById("a").block();
+        taskService.patchTask("a", null, List.of(new TaskPatchOperation("remove", "/description", null))).block();
+        taskService.getTaskById("a").block();
+        taskService.deleteTask("a").block();
+        taskService.getTaskById("a").block();
+
+        verify(taskStore, times(4)).findById("a");
+    }
+
     @Test
     void testUpdateTask() {
-        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(), eq(Task.class))).thenReturn(Mono.just(task));
+        when(taskStore.update(task)).thenReturn(Mono.just(task));
 
         Mono<Task> result = taskService.updateTask(task);
 
@@ -95,11 +306,93 @@ class TaskServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testUpdateTaskNotFound() {
+        when(taskStore.update(task)).thenReturn(Mono.error(new TaskNotFoundException("Task with ID a does not exist.")));
+
+        StepVerifier.create(taskService.updateTask(task))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testUpdateTasksAggregatesResultsPerChunk() {
+        Task conflicting = new Task();
+        conflicting.setId("b");
+        conflicting.setTitle("Title");
+        conflicting.setDescription("Desc");
+        conflicting.setVersion(3L);
+        Task invalid = new Task();
+        invalid.setTitle("No id");
+        invalid.setDescription("Desc");
+        Task missing = new Task();
+        missing.setId("d");
+        missing.setTitle("Title");
+        missing.setDescription("Desc");
+
+        when(taskStore.updateAll(List.of(task, conflicting)))
+                .thenReturn(Flux.just(TaskBatchResult.updated("a"), TaskBatchResult.conflict("b", 3L)));
+        when(taskStore.updateAll(List.of(missing))).thenReturn(Flux.just(TaskBatchResult.notFound("d")));
+
+        StepVerifier.create(taskService.updateTasks(Flux.just(task, conflicting, invalid, missing)))
+                .assertNext(result -> {
+                    assertEquals(4, result.getProcessed());
+                    assertEquals(1, result.getSucceeded());
+                    assertEquals(List.of(TaskBatchResult.Status.CONFLICT, TaskBatchResult.Status.INVALID,
+                                    TaskBatchResult.Status.NOT_FOUND),
+                            result.getFailures().stream().map(TaskBatchResult::getStatus).toList());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateTasksInvalidatesCachedTasks() {
+        taskCache.put(task);
+        when(taskStore.updateAll(List.of(task))).thenReturn(Flux.just(TaskBatchResult.updated("a")));
+
+        StepVerifier.create(taskService.updateTasks(Flux.just(task)))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(0, taskCache.size());
+    }
+
+    @Test
+    void testDeleteTasksByIdInChunks() {
+        taskCache.put(task);
+        when(taskStore.deleteAll(List.of("a", "b")))
+                .thenReturn(Flux.just(TaskBatchResult.deleted("a"), TaskBatchResult.notFound("b")));
+        when(taskStore.deleteAll(List.of("c"))).thenReturn(Flux.just(TaskBatchResult.deleted("c")));
+
+        StepVerifier.create(taskService.deleteTasks(Flux.just("a", "b", "c")))
+                .assertNext(result -> {
+                    assertEquals(3, result.getProcessed());
+                    assertEquals(2, result.getSucceeded());
+                    assertEquals(List.of(TaskBatchResult.notFound("b")), result.getFailures());
+                })
+                .verifyComplete();
+        assertEquals(0, taskCache.size());
+    }
+
+    @Test
+    void testDeleteTasksMatchingTitle() {
+        taskCache.put(task);
+        ArgumentCaptor<TaskQuery> query = ArgumentCaptor.forClass(TaskQuery.class);
+        when(taskStore.deleteMatching(query.capture())).thenReturn(Mono.just(5L));
+
+        StepVerifier.create(taskService.deleteTasks(null, "Title"))
+                .assertNext(result -> {
+                    assertEquals(5, result.getProcessed());
+                    assertEquals(5, result.getSucceeded());
+                })
+                .verifyComplete();
+        assertEquals("Title", query.getValue().getTitle());
+        assertEquals(0, query.getValue().getLimit());
+        assertEquals(0, taskCache.size());
+    }
+
     @Test
     void testDeleteTask() {
-        DeleteResult deleteResult = mock(DeleteResult.class);
-        when(deleteResult.getDeletedCount()).thenReturn(1L);
-        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(deleteResult));
+        when(taskStore.deleteById("a")).thenReturn(Mono.just(true));
 
         Mono<Boolean> result = taskService.deleteTask("a");
 
@@ -109,16 +402,25 @@ class TaskServiceTest {
     }
 
     @Test
-    void testDeleteTaskNotFound() {
-        DeleteResult deleteResult = mock(DeleteResult.class);
-        when(deleteResult.getDeletedCount()).thenReturn(0L);
-        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(deleteResult));
+    void testOperationsAreTimedByOutcome() {
+        when(taskStore.insert(any(Task.class))).thenReturn(Mono.just(task));
+        when(taskStore.update(task)).thenReturn(Mono.error(new TaskNotFoundException("Task with ID a does not exist.")));
 
-        Mono<Boolean> result = taskService.deleteTask("a");
+        StepVerifier.create(taskService.createTask(task)).expectNext(task).verifyComplete();
+        StepVerifier.create(taskService.updateTask(task)).expectError(TaskNotFoundException.class).verify();
 
-        StepVerifier.create(result)
-                .expectNext(false)
-                .verifyComplete();
+        assertEquals(1, meterRegistry.get(TaskMetrics.OPERATION_TIMER)
+                .tags("operation", "create", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get(TaskMetrics.OPERATION_TIMER)
+                .tags("operation", "update", "outcome", "not_found", "exception", "TaskNotFoundException").timer().count());
     }
-}
 
+    @Test
+    void testStreamingOperationsCountItems() {
+        when(taskStore.find(TaskQuery.all())).thenReturn(Flux.just(task, task, task));
+
+        StepVerifier.create(taskService.getAllTasks()).expectNextCount(3).verifyComplete();
+
+        assertEquals(3.0, meterRegistry.get(TaskMetrics.ITEMS_COUNTER).tag("operation", "getAll").counter().count());
+    }
+}
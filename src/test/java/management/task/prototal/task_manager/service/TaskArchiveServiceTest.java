@@ -0,0 +1,213 @@
+package management.task.prototal.task_manager.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import management.task.prototal.task_manager.dto.TaskArchive;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskImportResult;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.store.InMemoryTaskStore;
+import management.task.prototal.task_manager.store.TaskQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskArchiveServiceTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InMemoryTaskStore taskStore;
+
+    private TaskArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        emptyStore();
+    }
+
+    private TaskArchiveService archiveService(InMemoryTaskStore store) {
+        TaskService taskService = new TaskService(store, new TaskCache(100, Duration.ofMinutes(1)),
+                new TaskMetrics(meterRegistry, Duration.ofSeconds(1)),
+                new TaskBatchLoader(store, meterRegistry, Duration.ZERO, 100), new TaskIdGenerator(0, 0), CHUNK_SIZE);
+        return new TaskArchiveService(taskService, store, Jackson2ObjectMapperBuilder.json().build(), directory,
+                CHUNK_SIZE);
+    }
+
+    private void insertTasks(int count) {
+        IntStream.range(0, count).forEach(i -> {
+            Task task = new Task();
+            task.setId(String.format("task-%02d", i));
+            task.setTitle("Title " + i);
+            task.setDescription("Description " + i);
+            SubTask subTask = new SubTask();
+            subTask.setTitle("Sub " + i);
+            subTask.setDescription("Sub description " + i);
+            task.setSubTasks(List.of(subTask));
+            taskStore.insert(task).block();
+        });
+    }
+
+    private void emptyStore() {
+        taskStore = new InMemoryTaskStore(null, Duration.ZERO, true);
+        archiveService = archiveService(taskStore);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TaskArchive.Compression.class)
+    void testExportThenImport(TaskArchive.Compression compression) {
+        insertTasks(10);
+        List<Task> exported = taskStore.find(TaskQuery.all()).collectList().block();
+
+        TaskArchive archive = archiveService.export(compression).block();
+
+        assertEquals(compression, archive.getCompression());
+        assertEquals(10L, archive.getTasks());
+        assertTrue(archive.getName().startsWith("tasks-") && archive.getName().endsWith(compression.getSuffix()));
+        assertTrue(Files.exists(directory.resolve(archive.getName())));
+        assertFalse(Files.exists(directory.resolve(archive.getName() + ".part")));
+
+        emptyStore();
+        TaskImportResult result = archiveService.importArchive(archive.getName(), false).block();
+
+        assertEquals(10, result.getProcessed());
+        assertEquals(10, result.getCreated());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(exported, taskStore.find(TaskQuery.all()).collectList().block());
+        assertFalse(Files.exists(directory.resolve(archive.getName() + ".checkpoint")));
+    }
+
+    @Test
+    void testExportWritesOneTaskPerLine() throws IOException {
+        insertTasks(3);
+
+        TaskArchive archive = archiveService.export(TaskArchive.Compression.GZIP).block();
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve(archive.getName())))) {
+            List<String> lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertEquals(3, lines.size());
+            assertTrue(lines.get(0).startsWith("{\"id\":\"task-00\""));
+        }
+    }
+
+    @Test
+    void testImportReportsDuplicates() {
+        insertTasks(5);
+        TaskArchive archive = archiveService.export(TaskArchive.Compression.NONE).block();
+
+        TaskImportResult result = archiveService.importArchive(archive.getName(), false).block();
+
+        assertEquals(5, result.getDuplicates());
+        assertEquals(0, result.getCreated());
+        assertEquals(TaskBatchResult.Status.DUPLICATE, result.getFailures().get(0).getStatus());
+    }
+
+    @Test
+    void testImportResumesFromCheckpoint() throws IOException {
+        insertTasks(10);
+        TaskArchive archive = archiveService.export(TaskArchive.Compression.ZSTD).block();
+        emptyStore();
+        Files.writeString(directory.resolve(archive.getName() + ".checkpoint"), "8");
+
+        TaskImportResult result = archiveService.importArchive(archive.getName(), true).block();
+
+        assertEquals(8, result.getResumedAfter());
+        assertEquals(2, result.getCreated());
+        assertEquals(List.of("task-08", "task-09"), taskStore.find(TaskQuery.all()).map(Task::getId).collectList().block());
+        assertFalse(Files.exists(directory.resolve(archive.getName() + ".checkpoint")));
+    }
+
+    @Test
+    void testImportWithoutResumeIgnoresCheckpoint() throws IOException {
+        insertTasks(3);
+        TaskArchive archive = archiveService.export(TaskArchive.Compression.NONE).block();
+        emptyStore();
+        Files.writeString(directory.resolve(archive.getName() + ".checkpoint"), "2");
+
+        TaskImportResult result = archiveService.importArchive(archive.getName(), false).block();
+
+        assertEquals(0, result.getResumedAfter());
+        assertEquals(3, result.getCreated());
+    }
+
+    @Test
+    void testMalformedTaskStopsImportAndKeepsCheckpoint() throws IOException {
+        StringBuilder archive = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            archive.append("{\"id\":\"t").append(i).append("\",\"title\":\"T\",\"description\":\"D\"}\n");
+        }
+        archive.append("{\"id\":\"t6\",\"title\":\n");
+        Files.writeString(directory.resolve("broken.ndjson"), archive);
+
+        StepVerifier.create(archiveService.importArchive("broken.ndjson", false))
+                .expectErrorSatisfies(e -> {
+                    assertTrue(e instanceof InvalidTaskException);
+                    assertTrue(e.getMessage().startsWith("Task 7 of broken.ndjson could not be read"));
+                })
+                .verify();
+
+        assertEquals("4", Files.readString(directory.resolve("broken.ndjson.checkpoint")));
+    }
+
+    @Test
+    void testListArchives() throws IOException {
+        Files.writeString(directory.resolve("b.ndjson"), "");
+        Files.writeString(directory.resolve("a.ndjson.gz"), "");
+        Files.writeString(directory.resolve("c.ndjson.gz.part"), "");
+        Files.writeString(directory.resolve("notes.txt"), "");
+
+        StepVerifier.create(archiveService.list().map(TaskArchive::getName))
+                .expectNext("a.ndjson.gz", "b.ndjson")
+                .verifyComplete();
+    }
+
+    @Test
+    void testInvalidArchiveName() {
+        StepVerifier.create(archiveService.importArchive("../tasks.ndjson", false))
+                .expectError(InvalidTaskException.class)
+                .verify();
+        StepVerifier.create(archiveService.file("tasks.json"))
+                .expectError(InvalidTaskException.class)
+                .verify();
+    }
+
+    @Test
+    void testMissingArchive() {
+        StepVerifier.create(archiveService.file("missing.ndjson.gz"))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testCompressionNamed() {
+        assertEquals(TaskArchive.Compression.ZSTD, TaskArchive.Compression.named("Zstd"));
+        StepVerifier.create(Flux.defer(() -> Flux.just(TaskArchive.Compression.named("brotli"))))
+                .expectError(InvalidTaskException.class)
+                .verify();
+    }
+}
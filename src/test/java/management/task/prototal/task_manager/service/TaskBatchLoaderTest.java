@@ -0,0 +1,122 @@
+package management.task.prototal.task_manager.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.store.TaskStore;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskBatchLoaderTest {
+
+    private final TaskStore taskStore = mock(TaskStore.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+    private final List<Collection<String>> queries = new ArrayList<>();
+
+    private final TaskBatchLoader loader = new TaskBatchLoader(taskStore, meterRegistry, Duration.ofMillis(5), 3, scheduler);
+
+    @Test
+    void testCombinesLookupsWithinWindow() {
+        storeHolds("a", "b");
+        List<Task> loaded = new ArrayList<>();
+
+        loader.load("a").subscribe(loaded::add);
+        loader.load("missing").subscribe(loaded::add);
+        assertEquals(0, queries.size());
+
+        scheduler.advanceTimeBy(Duration.ofMillis(5));
+
+        assertEquals(List.of(Set.of("a", "missing")), queries.stream().map(Set::copyOf).toList());
+        assertEquals(List.of("a"), loaded.stream().map(Task::getId).toList());
+        assertEquals(2.0, meterRegistry.get(TaskBatchLoader.BATCH_SIZE_SUMMARY).summary().totalAmount());
+    }
+
+    @Test
+    void testSharesDuplicateIds() {
+        storeHolds("a");
+        List<Task> loaded = new ArrayList<>();
+
+        loader.load("a").subscribe(loaded::add);
+        loader.load("a").subscribe(loaded::add);
+        scheduler.advanceTimeBy(Duration.ofMillis(5));
+
+        assertEquals(List.of(List.of("a")), queries.stream().map(List::copyOf).toList());
+        assertEquals(2, loaded.size());
+    }
+
+    @Test
+    void testSendsFullBatchWithoutWaiting() {
+        storeHolds("a", "b", "c", "d");
+
+        loader.load("a").subscribe();
+        loader.load("b").subscribe();
+        loader.load("c").subscribe();
+        assertEquals(1, queries.size());
+
+        loader.load("d").subscribe();
+        scheduler.advanceTimeBy(Duration.ofMillis(5));
+
+        assertEquals(2, queries.size());
+        assertEquals(List.of("d"), List.copyOf(queries.get(1)));
+    }
+
+    @Test
+    void testFailsEveryCallerOfFailedBatch() {
+        when(taskStore.findByIds(anyCollection())).thenReturn(Flux.error(new IllegalStateException("down")));
+
+        StepVerifier.withVirtualTime(() -> Mono.when(
+                        loader.load("a").onErrorResume(IllegalStateException.class, e -> Mono.empty()),
+                        loader.load("b")), () -> scheduler, Long.MAX_VALUE)
+                .thenAwait(Duration.ofMillis(5))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void testLoadsOneByOneWithoutWindow() {
+        Task task = task("a");
+        when(taskStore.findById("a")).thenReturn(Mono.just(task));
+        TaskBatchLoader unbatched = new TaskBatchLoader(taskStore, meterRegistry, Duration.ZERO, 3, scheduler);
+
+        StepVerifier.create(unbatched.load("a"))
+                .expectNext(task)
+                .verifyComplete();
+        verify(taskStore, never()).findByIds(any());
+    }
+
+    private void storeHolds(String... ids) {
+        when(taskStore.findByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> requested = invocation.getArgument(0);
+            queries.add(List.copyOf(requested));
+            return Flux.fromArray(ids).filter(requested::contains).map(TaskBatchLoaderTest::task);
+        });
+    }
+
+    private static Task task(String id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle("Title");
+        task.setDescription("Desc");
+        return task;
+    }
+}
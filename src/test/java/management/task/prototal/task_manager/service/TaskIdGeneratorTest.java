@@ -0,0 +1,108 @@
+package management.task.prototal.task_manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskIdGeneratorTest {
+
+    private static final long NOW = Instant.parse("2026-03-01T12:00:00Z").toEpochMilli();
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+
+    private final TaskIdGenerator generator = new TaskIdGenerator(5, 0, clock::get);
+
+    @Test
+    void testIdsSortInCreationOrder() {
+        String first = generator.next();
+        String second = generator.next();
+        clock.addAndGet(1);
+        String third = generator.next();
+
+        assertEquals(13, first.length());
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(third) < 0);
+        assertEquals(Instant.ofEpochMilli(NOW), TaskIdGenerator.timestampOf(first));
+        assertEquals(Instant.ofEpochMilli(NOW + 1), TaskIdGenerator.timestampOf(third));
+    }
+
+    @Test
+    void testKeepsIncreasingWhenTheClockStepsBack() {
+        String before = generator.next();
+        clock.addAndGet(-1000);
+
+        assertTrue(before.compareTo(generator.next()) < 0);
+    }
+
+    @Test
+    void testRunsAheadOfTheClockPastTheSequence() {
+        String previous = generator.next();
+        for (int i = 0; i < 5000; i++) {
+            String next = generator.next();
+            assertTrue(previous.compareTo(next) < 0);
+            previous = next;
+        }
+
+        assertEquals(Instant.ofEpochMilli(NOW + 1), TaskIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    void testNodesMakeDistinctIdsInTimeOrder() {
+        TaskIdGenerator otherNode = new TaskIdGenerator(6, 0, clock::get);
+        String first = generator.next();
+        String other = otherNode.next();
+        clock.addAndGet(1);
+
+        assertNotEquals(first, other);
+        assertTrue(other.compareTo(generator.next()) < 0);
+    }
+
+    @Test
+    void testIdsAreUniqueUnderContention() {
+        TaskIdGenerator shared = new TaskIdGenerator(0, 0, System::currentTimeMillis);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 8).parallel().forEach(thread -> {
+            for (int i = 0; i < 10_000; i++) {
+                ids.add(shared.next());
+            }
+        });
+
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    void testHashedPrefixesSpreadConsecutiveIds() {
+        TaskIdGenerator prefixed = new TaskIdGenerator(5, 16, clock::get);
+        TaskIdGenerator widePrefixed = new TaskIdGenerator(5, 1024, clock::get);
+        Set<Character> buckets = new HashSet<>();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(prefixed.next());
+        }
+        ids.forEach(id -> buckets.add(id.charAt(0)));
+
+        assertEquals(14, ids.get(0).length());
+        assertEquals(16, buckets.size());
+        assertEquals(15, widePrefixed.next().length());
+        assertEquals(Instant.ofEpochMilli(NOW), TaskIdGenerator.timestampOf(ids.get(0)));
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TaskIdGenerator(1024, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TaskIdGenerator(0, 1025));
+        assertThrows(IllegalArgumentException.class, () -> TaskIdGenerator.timestampOf("65f1c2a9e4b0"));
+    }
+}
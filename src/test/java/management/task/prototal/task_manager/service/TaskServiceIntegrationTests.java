@@ -2,16 +2,26 @@ package management.task.prototal.task_manager.service;
 
 import management.task.prototal.task_manager.entity.Task;
 import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 @SpringBootTest
 @ExtendWith(SpringExtension.class)
 class TaskServiceIntegrationTests {
@@ -91,6 +101,33 @@ class TaskServiceIntegrationTests {
                 .verify();
     }
 
+    @Test
+    void testConcurrentCreatesWithSameIdCreateExactlyOneTask() {
+        int attempts = 32;
+
+        List<Boolean> created = Flux.range(0, attempts)
+                .parallel(attempts)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> {
+                    Task concurrentTask = new Task();
+                    concurrentTask.setId("concurrent");
+                    concurrentTask.setTitle("Concurrent Task " + i);
+                    concurrentTask.setDescription("Concurrent Description");
+                    return taskService.createTask(concurrentTask)
+                            .map(saved -> true)
+                            .onErrorResume(DuplicateTaskException.class, e -> Mono.just(false));
+                })
+                .sequential()
+                .collectList()
+                .block();
+
+        assertEquals(attempts, created.size());
+        assertEquals(1, created.stream().filter(Boolean::booleanValue).count());
+        StepVerifier.create(reactiveMongoTemplate.count(new Query(Criteria.where("_id").is("concurrent")), Task.class))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
     @Test
     void testGetTaskByNonExistingId() {
         Mono<Task> result = taskService.getTaskById("non-existing-id");
@@ -135,10 +172,35 @@ class TaskServiceIntegrationTests {
         Mono<Task> result = taskService.updateTask(nonExistingTask);
 
         StepVerifier.create(result)
-                .expectNextMatches(task -> task.getId().equals("non-existing-id") &&
-                        task.getTitle().equals("Non-Existing Task") &&
-                        task.getDescription().equals("Non-Existing Description"))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testUpdateTaskWithStaleVersion() {
+        Task originalTask = new Task();
+        originalTask.setId("3");
+        originalTask.setTitle("Original Task");
+        originalTask.setDescription("Original Description");
+        Long version = taskService.createTask(originalTask).block().getVersion();
+
+        Task firstEdit = new Task();
+        firstEdit.setId("3");
+        firstEdit.setTitle("First Edit");
+        firstEdit.setDescription("Original Description");
+        firstEdit.setVersion(version);
+        Task secondEdit = new Task();
+        secondEdit.setId("3");
+        secondEdit.setTitle("Second Edit");
+        secondEdit.setDescription("Original Description");
+        secondEdit.setVersion(version);
+
+        StepVerifier.create(taskService.updateTask(firstEdit))
+                .expectNextMatches(task -> task.getTitle().equals("First Edit") && task.getVersion() == version + 1)
                 .verifyComplete();
+        StepVerifier.create(taskService.updateTask(secondEdit))
+                .expectError(TaskVersionConflictException.class)
+                .verify();
     }
 
     @Test
@@ -0,0 +1,411 @@
+package management.task.prototal.task_manager.store;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.test.StepVerifier;
+
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InMemoryTaskStoreTest {
+
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    private final InMemoryTaskStore taskStore = new InMemoryTaskStore(null, Duration.ZERO, true);
+
+    @Test
+    void testInsertAndFindById() {
+        StepVerifier.create(taskStore.insert(task("a", "Title")))
+                .expectNextMatches(task -> task.getVersion() == 0L)
+                .verifyComplete();
+
+        StepVerifier.create(taskStore.findById("a"))
+                .expectNextMatches(task -> task.getTitle().equals("Title"))
+                .verifyComplete();
+        StepVerifier.create(taskStore.findById("b")).verifyComplete();
+    }
+
+    @Test
+    void testFindByIdsSkipsMissingIds() {
+        taskStore.insertAll(List.of(task("a", "Title"), task("b", "Title"))).blockLast();
+
+        StepVerifier.create(taskStore.findByIds(List.of("b", "missing")).map(Task::getId))
+                .expectNext("b")
+                .verifyComplete();
+    }
+
+    @Test
+    void testInsertWithExistingId() {
+        taskStore.insert(task("a", "Title")).block();
+
+        StepVerifier.create(taskStore.insert(task("a", "Other")))
+                .expectError(DuplicateTaskException.class)
+                .verify();
+        assertEquals("Title", taskStore.findById("a").block().getTitle());
+    }
+
+    @Test
+    void testInsertAllReportsDuplicatesPerItem() {
+        taskStore.insert(task("b", "Title")).block();
+
+        StepVerifier.create(taskStore.insertAll(List.of(task("a", "Title"), task("b", "Title"))))
+                .expectNext(TaskBatchResult.created("a"))
+                .expectNext(TaskBatchResult.duplicate("b"))
+                .verifyComplete();
+        assertEquals(2, taskStore.size());
+    }
+
+    @Test
+    void testStoredTasksAreIsolatedFromCallers() {
+        Task task = task("a", "Title");
+        taskStore.insert(task).block();
+        task.setTitle("Changed after insert");
+
+        assertEquals("Title", taskStore.findById("a").block().getTitle());
+    }
+
+    @Test
+    void testUpdateIncrementsVersion() {
+        taskStore.insert(task("a", "Title")).block();
+        Task update = task("a", "New");
+        update.setVersion(0L);
+
+        StepVerifier.create(taskStore.update(update))
+                .expectNextMatches(task -> task.getTitle().equals("New") && task.getVersion() == 1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateWithStaleVersion() {
+        taskStore.insert(task("a", "Title")).block();
+        Task update = task("a", "New");
+        update.setVersion(3L);
+
+        StepVerifier.create(taskStore.update(update))
+                .expectError(TaskVersionConflictException.class)
+                .verify();
+        assertEquals("Title", taskStore.findById("a").block().getTitle());
+    }
+
+    @Test
+    void testUpdateNotFound() {
+        StepVerifier.create(taskStore.update(task("a", "Title")))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testPatchAppliesOperations() {
+        Task task = task("a", "Title");
+        task.setSubTasks(List.of(subTask("First"), subTask("Second")));
+        taskStore.insert(task).block();
+
+        StepVerifier.create(taskStore.patch("a", 0L, List.of(
+                        new TaskPatchOperation("replace", "/title", JSON.textNode("New")),
+                        new TaskPatchOperation("add", "/subTasks/-", subTaskNode("Third")),
+                        new TaskPatchOperation("remove", "/subTasks/0", null))))
+                .expectNextMatches(patched -> patched.getTitle().equals("New")
+                        && patched.getVersion() == 1L
+                        && patched.getSubTasks().stream().map(SubTask::getTitle).toList().equals(List.of("Second", "Third")))
+                .verifyComplete();
+    }
+
+    @Test
+    void testPatchOutOfRangeLeavesTaskUnchanged() {
+        taskStore.insert(task("a", "Title")).block();
+
+        StepVerifier.create(taskStore.patch("a", null, List.of(
+                        new TaskPatchOperation("replace", "/title", JSON.textNode("New")),
+                        new TaskPatchOperation("replace", "/subTasks/4/title", JSON.textNode("Missing")))))
+                .expectError(InvalidTaskException.class)
+                .verify();
+        assertEquals("Title", taskStore.findById("a").block().getTitle());
+        assertEquals(0L, taskStore.findById("a").block().getVersion());
+    }
+
+    @Test
+    void testPatchIntoARemovedSubTaskIsRefused() {
+        Task task = task("a", "Title");
+        task.setSubTasks(List.of(subTask("First")));
+        taskStore.insert(task).block();
+
+        StepVerifier.create(taskStore.patch("a", null, List.of(
+                        new TaskPatchOperation("remove", "/subTasks/0", null),
+                        new TaskPatchOperation("replace", "/subTasks/0/title", JSON.textNode("New")))))
+                .expectError(InvalidTaskException.class)
+                .verify();
+        assertEquals("First", taskStore.findById("a").block().getSubTasks().get(0).getTitle());
+    }
+
+    @Test
+    void testFindByIdWithDepthCountsSubTasksLeftOut() {
+        Task task = task("a", "Title");
+        SubTask parent = subTask("Parent");
+        parent.setSubTasks(List.of(subTask("Child"), subTask("Other child")));
+        task.setSubTasks(List.of(parent, subTask("Leaf")));
+        taskStore.insert(task).block();
+
+        Task root = taskStore.findById("a", 0).block();
+        assertEquals(2, root.getSubTaskCount());
+        assertEquals(List.of(), root.getSubTasks());
+
+        Task oneLevel = taskStore.findById("a", 1).block();
+        assertNull(oneLevel.getSubTaskCount());
+        assertEquals(2, oneLevel.getSubTasks().get(0).getSubTaskCount());
+        assertEquals(List.of(), oneLevel.getSubTasks().get(0).getSubTasks());
+        assertNull(oneLevel.getSubTasks().get(1).getSubTaskCount());
+
+        assertEquals(task.getSubTasks(), taskStore.findById("a", 2).block().getSubTasks());
+        assertEquals(2, taskStore.findById("a").block().getSubTasks().get(0).getSubTasks().size());
+    }
+
+    @Test
+    void testFindSubTree() {
+        Task task = task("a", "Title");
+        SubTask parent = subTask("Parent");
+        SubTask child = subTask("Child");
+        child.setSubTasks(List.of(subTask("Grandchild")));
+        parent.setSubTasks(List.of(child));
+        task.setSubTasks(List.of(subTask("First"), parent));
+        taskStore.insert(task).block();
+
+        SubTask subTree = taskStore.findSubTree("a", List.of(1), 1).block();
+        assertEquals("Parent", subTree.getTitle());
+        assertEquals("Child", subTree.getSubTasks().get(0).getTitle());
+        assertEquals(1, subTree.getSubTasks().get(0).getSubTaskCount());
+
+        assertEquals("Grandchild", taskStore.findSubTree("a", List.of(1, 0, 0), 0).block().getTitle());
+        StepVerifier.create(taskStore.findSubTree("a", List.of(2), 1)).verifyComplete();
+        StepVerifier.create(taskStore.findSubTree("a", List.of(0, 0), 1)).verifyComplete();
+        StepVerifier.create(taskStore.findSubTree("missing", List.of(0), 1)).verifyComplete();
+    }
+
+    @Test
+    void testDeleteById() {
+        taskStore.insert(task("a", "Title")).block();
+
+        StepVerifier.create(taskStore.deleteById("a")).expectNext(true).verifyComplete();
+        StepVerifier.create(taskStore.deleteById("a")).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void testUpdateAllReportsEachTask() {
+        taskStore.insertAll(List.of(task("a", "Title"), task("b", "Title"))).blockLast();
+        Task stale = task("b", "Stale");
+        stale.setVersion(4L);
+
+        StepVerifier.create(taskStore.updateAll(List.of(task("a", "New"), stale, task("c", "New"))))
+                .expectNext(TaskBatchResult.updated("a"))
+                .expectNext(TaskBatchResult.conflict("b", 4L))
+                .expectNext(TaskBatchResult.notFound("c"))
+                .verifyComplete();
+        Task updated = taskStore.findById("a").block();
+        assertEquals("New", updated.getTitle());
+        assertEquals(1L, updated.getVersion());
+        assertEquals("Title", taskStore.findById("b").block().getTitle());
+    }
+
+    @Test
+    void testDeleteAllReportsEachId() {
+        taskStore.insertAll(List.of(task("a", "Title"), task("b", "Title"))).blockLast();
+
+        StepVerifier.create(taskStore.deleteAll(List.of("a", "c", "a")))
+                .expectNext(TaskBatchResult.deleted("a"))
+                .expectNext(TaskBatchResult.notFound("c"))
+                .verifyComplete();
+        assertEquals(1, taskStore.size());
+    }
+
+    @Test
+    void testDeleteMatchingTitle() {
+        taskStore.insertAll(List.of(task("a", "Done"), task("b", "Open"), task("c", "Done"))).blockLast();
+
+        StepVerifier.create(taskStore.deleteMatching(TaskQuery.search(null, "Done", null, 0)))
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(taskStore.find(TaskQuery.all()).map(Task::getId))
+                .expectNext("b")
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindPagesById() {
+        taskStore.insertAll(List.of(task("c", "Title"), task("a", "Title"), task("d", "Title"), task("b", "Title"))).blockLast();
+
+        StepVerifier.create(taskStore.find(TaskQuery.page("a", 2, Sort.Direction.ASC, null)).map(Task::getId))
+                .expectNext("b", "c")
+                .verifyComplete();
+        StepVerifier.create(taskStore.find(TaskQuery.page("c", 5, Sort.Direction.DESC, null)).map(Task::getId))
+                .expectNext("b", "a")
+                .verifyComplete();
+        StepVerifier.create(taskStore.find(TaskQuery.all()).map(Task::getId))
+                .expectNext("a", "b", "c", "d")
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindProjectsFields() {
+        taskStore.insert(task("a", "Title")).block();
+
+        StepVerifier.create(taskStore.find(TaskQuery.page(null, 1, Sort.Direction.ASC, List.of("title"))))
+                .expectNextMatches(task -> task.getTitle().equals("Title") && task.getDescription() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void testSearchMatchesWordsAndTitle() {
+        Task amazing = task("a", "An amazing task");
+        Task plain = task("b", "Plain");
+        plain.setDescription("Nothing AMAZING here");
+        Task other = task("c", "Plain");
+        taskStore.insertAll(List.of(amazing, plain, other)).blockLast();
+
+        StepVerifier.create(taskStore.find(TaskQuery.search("amazing", null, null, 10)).map(Task::getId))
+                .expectNext("a", "b")
+                .verifyComplete();
+        StepVerifier.create(taskStore.find(TaskQuery.search("amazing", "Plain", null, 10)).map(Task::getId))
+                .expectNext("b")
+                .verifyComplete();
+        StepVerifier.create(taskStore.find(TaskQuery.search(null, "Plain", "b", 10)).map(Task::getId))
+                .expectNext("c")
+                .verifyComplete();
+    }
+
+    @Test
+    void testRestoresFromSnapshotAndLog(@TempDir Path directory) throws Exception {
+        InMemoryTaskStore first = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        first.start();
+        Task task = task("a", "Title");
+        task.setSubTasks(List.of(subTask("Sub")));
+        first.insert(task).block();
+        first.insert(task("b", "Other")).block();
+        first.snapshot();
+        first.update(task("a", "Updated")).block();
+        first.deleteById("b").block();
+        first.insert(task("c", "Third")).block();
+        first.stop();
+
+        InMemoryTaskStore second = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        second.start();
+
+        assertEquals(2, second.size());
+        Task restored = second.findById("a").block();
+        assertEquals("Updated", restored.getTitle());
+        assertEquals(1L, restored.getVersion());
+        assertNull(second.findById("b").block());
+        assertEquals("Third", second.findById("c").block().getTitle());
+    }
+
+    @Test
+    void testReplaysLogWrittenAfterLastSnapshot(@TempDir Path directory) throws Exception {
+        InMemoryTaskStore first = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        first.start();
+        first.insert(task("a", "Title")).block();
+        first.snapshot();
+        first.patch("a", 0L, List.of(new TaskPatchOperation("add", "/subTasks/-", subTaskNode("Logged")))).block();
+        // No stop(): the process dies without a final snapshot.
+
+        InMemoryTaskStore second = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        second.start();
+
+        Task restored = second.findById("a").block();
+        assertEquals("Logged", restored.getSubTasks().get(0).getTitle());
+        assertEquals(1L, restored.getVersion());
+    }
+
+    @Test
+    void testReplaysBulkWrites(@TempDir Path directory) throws Exception {
+        InMemoryTaskStore first = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        first.start();
+        first.insertAll(List.of(task("a", "Title"), task("b", "Title"), task("c", "Done"))).blockLast();
+        first.updateAll(List.of(task("a", "New"))).blockLast();
+        first.deleteAll(List.of("b")).blockLast();
+        first.deleteMatching(TaskQuery.search(null, "Done", null, 0)).block();
+
+        InMemoryTaskStore second = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        second.start();
+
+        assertEquals(1, second.size());
+        assertEquals("New", second.findById("a").block().getTitle());
+    }
+
+    @Test
+    void testSkipsTornRecordAtEndOfLog(@TempDir Path directory) throws Exception {
+        InMemoryTaskStore first = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        first.start();
+        first.insert(task("a", "Title")).block();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 1, 0, 7}, StandardOpenOption.APPEND);
+
+        InMemoryTaskStore second = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        second.start();
+
+        assertEquals(1, second.size());
+        assertEquals("Title", second.findById("a").block().getTitle());
+    }
+
+    @Test
+    void testWriteThatFailsToSyncIsNeverRead(@TempDir Path directory) throws Exception {
+        InMemoryTaskStore store = new InMemoryTaskStore(directory, Duration.ZERO, true);
+        store.start();
+        store.insert(task("a", "Title")).block();
+        FileChannel channel = (FileChannel) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(store, "taskLog"), "channel");
+        channel.close();
+
+        StepVerifier.create(store.update(task("a", "Lost")))
+                .expectError(ClosedChannelException.class)
+                .verify();
+        StepVerifier.create(store.insert(task("b", "Lost")))
+                .expectError(UncheckedIOException.class)
+                .verify();
+
+        assertEquals("Title", store.findById("a").block().getTitle());
+        assertNull(store.findById("b").block());
+        assertEquals(1, store.size());
+    }
+
+    private static Task task(String id, String title) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle(title);
+        task.setDescription("Desc");
+        return task;
+    }
+
+    private static SubTask subTask(String title) {
+        SubTask subTask = new SubTask();
+        subTask.setTitle(title);
+        subTask.setDescription("Desc");
+        return subTask;
+    }
+
+    private static ObjectNode subTaskNode(String title) {
+        return JSON.objectNode().put("title", title).put("description", "Desc");
+    }
+}
@@ -0,0 +1,592 @@
+package management.task.prototal.task_manager.store;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import management.task.prototal.task_manager.dto.TaskBatchResult;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import management.task.prototal.task_manager.exception.TaskNotFoundException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoTaskStoreTest {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+
+    private final MongoTaskStore taskStore = new MongoTaskStore(reactiveMongoTemplate, 16, TaskReadRouting.primary());
+
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        task = new Task();
+        task.setId("a");
+        task.setTitle("Title");
+        task.setDescription("Desc");
+    }
+
+    @Test
+    void testInsert() {
+        when(reactiveMongoTemplate.insert(any(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskStore.insert(task))
+                .expectNext(task)
+                .verifyComplete();
+        verify(reactiveMongoTemplate, never()).exists(any(Query.class), eq(Task.class));
+    }
+
+    @Test
+    void testInsertWithExistingId() {
+        when(reactiveMongoTemplate.insert(any(Task.class))).thenReturn(Mono.error(new DuplicateKeyException("E11000")));
+
+        StepVerifier.create(taskStore.insert(task))
+                .expectError(DuplicateTaskException.class)
+                .verify();
+    }
+
+    @Test
+    void testInsertAll() {
+        ReactiveBulkOperations bulkOperations = mock(ReactiveBulkOperations.class);
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+        StepVerifier.create(taskStore.insertAll(List.of(task)))
+                .expectNext(TaskBatchResult.created("a"))
+                .verifyComplete();
+        assertEquals(0L, task.getVersion());
+    }
+
+    @Test
+    void testInsertAllReportsDuplicatesPerItem() {
+        Task duplicate = new Task();
+        duplicate.setId("b");
+        duplicate.setTitle("Title");
+        duplicate.setDescription("Desc");
+
+        MongoBulkWriteException bulkWriteException = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)),
+                null, new ServerAddress(), Set.of());
+        ReactiveBulkOperations bulkOperations = mock(ReactiveBulkOperations.class);
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.error(new DuplicateKeyException("duplicate", bulkWriteException)));
+
+        StepVerifier.create(taskStore.insertAll(List.of(task, duplicate)))
+                .expectNext(TaskBatchResult.created("a"))
+                .expectNext(TaskBatchResult.duplicate("b"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindAll() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenReturn(Flux.just(task));
+
+        StepVerifier.create(taskStore.find(TaskQuery.all()))
+                .expectNext(task)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(Task.class));
+        assertEquals(16, query.getValue().getMeta().getCursorBatchSize());
+        assertTrue(query.getValue().getQueryObject().isEmpty());
+        assertTrue(query.getValue().getSortObject().isEmpty());
+    }
+
+    @Test
+    void testFindAllBoundsUpstreamDemand() {
+        Task[] tasks = new Task[100];
+        Arrays.fill(tasks, task);
+        List<Long> requests = new ArrayList<>();
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class)))
+                .thenReturn(Flux.just(tasks).doOnRequest(requests::add));
+
+        StepVerifier.create(taskStore.find(TaskQuery.all()))
+                .expectNextCount(100)
+                .verifyComplete();
+
+        assertEquals(16L, requests.get(0));
+        requests.forEach(requested -> assertTrue(requested <= 16));
+    }
+
+    @Test
+    void testFindPageUsesKeysetOnId() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenReturn(Flux.just(task));
+
+        StepVerifier.create(taskStore.find(TaskQuery.page("a", 10, Sort.Direction.DESC, List.of("title"))))
+                .expectNext(task)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(Task.class));
+        assertEquals(new Document("$lt", "a"), query.getValue().getQueryObject().get("_id"));
+        assertEquals(10, query.getValue().getLimit());
+        assertEquals(-1, query.getValue().getSortObject().getInteger("_id"));
+        assertEquals(1, query.getValue().getFieldsObject().getInteger("title"));
+    }
+
+    @Test
+    void testSearchCombinesTextTitleAndCursor() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenReturn(Flux.just(task));
+
+        StepVerifier.create(taskStore.find(TaskQuery.search("amazing task", "Title", "a", 20)))
+                .expectNext(task)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(Task.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals(new Document("$search", "amazing task"), filter.get("$text"));
+        assertEquals("Title", filter.get("title"));
+        assertEquals(new Document("$gt", "a"), filter.get("_id"));
+        assertEquals(new Document("_id", 1), query.getValue().getSortObject());
+        assertEquals(20, query.getValue().getLimit());
+    }
+
+    @Test
+    void testSearchByTitleOnly() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(taskStore.find(TaskQuery.search(null, "Title", null, 20))).verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(Task.class));
+        assertEquals(new Document("title", "Title"), query.getValue().getQueryObject());
+    }
+
+    @Test
+    void testDescribeMasksValues() {
+        assertEquals("filter={\"title\": \"?\"} sort={\"_id\": 1} limit=20",
+                taskStore.describe(TaskQuery.search(null, "Secret", null, 20)));
+    }
+
+    @Test
+    void testFindById() {
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskStore.findById("a"))
+                .expectNext(task)
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindByIdWithDepthProjectsOutDeeperSubTasks() {
+        SubTask child = new SubTask();
+        child.setTitle("Child");
+        SubTask parent = new SubTask();
+        parent.setTitle("Parent");
+        parent.setSubTasks(List.of(child));
+        task.setSubTasks(List.of(parent));
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskStore.findById("a", 1))
+                .expectNextMatches(found -> found.getSubTasks().get(0).getSubTasks().isEmpty()
+                        && found.getSubTasks().get(0).getSubTaskCount() == 1)
+                .verifyComplete();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).findOne(query.capture(), eq(Task.class));
+        assertEquals(new Document("subTasks.subTasks.subTasks", 0), query.getValue().getFieldsObject());
+    }
+
+    @Test
+    void testFindSubTreeProjectsBelowThePath() {
+        SubTask child = new SubTask();
+        child.setTitle("Child");
+        task.setSubTasks(List.of(new SubTask(), child));
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskStore.findSubTree("a", List.of(1), 0))
+                .expectNextMatches(subTask -> subTask.getTitle().equals("Child"))
+                .verifyComplete();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).findOne(query.capture(), eq(Task.class));
+        assertEquals(new Document("subTasks.subTasks.subTasks", 0), query.getValue().getFieldsObject());
+    }
+
+    @Test
+    void testFindByIdsUsesIn() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenReturn(Flux.just(task));
+
+        StepVerifier.create(taskStore.findByIds(List.of("a", "b")))
+                .expectNext(task)
+                .verifyComplete();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(Task.class));
+        assertEquals(new Document("_id", new Document("$in", List.of("a", "b"))), query.getValue().getQueryObject());
+    }
+
+    @Test
+    void testUpdate() {
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(), any(FindAndModifyOptions.class), eq(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskStore.update(task))
+                .expectNext(task)
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateChecksVersion() {
+        task.setVersion(2L);
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(), any(FindAndModifyOptions.class), eq(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskStore.update(task))
+                .expectNext(task)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(reactiveMongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Task.class));
+        assertEquals(new Document("_id", "a").append("version", 2L), query.getValue().getQueryObject());
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void testUpdateWithStaleVersion() {
+        task.setVersion(2L);
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(), any(FindAndModifyOptions.class), eq(Task.class))).thenReturn(Mono.empty());
+        when(reactiveMongoTemplate.exists(any(Query.class), eq(Task.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(taskStore.update(task))
+                .expectError(TaskVersionConflictException.class)
+                .verify();
+    }
+
+    @Test
+    void testUpdateNotFound() {
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(), any(FindAndModifyOptions.class), eq(Task.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(taskStore.update(task))
+                .expectError(TaskNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testPatchWritesOnlyPatchedFields() {
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Task.class)))
+                .thenReturn(Mono.just(task));
+
+        StepVerifier.create(taskStore.patch("a", null, List.of(new TaskPatchOperation("replace", "/title", new TextNode("New")))))
+                .expectNext(task)
+                .verifyComplete();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(reactiveMongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Task.class));
+        assertEquals(new Document("$set", new Document("title", "New")).append("$inc", new Document("version", 1)),
+                update.getValue().getUpdateObject());
+    }
+
+    @Test
+    void testPatchMatchesOnlyWhileThePatchedSubTasksExist() {
+        Task stored = new Task();
+        stored.setId("a");
+        stored.setVersion(3L);
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Task.class)))
+                .thenReturn(Mono.empty());
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(Task.class))).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(taskStore.patch("a", 3L, List.of(new TaskPatchOperation("replace", "/subTasks/5/title", new TextNode("New")))))
+                .expectError(InvalidTaskException.class)
+                .verify();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Task.class));
+        assertEquals(new Document("_id", "a").append("version", 3L).append("subTasks.5", new Document("$exists", true)),
+                query.getValue().getQueryObject());
+    }
+
+    @Test
+    void testPatchRemovingASubTaskWritesTheWholeTaskOnce() {
+        Task stored = new Task();
+        stored.setId("a");
+        stored.setTitle("Title");
+        stored.setDescription("Desc");
+        stored.setVersion(3L);
+        stored.setSubTasks(new ArrayList<>(List.of(subTask("First"), subTask("Second"))));
+        when(reactiveMongoTemplate.findById("a", Task.class)).thenReturn(Mono.just(stored));
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Task.class)))
+                .thenReturn(Mono.just(stored));
+
+        StepVerifier.create(taskStore.patch("a", null, List.of(new TaskPatchOperation("remove", "/subTasks/0", null))))
+                .expectNext(stored)
+                .verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(reactiveMongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Task.class));
+        assertEquals(new Document("_id", "a").append("version", 3L), query.getValue().getQueryObject());
+        @SuppressWarnings("unchecked")
+        List<SubTask> subTasks = (List<SubTask>) update.getValue().getUpdateObject().get("$set", Document.class).get("subTasks");
+        assertEquals(List.of("Second"), subTasks.stream().map(SubTask::getTitle).toList());
+    }
+
+    @Test
+    void testUpdateAllInOneBulkWrite() {
+        ReactiveBulkOperations bulkOperations = mock(ReactiveBulkOperations.class);
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of())));
+
+        StepVerifier.create(taskStore.updateAll(List.of(task)))
+                .expectNext(TaskBatchResult.updated("a"))
+                .verifyComplete();
+        verify(bulkOperations).updateOne(any(Query.class), any(Update.class));
+        verify(reactiveMongoTemplate, never()).find(any(Query.class), eq(Task.class));
+    }
+
+    @Test
+    void testUpdateAllWritesARepeatedIdOnce() {
+        Task repeat = new Task();
+        repeat.setId("a");
+        repeat.setTitle("Again");
+        repeat.setDescription("Desc");
+        ReactiveBulkOperations bulkOperations = mock(ReactiveBulkOperations.class);
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of())));
+
+        StepVerifier.create(taskStore.updateAll(List.of(task, repeat)))
+                .expectNext(TaskBatchResult.updated("a"))
+                .expectNext(TaskBatchResult.invalid("a", "Task with ID a appears more than once in the batch."))
+                .verifyComplete();
+        verify(bulkOperations).updateOne(any(Query.class), any(Update.class));
+    }
+
+    @Test
+    void testUpdateAllReportsUnmatchedTasks() {
+        Task stale = new Task();
+        stale.setId("b");
+        stale.setTitle("Title");
+        stale.setDescription("Desc");
+        stale.setVersion(2L);
+        Task missing = new Task();
+        missing.setId("c");
+        missing.setTitle("Title");
+        missing.setDescription("Desc");
+
+        ReactiveBulkOperations bulkOperations = unmatchedBulkWrite();
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenAnswer(invocation -> Flux.just(
+                stored("a", writeToken(bulkOperations)),
+                stored("b", new ObjectId())));
+
+        StepVerifier.create(taskStore.updateAll(List.of(task, stale, missing)))
+                .expectNext(TaskBatchResult.updated("a"))
+                .expectNext(TaskBatchResult.conflict("b", 2L))
+                .expectNext(TaskBatchResult.notFound("c"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateAllReportsAConcurrentWriteAtTheNextVersionAsConflict() {
+        task.setVersion(2L);
+        Task other = new Task();
+        other.setId("b");
+        other.setTitle("Title");
+        other.setDescription("Desc");
+        other.setVersion(7L);
+
+        ReactiveBulkOperations bulkOperations = unmatchedBulkWrite();
+        // Another writer moved "a" from version 2 to 3 before the batch, and left it without this batch's token.
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenAnswer(invocation -> Flux.just(
+                stored("a", null),
+                stored("b", writeToken(bulkOperations))));
+
+        StepVerifier.create(taskStore.updateAll(List.of(task, other)))
+                .expectNext(TaskBatchResult.conflict("a", 2L))
+                .expectNext(TaskBatchResult.updated("b"))
+                .verifyComplete();
+    }
+
+    /**
+     * A bulk write that matches only one of the tasks.
+     */
+    private ReactiveBulkOperations unmatchedBulkWrite() {
+        ReactiveBulkOperations bulkOperations = mock(ReactiveBulkOperations.class);
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of())));
+        return bulkOperations;
+    }
+
+    private static ObjectId writeToken(ReactiveBulkOperations bulkOperations) {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, atLeastOnce()).updateOne(any(Query.class), update.capture());
+        return (ObjectId) update.getValue().getUpdateObject().get("$set", Document.class).get(MongoTaskStore.WRITE_TOKEN);
+    }
+
+    private static Task stored(String id, ObjectId writeToken) {
+        Task stored = new Task();
+        stored.setId(id);
+        stored.setWriteToken(writeToken);
+        return stored;
+    }
+
+    @Test
+    void testDeleteAllIsASingleRemoveWithIn() {
+        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(DeleteResult.acknowledged(2)));
+
+        StepVerifier.create(taskStore.deleteAll(List.of("a", "b", "a")))
+                .expectNext(TaskBatchResult.deleted("a"))
+                .expectNext(TaskBatchResult.deleted("b"))
+                .verifyComplete();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).remove(query.capture(), eq(Task.class));
+        assertEquals(new Document("_id", new Document("$in", List.of("a", "b"))), query.getValue().getQueryObject());
+        verify(reactiveMongoTemplate, never()).find(any(Query.class), eq(Task.class));
+    }
+
+    @Test
+    void testDeleteAllReportsMissingIdsWhenNothingWasDeleted() {
+        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(DeleteResult.acknowledged(0)));
+
+        StepVerifier.create(taskStore.deleteAll(List.of("a", "b")))
+                .expectNext(TaskBatchResult.notFound("a"))
+                .expectNext(TaskBatchResult.notFound("b"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testDeleteAllCountsMissingIdsItCannotName() {
+        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(DeleteResult.acknowledged(2)));
+
+        StepVerifier.create(taskStore.deleteAll(List.of("a", "b", "c")))
+                .expectNext(TaskBatchResult.deleted(null))
+                .expectNext(TaskBatchResult.deleted(null))
+                .expectNext(TaskBatchResult.notFoundAmongOthers())
+                .verifyComplete();
+    }
+
+    @Test
+    void testDeleteMatchingTitle() {
+        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(DeleteResult.acknowledged(3)));
+
+        StepVerifier.create(taskStore.deleteMatching(TaskQuery.search(null, "Done", null, 0)))
+                .expectNext(3L)
+                .verifyComplete();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).remove(query.capture(), eq(Task.class));
+        assertEquals(new Document("title", "Done"), query.getValue().getQueryObject());
+    }
+
+    @Test
+    void testDeleteById() {
+        DeleteResult deleteResult = mock(DeleteResult.class);
+        when(deleteResult.getDeletedCount()).thenReturn(1L);
+        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(deleteResult));
+
+        StepVerifier.create(taskStore.deleteById("a"))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void testDeleteByIdNotFound() {
+        DeleteResult deleteResult = mock(DeleteResult.class);
+        when(deleteResult.getDeletedCount()).thenReturn(0L);
+        when(reactiveMongoTemplate.remove(any(Query.class), eq(Task.class))).thenReturn(Mono.just(deleteResult));
+
+        StepVerifier.create(taskStore.deleteById("a"))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void testReadsFollowTheRoutingOfEachOperation() {
+        MongoTaskStore routedStore = routedStore();
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Task.class))).thenReturn(Flux.just(task));
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(routedStore.find(TaskQuery.all())).expectNext(task).verifyComplete();
+        StepVerifier.create(routedStore.find(TaskQuery.page(null, 10, Sort.Direction.ASC, null)))
+                .expectNext(task)
+                .verifyComplete();
+        StepVerifier.create(routedStore.findById("a")).expectNext(task).verifyComplete();
+
+        ArgumentCaptor<Query> finds = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate, times(2)).find(finds.capture(), eq(Task.class));
+        assertEquals(ReadPreference.secondaryPreferred(), finds.getAllValues().get(0).getReadPreference());
+        assertFalse(finds.getAllValues().get(1).hasReadPreference());
+        ArgumentCaptor<Query> findOne = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).findOne(findOne.capture(), eq(Task.class));
+        assertEquals(ReadPreference.secondaryPreferred(), findOne.getValue().getReadPreference());
+        verify(reactiveMongoTemplate, never()).findById(any(), eq(Task.class));
+    }
+
+    @Test
+    void testReadsATaskWrittenThroughTheStoreFromThePrimary() {
+        MongoTaskStore routedStore = routedStore();
+        when(reactiveMongoTemplate.insert(any(Task.class))).thenReturn(Mono.just(task));
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(Task.class))).thenReturn(Mono.just(task));
+
+        StepVerifier.create(routedStore.insert(task).then(routedStore.findById("a")))
+                .expectNext(task)
+                .verifyComplete();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).findOne(query.capture(), eq(Task.class));
+        assertFalse(query.getValue().hasReadPreference());
+    }
+
+    @Test
+    void testPrimaryReadsKeepTheTemplatesReadPreference() {
+        Query query = new Query();
+
+        assertSame(query, MongoTaskStore.routed(query, ReadPreference.primary()));
+        assertFalse(query.hasReadPreference());
+    }
+
+    /**
+     * A store reading by id and getAll from secondaries.
+     */
+    private MongoTaskStore routedStore() {
+        TaskReadRouting readRouting = new TaskReadRouting("secondaryPreferred", "primary", "secondaryPreferred",
+                "primary", Duration.ZERO, Duration.ofMinutes(1));
+        return new MongoTaskStore(reactiveMongoTemplate, 16, readRouting);
+    }
+
+    private static SubTask subTask(String title) {
+        SubTask subTask = new SubTask();
+        subTask.setTitle(title);
+        subTask.setDescription("Desc");
+        return subTask;
+    }
+}
@@ -0,0 +1,252 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.client.result.DeleteResult;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.exception.DuplicateTaskException;
+import management.task.prototal.task_manager.exception.TaskVersionConflictException;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NormalizedMongoTaskStoreTest {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+
+    private final NormalizedMongoTaskStore taskStore = new NormalizedMongoTaskStore(reactiveMongoTemplate, 16,
+            TaskReadRouting.primary());
+
+    @BeforeEach
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(reactiveMongoTemplate.getConverter()).thenReturn(converter);
+        when(reactiveMongoTemplate.insertAll(anyCollection())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(reactiveMongoTemplate.remove(any(Query.class), eq(SubTaskNode.class))).thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+    }
+
+    @Test
+    void testInsertWritesSubTasksByPathThenTaskDocument() {
+        when(reactiveMongoTemplate.insert(any(Document.class), eq("tasks"))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(taskStore.insert(tree()))
+                .expectNextMatches(task -> task.getVersion() == 0L)
+                .verifyComplete();
+
+        List<SubTaskNode> nodes = insertedNodes();
+        assertEquals(List.of("000000", "000000.000000", "000001"), nodes.stream().map(SubTaskNode::getPath).toList());
+        assertEquals(List.of(1, 2, 1), nodes.stream().map(SubTaskNode::getDepth).toList());
+        assertEquals(List.of(1, 0, 0), nodes.stream().map(SubTaskNode::getSubTaskCount).toList());
+        ArgumentCaptor<Document> document = ArgumentCaptor.forClass(Document.class);
+        verify(reactiveMongoTemplate).insert(document.capture(), eq("tasks"));
+        assertEquals(2, document.getValue().get("subTaskCount"));
+        assertEquals(nodes.get(0).getRevision(), document.getValue().get("subTaskRevision"));
+        assertFalse(document.getValue().containsKey("subTasks"));
+    }
+
+    @Test
+    void testInsertWithExistingIdDiscardsItsSubTasks() {
+        when(reactiveMongoTemplate.insert(any(Document.class), eq("tasks"))).thenReturn(Mono.error(new DuplicateKeyException("E11000")));
+
+        StepVerifier.create(taskStore.insert(tree()))
+                .expectError(DuplicateTaskException.class)
+                .verify();
+
+        ArgumentCaptor<Query> discarded = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).remove(discarded.capture(), eq(SubTaskNode.class));
+        assertEquals(new Document("taskId", new Document("$in", List.of("a")))
+                        .append("revision", new Document("$in", List.of(insertedNodes().get(0).getRevision()))),
+                discarded.getValue().getQueryObject());
+    }
+
+    @Test
+    void testFindByIdRebuildsTreeFromNodesInPathOrder() {
+        when(reactiveMongoTemplate.findById(eq("a"), eq(Document.class), eq("tasks"))).thenReturn(Mono.just(taskDocument("r1")));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(SubTaskNode.class))).thenReturn(Flux.fromIterable(nodes("r1")));
+        when(reactiveMongoTemplate.exists(any(Query.class), eq("tasks"))).thenReturn(Mono.just(true));
+
+        Task task = taskStore.findById("a").block();
+
+        assertEquals(tree().getSubTasks(), task.getSubTasks());
+        assertNull(task.getSubTaskCount());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(SubTaskNode.class));
+        assertEquals(new Document("taskId", "a").append("revision", "r1"), query.getValue().getQueryObject());
+        assertEquals(new Document("path", 1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void testFindByIdWithDepthReadsOnlyThatManyLevels() {
+        when(reactiveMongoTemplate.findById(eq("a"), eq(Document.class), eq("tasks"))).thenReturn(Mono.just(taskDocument("r1")));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(SubTaskNode.class)))
+                .thenReturn(Flux.fromIterable(nodes("r1")).filter(node -> node.getDepth() == 1));
+        when(reactiveMongoTemplate.exists(any(Query.class), eq("tasks"))).thenReturn(Mono.just(true));
+
+        Task task = taskStore.findById("a", 1).block();
+
+        assertEquals(1, task.getSubTasks().get(0).getSubTaskCount());
+        assertEquals(List.of(), task.getSubTasks().get(0).getSubTasks());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(SubTaskNode.class));
+        assertEquals(new Document("$lte", 1), query.getValue().getQueryObject().get("depth"));
+    }
+
+    @Test
+    void testFindByIdWithDepthZeroReadsTaskDocumentOnly() {
+        when(reactiveMongoTemplate.findById(eq("a"), eq(Document.class), eq("tasks"))).thenReturn(Mono.just(taskDocument("r1")));
+
+        StepVerifier.create(taskStore.findById("a", 0))
+                .expectNextMatches(task -> task.getSubTaskCount() == 2 && task.getSubTasks().isEmpty())
+                .verifyComplete();
+        verify(reactiveMongoTemplate, never()).find(any(Query.class), eq(SubTaskNode.class));
+    }
+
+    @Test
+    void testFindByIdReadsAgainWhenTreeWasReplaced() {
+        when(reactiveMongoTemplate.findById(eq("a"), eq(Document.class), eq("tasks")))
+                .thenReturn(Mono.just(taskDocument("r1")), Mono.just(taskDocument("r2")));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(SubTaskNode.class)))
+                .thenReturn(Flux.empty(), Flux.fromIterable(nodes("r2")));
+        when(reactiveMongoTemplate.exists(any(Query.class), eq("tasks"))).thenReturn(Mono.just(false), Mono.just(true));
+
+        assertEquals(tree().getSubTasks(), taskStore.findById("a").block().getSubTasks());
+        verify(reactiveMongoTemplate, times(2)).find(any(Query.class), eq(SubTaskNode.class));
+    }
+
+    @Test
+    void testFindSubTreeReadsPathRange() {
+        when(reactiveMongoTemplate.findById(eq("a"), eq(Document.class), eq("tasks"))).thenReturn(Mono.just(taskDocument("r1")));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(SubTaskNode.class)))
+                .thenReturn(Flux.fromIterable(nodes("r1")).filter(node -> node.getPath().startsWith("000000")));
+        when(reactiveMongoTemplate.exists(any(Query.class), eq("tasks"))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(taskStore.findSubTree("a", List.of(0), 1))
+                .expectNext(tree().getSubTasks().get(0))
+                .verifyComplete();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(SubTaskNode.class));
+        assertEquals(new Document("$gte", "000000").append("$lt", "000000/"), query.getValue().getQueryObject().get("path"));
+        assertEquals(new Document("$lte", 2), query.getValue().getQueryObject().get("depth"));
+    }
+
+    @Test
+    void testUpdateSwitchesRevisionThenDeletesThePreviousOne() {
+        Document previous = taskDocument("r1");
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Document.class), eq("tasks")))
+                .thenReturn(Mono.just(previous));
+        Task task = tree();
+        task.setVersion(3L);
+
+        StepVerifier.create(taskStore.update(task))
+                .expectNextMatches(updated -> updated.getVersion() == 4L)
+                .verifyComplete();
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(reactiveMongoTemplate).findAndModify(any(Query.class), update.capture(), eq(Document.class), eq("tasks"));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(insertedNodes().get(0).getRevision(), set.get("subTaskRevision"));
+        ArgumentCaptor<Query> discarded = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).remove(discarded.capture(), eq(SubTaskNode.class));
+        assertEquals(new Document("$in", List.of("r1")), discarded.getValue().getQueryObject().get("revision"));
+    }
+
+    @Test
+    void testUpdateWithStaleVersionDiscardsNewTree() {
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Document.class), eq("tasks")))
+                .thenReturn(Mono.empty());
+        when(reactiveMongoTemplate.exists(any(Query.class), eq(Task.class))).thenReturn(Mono.just(true));
+        Task task = tree();
+        task.setVersion(3L);
+
+        StepVerifier.create(taskStore.update(task))
+                .expectError(TaskVersionConflictException.class)
+                .verify();
+
+        ArgumentCaptor<Query> discarded = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).remove(discarded.capture(), eq(SubTaskNode.class));
+        assertEquals(new Document("$in", List.of(insertedNodes().get(0).getRevision())),
+                discarded.getValue().getQueryObject().get("revision"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SubTaskNode> insertedNodes() {
+        ArgumentCaptor<Collection<SubTaskNode>> nodes = ArgumentCaptor.forClass(Collection.class);
+        verify(reactiveMongoTemplate).insertAll(nodes.capture());
+        return new ArrayList<>(nodes.getValue());
+    }
+
+    /**
+     * Task a with sub-tasks Parent (with Child) and Leaf.
+     */
+    private static Task tree() {
+        SubTask parent = subTask("Parent");
+        parent.setSubTasks(new ArrayList<>(List.of(subTask("Child"))));
+        Task task = new Task();
+        task.setId("a");
+        task.setTitle("Title");
+        task.setDescription("Desc");
+        task.setSubTasks(new ArrayList<>(List.of(parent, subTask("Leaf"))));
+        return task;
+    }
+
+    private static List<SubTaskNode> nodes(String revision) {
+        return List.of(node(revision, "000000", 1, "Parent", 1),
+                node(revision, "000000.000000", 2, "Child", 0),
+                node(revision, "000001", 1, "Leaf", 0));
+    }
+
+    private static SubTaskNode node(String revision, String path, int depth, String title, int subTaskCount) {
+        SubTaskNode node = new SubTaskNode();
+        node.setTaskId("a");
+        node.setRevision(revision);
+        node.setPath(path);
+        node.setDepth(depth);
+        node.setTitle(title);
+        node.setDescription("Desc");
+        node.setSubTaskCount(subTaskCount);
+        return node;
+    }
+
+    private static Document taskDocument(String revision) {
+        return new Document("_id", "a")
+                .append("title", "Title")
+                .append("description", "Desc")
+                .append("version", 3L)
+                .append("subTaskCount", 2)
+                .append("subTaskRevision", revision);
+    }
+
+    private static SubTask subTask(String title) {
+        SubTask subTask = new SubTask();
+        subTask.setTitle(title);
+        subTask.setDescription("Desc");
+        return subTask;
+    }
+}
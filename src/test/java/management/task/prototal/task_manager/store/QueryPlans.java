@@ -0,0 +1,90 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import management.task.prototal.task_manager.entity.Task;
+import org.bson.Document;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test utility that explains every query issued through a spied ReactiveMongoTemplate and fails if any of
+ * them would scan the whole tasks collection. Updates and deletes are explained as finds with the same
+ * filter, which is the part that picks the plan. An unfiltered, unsorted find is a deliberate full read
+ * (getAll) and is not reported.
+ */
+final class QueryPlans {
+
+    private QueryPlans() {
+    }
+
+    static void assertNoCollectionScans(ReactiveMongoTemplate spiedTemplate) {
+        List<String> scans = new ArrayList<>();
+        for (Query query : issuedQueries(spiedTemplate)) {
+            if (query.getQueryObject().isEmpty() && query.getSortObject().isEmpty()) {
+                continue;
+            }
+            Document explain = explain(spiedTemplate, query);
+            if (containsStage(explain.get("queryPlanner"), "COLLSCAN")) {
+                scans.add(query.toString());
+            }
+        }
+        if (!scans.isEmpty()) {
+            fail("Queries scan the tasks collection:\n" + String.join("\n", scans));
+        }
+    }
+
+    private static List<Query> issuedQueries(ReactiveMongoTemplate spiedTemplate) {
+        List<Query> queries = new ArrayList<>();
+        for (Invocation invocation : Mockito.mockingDetails(spiedTemplate).getInvocations()) {
+            Object[] arguments = invocation.getArguments();
+            if (invocation.getMethod().getName().equals("findById")) {
+                queries.add(new Query(Criteria.where("_id").is(arguments[0])));
+                continue;
+            }
+            for (Object argument : arguments) {
+                if (argument instanceof Query query) {
+                    queries.add(query);
+                }
+            }
+        }
+        return queries;
+    }
+
+    private static Document explain(ReactiveMongoTemplate template, Query query) {
+        MongoPersistentEntity<?> entity = template.getConverter().getMappingContext().getRequiredPersistentEntity(Task.class);
+        QueryMapper queryMapper = new QueryMapper(template.getConverter());
+        MongoCollection<Document> collection = template.getCollection(template.getCollectionName(Task.class)).block();
+        FindPublisher<Document> find = collection.find(queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .sort(queryMapper.getMappedSort(query.getSortObject(), entity))
+                .projection(queryMapper.getMappedFields(query.getFieldsObject(), entity));
+        if (query.isLimited()) {
+            find = find.limit(query.getLimit());
+        }
+        return Mono.from(find.explain(Document.class)).block();
+    }
+
+    private static boolean containsStage(Object plan, String stage) {
+        if (plan instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (plan instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+}
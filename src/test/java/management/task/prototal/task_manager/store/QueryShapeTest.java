@@ -0,0 +1,35 @@
+package management.task.prototal.task_manager.store;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryShapeTest {
+
+    @Test
+    void testMasksFilterValues() {
+        Query query = new Query(Criteria.where("_id").gt("secret-id"))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(50);
+
+        assertEquals("filter={\"_id\": {\"$gt\": \"?\"}} sort={\"_id\": 1} limit=50", QueryShape.of(query));
+    }
+
+    @Test
+    void testMasksProjectedQuery() {
+        Query query = new Query(Criteria.where("title").is("Private title"));
+        query.fields().include("title");
+
+        assertEquals("filter={\"title\": \"?\"} projection={\"title\": 1}", QueryShape.of(query));
+    }
+
+    @Test
+    void testKeepsLogicalClauses() {
+        Query query = new Query(new Criteria().orOperator(Criteria.where("title").is("a"), Criteria.where("description").is("b")));
+
+        assertEquals("filter={\"$or\": [{\"title\": \"?\"}, {\"description\": \"?\"}]}", QueryShape.of(query));
+    }
+}
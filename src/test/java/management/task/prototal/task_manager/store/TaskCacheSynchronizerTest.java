@@ -0,0 +1,97 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.OperationType;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.service.TaskCache;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskCacheSynchronizerTest {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private TaskCache taskCache;
+
+    private TaskCacheSynchronizer synchronizer;
+
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        taskCache = new TaskCache(100, Duration.ofMinutes(1));
+        synchronizer = new TaskCacheSynchronizer(reactiveMongoTemplate, taskCache, "node-1", Duration.ofMinutes(1));
+
+        task = new Task();
+        task.setId("a");
+        task.setTitle("Title");
+        task.setDescription("Desc");
+        taskCache.put(task);
+    }
+
+    @Test
+    void testUpdateReplacesCachedTask() {
+        Task updated = new Task();
+        updated.setId("a");
+        updated.setTitle("Updated");
+        updated.setDescription("Desc");
+
+        synchronizer.apply(OperationType.UPDATE, "a", updated);
+
+        assertEquals(updated, taskCache.get("a", id -> Mono.empty()).block());
+    }
+
+    @Test
+    void testUpdateOfUncachedTaskIsNotCached() {
+        Task other = new Task();
+        other.setId("b");
+
+        synchronizer.apply(OperationType.INSERT, "b", other);
+
+        assertNull(taskCache.get("b", id -> Mono.empty()).block());
+    }
+
+    @Test
+    void testDeleteInvalidatesCachedTask() {
+        synchronizer.apply(OperationType.DELETE, "a", null);
+
+        assertNull(taskCache.get("a", id -> Mono.empty()).block());
+    }
+
+    @Test
+    void testFallsBackToTtlOnlyWhenChangeStreamsAreNotSupported() {
+        MongoCommandException notSupported = new MongoCommandException(
+                BsonDocument.parse("{ok: 0, code: 40573, errmsg: 'The $changeStream stage is only supported on replica sets'}"),
+                new ServerAddress());
+        when(reactiveMongoTemplate.findById(eq("node-1"), eq(Document.class), any())).thenReturn(Mono.empty());
+        when(reactiveMongoTemplate.getCollectionName(Task.class)).thenReturn("tasks");
+        when(reactiveMongoTemplate.changeStream(eq("tasks"), any(ChangeStreamOptions.class), eq(Task.class)))
+                .thenReturn(Flux.error(new UncategorizedMongoDbException(notSupported.getMessage(), notSupported)));
+
+        synchronizer.start();
+
+        verify(reactiveMongoTemplate, after(1500).times(1)).changeStream(eq("tasks"), any(ChangeStreamOptions.class), eq(Task.class));
+        assertEquals(task, taskCache.get("a", id -> Mono.empty()).block());
+        synchronizer.stop();
+    }
+}
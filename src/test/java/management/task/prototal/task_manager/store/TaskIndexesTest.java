@@ -0,0 +1,69 @@
+package management.task.prototal.task_manager.store;
+
+import management.task.prototal.task_manager.entity.Task;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskIndexesTest {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+
+    private final ReactiveIndexOperations indexOps = mock(ReactiveIndexOperations.class);
+
+    private final TaskIndexes taskIndexes = new TaskIndexes(reactiveMongoTemplate, "mongo");
+
+    @Test
+    void testEnsuresDeclaredIndexes() {
+        when(reactiveMongoTemplate.getConverter())
+                .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        when(reactiveMongoTemplate.indexOps(Task.class)).thenReturn(indexOps);
+        when(indexOps.ensureIndex(any())).thenReturn(Mono.error(new IllegalStateException("Index options conflict")),
+                Mono.just("index"));
+
+        StepVerifier.create(taskIndexes.ensureIndexes()).verifyComplete();
+
+        ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps, times(2)).ensureIndex(indexes.capture());
+        List<Document> keys = indexes.getAllValues().stream().map(IndexDefinition::getIndexKeys).toList();
+        assertTrue(keys.contains(new Document("title", 1).append("_id", 1)));
+        assertTrue(keys.stream().anyMatch(key -> "text".equals(key.get("title")) && "text".equals(key.get("description"))));
+        assertEquals(2, keys.size());
+    }
+
+    @Test
+    void testEnsuresSubTaskIndexForNormalizedStore() {
+        ReactiveIndexOperations subTaskIndexOps = mock(ReactiveIndexOperations.class);
+        when(reactiveMongoTemplate.getConverter())
+                .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        when(reactiveMongoTemplate.indexOps(Task.class)).thenReturn(indexOps);
+        when(reactiveMongoTemplate.indexOps(SubTaskNode.class)).thenReturn(subTaskIndexOps);
+        when(indexOps.ensureIndex(any())).thenReturn(Mono.just("index"));
+        when(subTaskIndexOps.ensureIndex(any())).thenReturn(Mono.just("taskId_revision_path_depth"));
+
+        StepVerifier.create(new TaskIndexes(reactiveMongoTemplate, "mongo-normalized").ensureIndexes()).verifyComplete();
+
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(subTaskIndexOps).ensureIndex(index.capture());
+        assertEquals(new Document("taskId", 1).append("revision", 1).append("path", 1).append("depth", 1),
+                index.getValue().getIndexKeys());
+    }
+}
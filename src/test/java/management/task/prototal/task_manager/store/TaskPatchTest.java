@@ -0,0 +1,126 @@
+package management.task.prototal.task_manager.store;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.SubTask;
+import management.task.prototal.task_manager.exception.InvalidTaskException;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskPatchTest {
+
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    @Test
+    void testReplaceFieldsSetsOnlyThosePaths() {
+        TaskPatch patch = TaskPatch.of(List.of(
+                new TaskPatchOperation("replace", "/title", JSON.textNode("New title")),
+                new TaskPatchOperation("replace", "/subTasks/1/subTasks/0/description", JSON.textNode("Nested"))));
+
+        Document set = patch.getUpdate().getUpdateObject().get("$set", Document.class);
+        assertEquals(new Document("title", "New title").append("subTasks.1.subTasks.0.description", "Nested"), set);
+        assertNull(patch.getCleanup());
+    }
+
+    @Test
+    void testAppendsArePushedTogether() {
+        TaskPatch patch = TaskPatch.of(List.of(
+                new TaskPatchOperation("add", "/subTasks/0/subTasks/-", subTask("First")),
+                new TaskPatchOperation("add", "/subTasks/0/subTasks/-", subTask("Second"))));
+
+        Document push = patch.getUpdate().getUpdateObject().get("$push", Document.class);
+        Object[] each = (Object[]) modifier(push.get("subTasks.0.subTasks"), "$each");
+        assertEquals(2, each.length);
+        assertEquals("Second", ((SubTask) each[1]).getTitle());
+    }
+
+    @Test
+    void testInsertAtIndexUsesPosition() {
+        TaskPatch patch = TaskPatch.of(List.of(new TaskPatchOperation("add", "/subTasks/2", subTask("Inserted"))));
+
+        Document push = patch.getUpdate().getUpdateObject().get("$push", Document.class);
+        assertEquals(2, modifier(push.get("subTasks"), "$position"));
+    }
+
+    @Test
+    void testRemoveSubTaskUnsetsThenPulls() {
+        TaskPatch patch = TaskPatch.of(List.of(new TaskPatchOperation("remove", "/subTasks/3/subTasks/1", null)));
+
+        Document unset = patch.getUpdate().getUpdateObject().get("$unset", Document.class);
+        assertEquals(1, unset.get("subTasks.3.subTasks.1"));
+        Document pull = patch.getCleanup().getUpdateObject().get("$pull", Document.class);
+        assertEquals(new Document("subTasks.3.subTasks", null), pull);
+    }
+
+    @Test
+    void testListsTheSubTasksItWritesInto() {
+        TaskPatch patch = TaskPatch.of(List.of(
+                new TaskPatchOperation("replace", "/subTasks/1/subTasks/0/title", JSON.textNode("Nested")),
+                new TaskPatchOperation("replace", "/subTasks/2", subTask("Replaced")),
+                new TaskPatchOperation("add", "/subTasks/4/subTasks/-", subTask("Appended")),
+                new TaskPatchOperation("add", "/subTasks/0", subTask("Inserted"))));
+
+        assertEquals(Set.of("subTasks.1", "subTasks.1.subTasks.0", "subTasks.2", "subTasks.4"), patch.getRequiredPaths());
+    }
+
+    @Test
+    void testRejectsInvalidOperations() {
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of()));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(new TaskPatchOperation("move", "/title", null))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(new TaskPatchOperation("remove", "/title", null))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(new TaskPatchOperation("replace", "/id", JSON.textNode("b")))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(new TaskPatchOperation("replace", "/title", JSON.numberNode(1)))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(new TaskPatchOperation("replace", "/subTasks/x/title", JSON.textNode("t")))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(
+                new TaskPatchOperation("add", "/subTasks/0", subTask("A")),
+                new TaskPatchOperation("add", "/subTasks/-", subTask("B")))));
+    }
+
+    @Test
+    void testRejectsOverlappingPaths() {
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(
+                new TaskPatchOperation("remove", "/subTasks/0", null),
+                new TaskPatchOperation("replace", "/subTasks/0/title", JSON.textNode("t")))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(
+                new TaskPatchOperation("replace", "/subTasks/0/title", JSON.textNode("t")),
+                new TaskPatchOperation("remove", "/subTasks/0", null))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(
+                new TaskPatchOperation("remove", "/subTasks/0", null),
+                new TaskPatchOperation("remove", "/subTasks/0", null))));
+        assertThrows(InvalidTaskException.class, () -> TaskPatch.of(List.of(
+                new TaskPatchOperation("replace", "/subTasks", JSON.arrayNode()),
+                new TaskPatchOperation("replace", "/subTasks/1/description", JSON.textNode("d")))));
+    }
+
+    @Test
+    void testAllowsRemovalsNextToAppends() {
+        TaskPatch patch = TaskPatch.of(List.of(
+                new TaskPatchOperation("remove", "/subTasks/0", null),
+                new TaskPatchOperation("remove", "/subTasks/1", null),
+                new TaskPatchOperation("add", "/subTasks/-", subTask("Appended"))));
+
+        assertEquals(new Document("subTasks.0", 1).append("subTasks.1", 1),
+                patch.getUpdate().getUpdateObject().get("$unset", Document.class));
+    }
+
+    private static Object modifier(Object modifiers, String key) {
+        return ((Update.Modifiers) modifiers).getModifiers().stream()
+                .filter(modifier -> modifier.getKey().equals(key))
+                .findFirst()
+                .map(Update.Modifier::getValue)
+                .orElse(null);
+    }
+
+    private static ObjectNode subTask(String title) {
+        return JSON.objectNode().put("title", title).put("description", "Desc");
+    }
+}
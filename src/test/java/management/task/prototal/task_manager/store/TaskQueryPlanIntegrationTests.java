@@ -0,0 +1,67 @@
+package management.task.prototal.task_manager.store;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import management.task.prototal.task_manager.dto.TaskPatchOperation;
+import management.task.prototal.task_manager.entity.Task;
+import management.task.prototal.task_manager.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Runs every TaskService query against MongoDB and fails if any of them needs a collection scan.
+ */
+@SpringBootTest
+class TaskQueryPlanIntegrationTests {
+
+    @SpyBean
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskIndexes taskIndexes;
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate.dropCollection(Task.class).block();
+        taskIndexes.ensureIndexes().block();
+        Flux.range(0, 50)
+                .map(i -> {
+                    Task task = new Task();
+                    task.setId("task-" + i);
+                    task.setTitle("Title " + i);
+                    task.setDescription("Description " + i);
+                    return task;
+                })
+                .concatMap(reactiveMongoTemplate::insert)
+                .blockLast();
+        Mockito.clearInvocations(reactiveMongoTemplate);
+    }
+
+    @Test
+    void testTaskServiceQueriesUseIndexes() {
+        Task task = taskService.getTaskById("task-1").block();
+        taskService.updateTask(task).block();
+        taskService.patchTask("task-2", null,
+                List.of(new TaskPatchOperation("replace", "/title", TextNode.valueOf("Patched")))).block();
+        taskService.deleteTask("task-3").block();
+        taskService.getAllTasks().blockLast();
+        taskService.getTasks(null, 10, Sort.Direction.ASC, List.of("title")).blockLast();
+        taskService.getTasks("task-10", 10, Sort.Direction.DESC, null).blockLast();
+        taskService.searchTasks("description", null, "task-10", 10).blockLast();
+        taskService.searchTasks(null, "Title 5", null, 10).blockLast();
+        taskService.searchTasks("description", "Title 5", null, 10).blockLast();
+
+        QueryPlans.assertNoCollectionScans(reactiveMongoTemplate);
+    }
+}
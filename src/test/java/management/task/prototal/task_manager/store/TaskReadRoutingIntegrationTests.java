@@ -0,0 +1,148 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import management.task.prototal.task_manager.entity.Task;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs MongoTaskStore reads against a single-member replica set and checks the read preference each find
+ * command was sent with.
+ */
+class TaskReadRoutingIntegrationTests {
+
+    private static final Queue<BsonDocument> finds = new ConcurrentLinkedQueue<>();
+
+    private static MongodExecutable mongod;
+
+    private static MongoClient client;
+
+    private static ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private MongoTaskStore taskStore;
+
+    @BeforeAll
+    static void startReplicaSet() throws Exception {
+        Net net = Net.defaults();
+        int port = net.getPort();
+        mongod = MongodStarter.getDefaultInstance().prepare(MongodConfig.builder()
+                .version(Version.Main.V5_0)
+                .net(net)
+                .replication(new Storage(null, "rs0", 0))
+                .build());
+        mongod.start();
+
+        try (MongoClient direct = MongoClients.create("mongodb://localhost:" + port + "/?directConnection=true")) {
+            Document member = new Document("_id", 0).append("host", "localhost:" + port);
+            Mono.from(direct.getDatabase("admin").runCommand(new Document("replSetInitiate",
+                    new Document("_id", "rs0").append("members", List.of(member))))).block();
+            Mono.from(direct.getDatabase("admin").runCommand(new Document("hello", 1)))
+                    .filter(hello -> hello.getBoolean("isWritablePrimary", false))
+                    .repeatWhenEmpty(100, attempts -> attempts.delayElements(Duration.ofMillis(100)))
+                    .block();
+        }
+
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:" + port + "/?replicaSet=rs0"))
+                .addCommandListener(new CommandListener() {
+                    @Override
+                    public void commandStarted(CommandStartedEvent event) {
+                        if (event.getCommandName().equals("find")) {
+                            finds.add(event.getCommand().clone());
+                        }
+                    }
+                })
+                .build());
+        reactiveMongoTemplate = new ReactiveMongoTemplate(client, "readRouting");
+    }
+
+    @AfterAll
+    static void stopReplicaSet() {
+        if (client != null) {
+            client.close();
+        }
+        if (mongod != null) {
+            mongod.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate.dropCollection(Task.class).block();
+        reactiveMongoTemplate.insert(task("seeded")).block();
+        TaskReadRouting readRouting = new TaskReadRouting("secondaryPreferred", "primary", "secondaryPreferred",
+                "secondaryPreferred", Duration.ZERO, Duration.ofMinutes(1));
+        taskStore = new MongoTaskStore(reactiveMongoTemplate, 16, readRouting);
+        finds.clear();
+    }
+
+    @Test
+    void testListingReadsPreferSecondaries() {
+        taskStore.find(TaskQuery.all()).blockLast();
+        assertEquals("secondaryPreferred", lastReadPreference());
+
+        taskStore.find(TaskQuery.search(null, "Title", null, 10)).blockLast();
+        assertEquals("secondaryPreferred", lastReadPreference());
+
+        taskStore.find(TaskQuery.page(null, 10, Sort.Direction.ASC, null)).blockLast();
+        assertEquals("primary", lastReadPreference());
+    }
+
+    @Test
+    void testReadsOwnWritesFromThePrimary() {
+        assertEquals("seeded", taskStore.findById("seeded").block().getId());
+        assertEquals("secondaryPreferred", lastReadPreference());
+
+        taskStore.insert(task("written")).block();
+        assertEquals("written", taskStore.findById("written").block().getId());
+        assertEquals("primary", lastReadPreference());
+
+        taskStore.findByIds(List.of("seeded", "written")).blockLast();
+        assertEquals("primary", lastReadPreference());
+    }
+
+    /**
+     * The mode of the last find, primary when none was sent.
+     */
+    private static String lastReadPreference() {
+        BsonDocument find = null;
+        for (BsonDocument command : finds) {
+            find = command;
+        }
+        BsonDocument readPreference = find.getDocument("$readPreference", null);
+        return readPreference == null ? "primary" : readPreference.getString("mode").getValue();
+    }
+
+    private static Task task(String id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle("Title");
+        task.setDescription("Description");
+        return task;
+    }
+}
@@ -0,0 +1,64 @@
+package management.task.prototal.task_manager.store;
+
+import com.mongodb.ReadPreference;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskReadRoutingTest {
+
+    private final TaskReadRouting readRouting = new TaskReadRouting("secondaryPreferred", "primary", "secondary",
+            "nearest", Duration.ZERO, Duration.ofMinutes(1));
+
+    @Test
+    void testPicksThePreferenceOfEachOperation() {
+        assertEquals(ReadPreference.secondaryPreferred(), readRouting.forId("a"));
+        assertEquals(ReadPreference.secondaryPreferred(), readRouting.forIds(List.of("a", "b")));
+        assertEquals(ReadPreference.primary(), readRouting.forQuery(TaskQuery.page(null, 10, Sort.Direction.ASC, null)));
+        assertEquals(ReadPreference.secondary(), readRouting.forQuery(TaskQuery.all()));
+        assertEquals(ReadPreference.nearest(), readRouting.forQuery(TaskQuery.search(null, "Title", null, 10)));
+    }
+
+    @Test
+    void testReadsRecentlyWrittenTasksFromThePrimary() {
+        readRouting.written("a");
+        readRouting.written(List.of("c"));
+
+        assertEquals(ReadPreference.primary(), readRouting.forId("a"));
+        assertEquals(ReadPreference.primary(), readRouting.forIds(List.of("b", "c")));
+        assertEquals(ReadPreference.secondaryPreferred(), readRouting.forId("b"));
+        assertEquals(ReadPreference.secondary(), readRouting.forQuery(TaskQuery.all()));
+    }
+
+    @Test
+    void testReadsEveryTaskFromThePrimaryAfterADeleteByQuery() {
+        readRouting.writtenMatching();
+
+        assertEquals(ReadPreference.primary(), readRouting.forId("b"));
+        assertEquals(ReadPreference.primary(), readRouting.forIds(List.of("b")));
+    }
+
+    @Test
+    void testWithoutAWindowReadsStayWhereConfigured() {
+        TaskReadRouting routing = new TaskReadRouting("secondaryPreferred", "primary", "primary", "primary",
+                Duration.ZERO, Duration.ZERO);
+        routing.written("a");
+        routing.writtenMatching();
+
+        assertEquals(ReadPreference.secondaryPreferred(), routing.forId("a"));
+    }
+
+    @Test
+    void testAppliesMaxStalenessToSecondaryReads() {
+        TaskReadRouting routing = new TaskReadRouting("primary", "primary", "secondaryPreferred", "primary",
+                Duration.ofSeconds(90), Duration.ZERO);
+
+        assertEquals(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS), routing.forQuery(TaskQuery.all()));
+        assertEquals(ReadPreference.primary(), routing.forId("a"));
+    }
+}